@@ -0,0 +1,28 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа {@code benchmarks.jar}: аргументы командной строки JMH плюс профилировщик {@code gc},
+ * чтобы рядом с пропускной способностью печаталась скорость выделения памяти
+ * ({@code gc.alloc.rate.norm} - байт на операцию).
+ * <p>
+ * {@code java -jar benchmarks.jar Sentiment -f 1 -wi 3 -i 5}
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.service.SentimentAnalyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Тексты для бенчмарков из {@code corpus/}: короткие заголовки (по одному в строке) и длинные статьи
+ * (первая строка - заголовок, статьи разделены строкой {@code ===}).
+ */
+public final class Corpus {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private Corpus() {
+    }
+
+    public static List<String> headlines() {
+        return read("corpus/headlines.txt").lines()
+                .filter(line -> !line.isBlank())
+                .toList();
+    }
+
+    public static List<String> articles() {
+        return Arrays.stream(read("corpus/articles.txt").split("\n===\n"))
+                .map(String::strip)
+                .toList();
+    }
+
+    /**
+     * Тексты по виду: {@code headline} или {@code article}.
+     */
+    public static List<String> texts(String kind) {
+        return switch (kind) {
+            case "headline" -> headlines();
+            case "article" -> articles();
+            default -> throw new IllegalArgumentException("Unknown corpus kind: " + kind);
+        };
+    }
+
+    /**
+     * {@code count} новостей с оценками: заголовки по кругу, описание - абзац статьи,
+     * даты публикации идут с шагом в час в перемешанном порядке. Со второго круга к заголовку добавляется
+     * номер круга: {@link com.cryptonews.mcpserver.service.SentimentAggregates} учитывает повторный заголовок
+     * один раз, а бенчмарки должны видеть все {@code count} новостей.
+     */
+    public static List<NewsItem> newsItems(int count, SentimentAnalyzer analyzer) {
+        List<String> headlines = headlines();
+        List<String> paragraphs = articles().stream()
+                .flatMap(article -> article.lines().skip(1))
+                .toList();
+        List<NewsItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String headline = headlines.get(i % headlines.size());
+            int round = i / headlines.size();
+            String title = round == 0 ? headline : headline + " #" + round;
+            String description = paragraphs.get(i % paragraphs.size());
+            items.add(NewsItem.builder()
+                    .id((long) i)
+                    .title(title)
+                    .description(description)
+                    .cryptocurrency("bitcoin")
+                    .publishedDate(EPOCH.plusHours((i * 7919L) % count))
+                    .source("benchmark")
+                    .url("https://example.com/news/" + i)
+                    .sentimentScore(analyzer.analyzeSentiment(title + " " + description))
+                    .build());
+        }
+        return items;
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Corpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Corpus resource not found: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
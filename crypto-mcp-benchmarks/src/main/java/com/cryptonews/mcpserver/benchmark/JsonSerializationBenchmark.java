@@ -0,0 +1,73 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import com.cryptonews.mcpserver.config.JacksonConfig;
+import com.cryptonews.mcpserver.model.CryptoAnalytics;
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.service.SentimentAnalyzer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов инструментов тем же {@link ObjectMapper}, что и в приложении
+ * ({@link JacksonConfig}): список {@link NewsItem} и {@link CryptoAnalytics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int newsCount;
+
+    private ObjectMapper objectMapper;
+    private List<NewsItem> news;
+    private CryptoAnalytics analytics;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        SentimentAnalyzer analyzer = new SentimentAnalyzer();
+        news = Corpus.newsItems(newsCount, analyzer);
+        analyzer.shutdown();
+        analytics = CryptoAnalytics.builder()
+                .cryptocurrency("bitcoin")
+                .timeRange("24h")
+                .totalArticles(news.size())
+                .sentimentCounts(newsCount / 2, newsCount / 3, newsCount - newsCount / 2 - newsCount / 3)
+                .averageSentiment(0.12)
+                .sentimentTrend(-0.04)
+                .keyTopics(List.of("bitcoin", "inflows", "regulatory", "upgrade", "liquidations"))
+                .topPositiveNews(news.subList(0, Math.min(5, news.size())))
+                .topNegativeNews(news.subList(Math.max(0, news.size() - 5), news.size()))
+                .marketMovingEvents("ETF inflows, exchange hack, rate cut expectations")
+                .trendForecast("Cautiously bullish over the next week")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] newsItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(news);
+    }
+
+    @Benchmark
+    public byte[] cryptoAnalytics() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(analytics);
+    }
+}
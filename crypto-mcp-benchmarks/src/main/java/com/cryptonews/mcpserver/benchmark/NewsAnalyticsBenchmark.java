@@ -0,0 +1,82 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.service.SentimentAggregates;
+import com.cryptonews.mcpserver.service.SentimentAnalyzer;
+import com.cryptonews.mcpserver.service.TrendingTopics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аналитика по готовым новостям: учет тем при сохранении и чтение ключевых тем {@link TrendingTopics},
+ * сводка {@link SentimentAggregates} (счетчики, тренд, импульс, наклон) за период, покрывающий все новости.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewsAnalyticsBenchmark {
+
+    @Param({"20", "200", "2000"})
+    private int newsCount;
+
+    private List<NewsItem> news;
+    private TrendingTopics topics;
+    private SentimentAggregates aggregates;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup
+    public void setUp() {
+        SentimentAnalyzer analyzer = new SentimentAnalyzer();
+        news = Corpus.newsItems(newsCount, analyzer);
+        analyzer.shutdown();
+        topics = newTopics();
+        news.forEach(topics::record);
+        aggregates = new SentimentAggregates(Duration.ofHours(1), Duration.ofDays(366), Duration.ofHours(6), 24);
+        news.forEach(aggregates::record);
+        start = news.stream().map(NewsItem::getPublishedDate).min(Comparator.naturalOrder()).orElseThrow();
+        end = news.stream().map(NewsItem::getPublishedDate).max(Comparator.naturalOrder()).orElseThrow();
+    }
+
+    /**
+     * Учет тем всех новостей в пустых счетчиках: стоимость, которую сохранение платит один раз.
+     */
+    @Benchmark
+    public TrendingTopics recordTopics() {
+        TrendingTopics fresh = newTopics();
+        news.forEach(fresh::record);
+        return fresh;
+    }
+
+    @Benchmark
+    public List<String> keyTopics() {
+        return topics.keyTopics("bitcoin", 10);
+    }
+
+    @Benchmark
+    public SentimentAggregates.Summary summarizeSentiment() {
+        return aggregates.summarize("bitcoin", start, end);
+    }
+
+    private static TrendingTopics newTopics() {
+        return new TrendingTopics(64, 256, Duration.ofHours(6));
+    }
+}
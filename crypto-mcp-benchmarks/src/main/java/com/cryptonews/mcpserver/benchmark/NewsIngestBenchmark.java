@@ -0,0 +1,129 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.NewsItemRepository;
+import com.cryptonews.mcpserver.service.NewsIngestListener;
+import com.cryptonews.mcpserver.service.SentimentAggregates;
+import com.cryptonews.mcpserver.service.SentimentAnalyzer;
+import com.cryptonews.mcpserver.service.TrendingTopics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение {@value #BACKFILL} новостей в H2 через JPA со слушателем {@link NewsIngestListener}:
+ * по одной ({@code save} в своей транзакции, как раньше сохранялся ответ источника) и одним пакетом
+ * ({@code saveAll}, как сейчас), с JDBC batch и без ({@code jdbcBatchSize = 0}).
+ * Идентификаторы во всех вариантах выдает одна последовательность с шагом 50, так что разница
+ * между ними - только число транзакций и JDBC batch. Время указано на одну новость.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NewsIngestBenchmark {
+
+    private static final int BACKFILL = 10_000;
+
+    @Param({"0", "50"})
+    private int jdbcBatchSize;
+
+    private List<NewsItem> corpus;
+    private ConfigurableApplicationContext context;
+    private NewsItemRepository repository;
+    private List<NewsItem> news;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        SentimentAnalyzer analyzer = new SentimentAnalyzer();
+        corpus = Corpus.newsItems(BACKFILL, analyzer);
+        analyzer.shutdown();
+        // Аргументами командной строки: они перекрывают application.yml приложения
+        context = new SpringApplicationBuilder(IngestConfiguration.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:ingest-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.com.cryptonews.mcpserver=WARN");
+        repository = context.getBean(NewsItemRepository.class);
+    }
+
+    /**
+     * Свежие копии корпуса без идентификаторов; заголовки уникальны в каждой итерации,
+     * чтобы слушатель не отбрасывал их как повторы.
+     */
+    @Setup(Level.Iteration)
+    public void prepareBackfill() {
+        repository.deleteAllInBatch();
+        iteration++;
+        news = new ArrayList<>(corpus.size());
+        for (NewsItem item : corpus) {
+            news.add(NewsItem.builder()
+                    .title(item.getTitle() + " #" + iteration + "-" + news.size())
+                    .description(item.getDescription())
+                    .cryptocurrency(item.getCryptocurrency())
+                    .publishedDate(item.getPublishedDate())
+                    .source(item.getSource())
+                    .url(item.getUrl())
+                    .sentimentScore(item.getSentimentScore())
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BACKFILL)
+    public void saveEach() {
+        for (NewsItem item : news) {
+            repository.save(item);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BACKFILL)
+    public List<NewsItem> saveAll() {
+        return repository.saveAll(news);
+    }
+
+    // Только JPA и бины слушателя, без инструментов MCP и HTTP клиентов приложения
+    @Configuration(proxyBeanMethods = false)
+    @AutoConfigurationPackage(basePackageClasses = NewsItem.class)
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            JpaRepositoriesAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @Import({SentimentAggregates.class, TrendingTopics.class, NewsIngestListener.class})
+    static class IngestConfiguration {
+    }
+}
@@ -0,0 +1,79 @@
+package com.cryptonews.mcpserver.benchmark;
+
+import com.cryptonews.mcpserver.model.SentimentScore;
+import com.cryptonews.mcpserver.service.SentimentAnalyzer;
+import com.cryptonews.mcpserver.service.SentimentCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SentimentAnalyzer#analyzeSentiment(String)} на заголовках и длинных статьях:
+ * без кэша (чистая стоимость токенизатора, словаря и фраз) и с прогретым кэшем оценок.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentimentBenchmark {
+
+    @Param({"headline", "article"})
+    private String kind;
+
+    private String[] texts;
+    private SentimentAnalyzer uncached;
+    private SentimentAnalyzer cached;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> corpus = Corpus.texts(kind);
+        texts = corpus.toArray(String[]::new);
+        uncached = new SentimentAnalyzer(1, cache(DataSize.ofBytes(0)));
+        cached = new SentimentAnalyzer(1, cache(DataSize.ofMegabytes(16)));
+        corpus.forEach(cached::analyzeSentiment);
+    }
+
+    @TearDown
+    public void tearDown() {
+        uncached.shutdown();
+        cached.shutdown();
+    }
+
+    @Benchmark
+    public SentimentScore analyzeUncached() {
+        return uncached.analyzeSentiment(nextText());
+    }
+
+    @Benchmark
+    public SentimentScore analyzeCached() {
+        return cached.analyzeSentiment(nextText());
+    }
+
+    private String nextText() {
+        String text = texts[next];
+        next = next + 1 == texts.length ? 0 : next + 1;
+        return text;
+    }
+
+    private static SentimentCache cache(DataSize maxMemory) {
+        return new SentimentCache(maxMemory, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+}
@@ -1,95 +1,389 @@
 package com.cryptonews.mcpserver.client;
 
+import com.cryptonews.mcpserver.client.dto.CoinNewsDigest;
 import com.cryptonews.mcpserver.client.dto.PerplexitySearchResponse;
+import com.cryptonews.mcpserver.client.dto.PerplexityStreamChunk;
+import com.cryptonews.mcpserver.config.UpstreamHttpClientProperties;
+import com.cryptonews.mcpserver.exception.DeadlineExceededException;
+import com.cryptonews.mcpserver.exception.PerplexityApiException;
+import com.cryptonews.mcpserver.exception.UpstreamUnavailableException;
+import com.cryptonews.mcpserver.model.NewsItem;
 import com.cryptonews.mcpserver.model.NewsResponse;
 import com.cryptonews.mcpserver.model.PerplexityRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class PerplexityNewsClient {
 
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SERVER_SENT_EVENT_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final String STREAM_DONE_MARKER = "[DONE]";
+    private static final TypeReference<Map<String, CoinNewsDigest>> DIGESTS_TYPE = new TypeReference<>() {};
+    private static final String ARTICLES_FORMAT = "Respond only with a JSON array where each element is " +
+            "{\"title\": string, \"summary\": string, \"source\": string, \"url\": string, " +
+            "\"published\": ISO-8601 date}. Do not add any text outside the JSON array.";
+    private static final int MAX_SEARCH_ARTICLES = 10;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final StructuredNewsParser newsParser = new StructuredNewsParser(jsonMapper.getFactory());
     private final WebClient webClient;
     private final String apiKey;
     private final String model;
+    private final RequestCoalescer<String> coalescer;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final Map<PromptTemplate, Retry> retrySpecs = new EnumMap<>(PromptTemplate.class);
+    private final PromptMetrics promptMetrics;
+    private final UpstreamHttpClientProperties.Hedging hedging;
+    private final UpstreamLatencyTracker latencyTracker;
+    private final Counter hedgedCalls;
+    private final PromptResponseStore promptStore;
 
     public PerplexityNewsClient(WebClient webClient) {
-        this.webClient = webClient;
-        this.apiKey = "demo-key";
-        this.model = "sonar-small-chat";
+        this(webClient, new SimpleMeterRegistry());
+    }
+
+    PerplexityNewsClient(WebClient webClient, MeterRegistry meterRegistry) {
+        this(webClient, "demo-key", "sonar-small-chat",
+                new UpstreamRateLimiter("perplexity", 1000, 1000, 100, meterRegistry),
+                new UpstreamCircuitBreaker("perplexity", 20, 10, 0.5, Duration.ofSeconds(30), 3, meterRegistry),
+                PromptResponseStore.disabled(meterRegistry), new UpstreamHttpClientProperties(), meterRegistry);
     }
 
     @Autowired
-    public PerplexityNewsClient(WebClient.Builder webClientBuilder,
-                                @Value("${perplexity.api.url}") String perplexityApiUrl,
+    public PerplexityNewsClient(@Qualifier("perplexityWebClient") WebClient perplexityWebClient,
                                 @Value("${perplexity.api.key}") String apiKey,
-                                @Value("${perplexity.api.model}") String model) {
-        this.webClient = webClientBuilder.baseUrl(perplexityApiUrl).build();
+                                @Value("${perplexity.api.model}") String model,
+                                UpstreamRateLimiter perplexityRateLimiter,
+                                UpstreamCircuitBreaker perplexityCircuitBreaker,
+                                PromptResponseStore perplexityPromptStore,
+                                UpstreamHttpClientProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.webClient = perplexityWebClient;
         this.apiKey = apiKey;
         this.model = model;
+        this.coalescer = new RequestCoalescer<>("perplexity", meterRegistry);
+        this.rateLimiter = perplexityRateLimiter;
+        this.circuitBreaker = perplexityCircuitBreaker;
+        this.promptStore = perplexityPromptStore;
+
+        this.promptMetrics = new PromptMetrics(meterRegistry);
+        UpstreamHttpClientProperties.Retry retry = properties.getRetry();
+        RetryBackoffSpec retrySpec = Retry.backoff(retry.getMaxAttempts(), retry.getMinBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .jitter(retry.getJitter())
+                .filter(PerplexityNewsClient::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        for (PromptTemplate template : PromptTemplate.values()) {
+            retrySpecs.put(template, retrySpec.doBeforeRetry(signal -> promptMetrics.recordRetry(template)));
+        }
+
+        this.hedging = properties.getHedging();
+        this.latencyTracker = new UpstreamLatencyTracker(hedging.getWindowSize(), hedging.getMinSamples(),
+                hedging.getPercentile());
+        this.hedgedCalls = Counter.builder("perplexity.hedged.calls")
+                .description("Second attempts fired because the first one was slower than the hedge delay")
+                .register(meterRegistry);
     }
 
+    /**
+     * Выполняет запрос к Perplexity. Одновременные вызовы с одинаковым запросом
+     * объединяются в один запрос к API и получают общий результат.
+     */
     public Mono<NewsResponse> searchNews(String query) {
+        return searchNews(PromptTemplate.CUSTOM, query);
+    }
+
+    private Mono<NewsResponse> searchNews(PromptTemplate template, String query) {
+        return complete(template, query).map(content -> {
+            String[] parts = content.split("\n");
+            return new NewsResponse(parts.length > 0 ? parts[0] : "No title", 
+                                  parts.length > 1 ? parts[1] : "Perplexity", 
+                                  parts.length > 2 ? parts[2] : "https://perplexity.ai");
+        });
+    }
+
+    /**
+     * Возвращает полный текст ответа модели. Одновременные одинаковые запросы объединяются.
+     */
+    public Mono<String> complete(String query) {
+        return complete(PromptTemplate.CUSTOM, query);
+    }
+
+    /**
+     * Дедлайн из контекста ограничивает ожидание каждого вызывающего, а не общий запрос:
+     * запрос к API отменяется, когда не осталось ни одного ожидающего.
+     */
+    private Mono<String> complete(PromptTemplate template, String query) {
+        String key = RequestCoalescer.key(this.model, query);
+        return UpstreamContext.withinDeadline(
+                coalescer.coalesce(key, () -> executeCompletion(template, query)),
+                () -> storedAfterDeadline(template, key).map(Mono::just).orElseGet(() -> Mono.error(deadlineExceeded(template))));
+    }
+
+    /**
+     * Сохраненный ответ без учета TTL, которым отвечаем после истечения дедлайна.
+     */
+    private Optional<String> storedAfterDeadline(PromptTemplate template, String key) {
+        Optional<String> stored = promptStore.lookupStale(key);
+        if (stored.isPresent()) {
+            log.info("Deadline for {} prompt expired, answering from prompt store", template.tag());
+        }
+        return stored;
+    }
+
+    private static DeadlineExceededException deadlineExceeded(PromptTemplate template) {
+        return new DeadlineExceededException("Deadline expired before Perplexity answered the " + template.tag() + " prompt");
+    }
+
+    private Mono<String> executeCompletion(PromptTemplate template, String query) {
         log.info("Searching news from Perplexity with query: {}", query);
         PerplexityRequest request = new PerplexityRequest(this.model,
                 List.of(new PerplexityRequest.Message("user", query)));
 
-        return this.webClient.post()
-                .uri("/chat/completions")
-                .header("Authorization", "Bearer " + this.apiKey)
-                .header("Accept", "application/json")
-                .header("Content-Type", "application/json")
-                .body(BodyInserters.fromValue(request))
-                .retrieve()
-                .bodyToMono(PerplexitySearchResponse.class)
+        // Breaker внутри ограничителя: ожидание в очереди не входит в исход попытки
+        // и не занимает пробные вызовы полуоткрытого breaker
+        Supplier<Mono<PerplexitySearchResponse>> attempt = () -> rateLimiter.execute(() ->
+                circuitBreaker.execute(() -> timed(this.webClient.post()
+                        .uri("/chat/completions")
+                        .header("Authorization", "Bearer " + this.apiKey)
+                        .header("Accept", "application/json")
+                        .header("Content-Type", "application/json")
+                        .body(BodyInserters.fromValue(request))
+                        .retrieve()
+                        .bodyToMono(PerplexitySearchResponse.class))));
+
+        Mono<String> live = hedged(attempt)
                 .map(response -> {
                     String content = response.choices().get(0).message().content();
-                    String[] parts = content.split("\n");
-                    return new NewsResponse(parts.length > 0 ? parts[0] : "No title", 
-                                          parts.length > 1 ? parts[1] : "Perplexity", 
-                                          parts.length > 2 ? parts[2] : "https://perplexity.ai");
+                    promptMetrics.recordResponse(template, content.length(), response.usage());
+                    return content;
                 })
                 .doOnError(e -> log.error("Error calling Perplexity API", e))
-                .retry(3);
+                // Каждая попытка снова проходит через ограничитель и breaker; 4xx и отказ breaker не повторяются
+                .retryWhen(retrySpecs.get(template))
+                .transform(call -> promptMetrics.timed(template, call));
+
+        return recordedOrLive(query, live.flux()).collect(Collectors.joining());
+    }
+
+    /**
+     * Отдает ответ из {@link PromptResponseStore}, если он там есть, иначе выполняет запрос и
+     * сохраняет полный ответ после его успешного завершения. В режиме replay запрос к API
+     * не выполняется никогда.
+     */
+    private Flux<String> recordedOrLive(String query, Flux<String> live) {
+        return Flux.defer(() -> {
+            String key = RequestCoalescer.key(this.model, query);
+            Optional<String> recorded = promptStore.lookup(key);
+            if (recorded.isPresent()) {
+                log.debug("Answering Perplexity query from prompt store");
+                return Flux.just(recorded.get());
+            }
+            if (promptStore.mode() == PromptResponseStore.Mode.REPLAY) {
+                return Flux.error(new UpstreamUnavailableException("No recorded Perplexity response for query in replay mode"));
+            }
+            if (promptStore.mode() == PromptResponseStore.Mode.OFF) {
+                return live;
+            }
+            StringBuilder response = new StringBuilder();
+            return live
+                    .doOnNext(response::append)
+                    // Запись в файл блокирующая, выполняем ее вне потоков HTTP клиента
+                    .doOnComplete(() -> Schedulers.boundedElastic().schedule(() ->
+                            promptStore.append(key, response.toString())));
+        });
+    }
+
+    /**
+     * Замеряет длительность успешного запроса без учета ожидания в очереди ограничителя.
+     */
+    private <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return request.doOnSuccess(value -> latencyTracker.record(System.nanoTime() - started));
+        });
+    }
+
+    /**
+     * Если первая попытка не ответила за p95 последних запросов, отправляет вторую и берет
+     * первый полученный ответ; оставшаяся попытка отменяется. Пока замеров мало или hedging
+     * выключен, выполняется одна попытка. Если первая попытка завершилась ошибкой до отправки
+     * второй, ошибка возвращается сразу, без второй попытки.
+     */
+    <T> Mono<T> hedged(Supplier<Mono<T>> attempt) {
+        Duration percentile = hedging.isEnabled() ? latencyTracker.percentile() : null;
+        if (percentile == null) {
+            return attempt.get();
+        }
+        Duration delay = percentile.compareTo(hedging.getMinDelay()) > 0 ? percentile : hedging.getMinDelay();
+
+        return Mono.defer(() -> {
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.One<Throwable> primaryFailed = Sinks.one();
+            Mono<T> primary = attempt.get().doOnError(e -> {
+                primaryError.set(e);
+                primaryFailed.tryEmitValue(e);
+            });
+            Mono<T> hedge = Mono.delay(delay)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .flatMap(tick -> {
+                        hedgedCalls.increment();
+                        log.debug("Perplexity request exceeded {} ms, sending hedged request", delay.toMillis());
+                        return attempt.get();
+                    });
+            return Mono.firstWithValue(primary, hedge)
+                    // Возвращаем исходную ошибку попытки, а не сводную ошибку firstWithValue
+                    .onErrorMap(NoSuchElementException.class, e -> primaryError.get() != null ? primaryError.get() : e);
+        });
+    }
+
+    /**
+     * Ошибки, после которых повтор запроса имеет смысл: сетевые сбои, 429 и 5xx.
+     */
+    static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            HttpStatusCode status = responseException.getStatusCode();
+            return status.value() == 429 || status.is5xxServerError();
+        }
+        return error instanceof WebClientRequestException;
+    }
+
+    /**
+     * Выполняет запрос в потоковом режиме ({@code stream=true}) и возвращает фрагменты ответа
+     * по мере их генерации. Потоковые запросы не объединяются и не повторяются, но записываются
+     * в {@link PromptResponseStore} под тем же ключом, что и обычные.
+     */
+    public Flux<String> streamCompletion(String query) {
+        return streamCompletion(PromptTemplate.CUSTOM, query);
+    }
+
+    private Flux<String> streamCompletion(PromptTemplate template, String query) {
+        log.info("Streaming completion from Perplexity with query: {}", query);
+        PerplexityRequest request = new PerplexityRequest(this.model,
+                List.of(new PerplexityRequest.Message("user", query))).withStream(true);
+
+        Flux<String> live = Flux.defer(() -> {
+                    AtomicReference<PerplexitySearchResponse.Usage> usage = new AtomicReference<>();
+                    AtomicInteger length = new AtomicInteger();
+                    return rateLimiter.executeMany(() -> circuitBreaker.executeMany(() -> this.webClient.post()
+                                    .uri("/chat/completions")
+                                    .header("Authorization", "Bearer " + this.apiKey)
+                                    .header("Accept", "text/event-stream")
+                                    .header("Content-Type", "application/json")
+                                    .body(BodyInserters.fromValue(request))
+                                    .retrieve()
+                                    .bodyToFlux(SERVER_SENT_EVENT_TYPE)))
+                            .mapNotNull(ServerSentEvent::data)
+                            .takeWhile(data -> !STREAM_DONE_MARKER.equals(data))
+                            .mapNotNull(data -> extractDelta(data, usage))
+                            .doOnNext(delta -> length.addAndGet(delta.length()))
+                            .doOnComplete(() -> promptMetrics.recordResponse(template, length.get(), usage.get()));
+                })
+                .transform(call -> promptMetrics.timedMany(template, call))
+                .doOnError(e -> log.error("Error streaming from Perplexity API", e));
+
+        // Сохраненный ответ отдается одним фрагментом
+        // После истечения дедлайна сохраненный ответ подходит, только если фрагменты еще не отправлялись
+        String key = RequestCoalescer.key(this.model, query);
+        return Flux.defer(() -> {
+            AtomicBoolean started = new AtomicBoolean();
+            return UpstreamContext.withinDeadlineMany(recordedOrLive(query, live).doOnNext(delta -> started.set(true)),
+                    () -> started.get()
+                            ? Flux.error(deadlineExceeded(template))
+                            : storedAfterDeadline(template, key).map(Flux::just).orElseGet(() -> Flux.error(deadlineExceeded(template))));
+        });
+    }
+
+    private String extractDelta(String data, AtomicReference<PerplexitySearchResponse.Usage> usage) {
+        try {
+            PerplexityStreamChunk chunk = jsonMapper.readValue(data, PerplexityStreamChunk.class);
+            if (chunk.usage() != null) {
+                usage.set(chunk.usage());
+            }
+            if (chunk.choices() == null || chunk.choices().isEmpty() || chunk.choices().get(0).delta() == null) {
+                return null;
+            }
+            String content = chunk.choices().get(0).delta().content();
+            return content == null || content.isEmpty() ? null : content;
+        } catch (JsonProcessingException e) {
+            throw new PerplexityApiException("Malformed streaming chunk from Perplexity API", e);
+        }
     }
 
     /**
      * Получает криптовалютные новости с анализом.
      */
-    public List<String> getCryptoNews(String cryptocurrency, int maxArticles) {
+    public List<NewsItem> getCryptoNews(String cryptocurrency, int maxArticles) {
+        return getCryptoNewsAsync(cryptocurrency, maxArticles).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getCryptoNews(String, int)}.
+     * Модель отвечает JSON массивом статей, каждая статья становится одним {@link NewsItem}
+     * без оценки настроения. Ошибки не подменяются текстом: сервис отвечает сохраненными новостями.
+     */
+    public Mono<List<NewsItem>> getCryptoNewsAsync(String cryptocurrency, int maxArticles) {
         log.info("Getting crypto news for {} (max: {})", cryptocurrency, maxArticles);
         
         String query = String.format("Get the latest %d news articles about %s cryptocurrency. " +
-                "Provide a brief summary of each article focusing on market impact and sentiment.", 
+                "For each article give a brief summary focusing on market impact and sentiment. " +
+                ARTICLES_FORMAT, 
                 maxArticles, cryptocurrency);
         
-        try {
-            NewsResponse response = searchNews(query).block();
-            if (response != null && response.title() != null) {
-                // Разбиваем ответ на отдельные новости
-                String content = response.title() + "\n" + response.source() + "\n" + response.url();
-                return Arrays.asList(content.split("\\. "));
-            }
-            return List.of(String.format("Unable to fetch news for %s at this time.", cryptocurrency));
-        } catch (Exception e) {
-            log.error("Error getting crypto news for {}", cryptocurrency, e);
-            return List.of(String.format("Error fetching news for %s: %s", cryptocurrency, e.getMessage()));
-        }
+        return complete(PromptTemplate.CRYPTO_NEWS, query)
+                .map(content -> newsParser.parse(content, cryptocurrency, maxArticles))
+                .doOnError(e -> log.error("Error getting crypto news for {}", cryptocurrency, e));
     }
 
     /**
      * Анализирует настроение рынка.
      */
     public String analyzeMarketSentiment(String cryptocurrency, String timeRange) {
+        return analyzeMarketSentimentAsync(cryptocurrency, timeRange).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #analyzeMarketSentiment(String, String)}.
+     */
+    public Mono<String> analyzeMarketSentimentAsync(String cryptocurrency, String timeRange) {
         log.info("Analyzing market sentiment for {} over {}", cryptocurrency, timeRange);
         
         String query = String.format("Analyze the current market sentiment for %s cryptocurrency over the past %s. " +
@@ -97,41 +391,63 @@ public class PerplexityNewsClient {
                 "Provide a comprehensive sentiment analysis with bullish/bearish indicators.", 
                 cryptocurrency, timeRange);
         
-        try {
-            NewsResponse response = searchNews(query).block();
-            return response != null ? response.title() : 
-                "Unable to analyze market sentiment at this time.";
-        } catch (Exception e) {
-            log.error("Error analyzing market sentiment for {}", cryptocurrency, e);
-            return String.format("Error analyzing sentiment for %s: %s", cryptocurrency, e.getMessage());
-        }
+        return searchNews(PromptTemplate.MARKET_SENTIMENT, query)
+                .map(NewsResponse::title)
+                .defaultIfEmpty("Unable to analyze market sentiment at this time.")
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error analyzing market sentiment for {}", cryptocurrency, e);
+                    return Mono.just(String.format("Error analyzing sentiment for %s: %s", cryptocurrency, e.getMessage()));
+                });
     }
 
     /**
      * Получает прогноз трендов.
      */
     public String getTrendForecast(String cryptocurrency) {
+        return getTrendForecastAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getTrendForecast(String)}.
+     */
+    public Mono<String> getTrendForecastAsync(String cryptocurrency) {
         log.info("Getting trend forecast for {}", cryptocurrency);
         
-        String query = String.format("Provide a short-term trend forecast for %s cryptocurrency. " +
+        return searchNews(PromptTemplate.TREND_FORECAST, trendForecastQuery(cryptocurrency))
+                .map(NewsResponse::title)
+                .defaultIfEmpty("Unable to generate trend forecast at this time.")
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error getting trend forecast for {}", cryptocurrency, e);
+                    return Mono.just(String.format("Error getting forecast for %s: %s", cryptocurrency, e.getMessage()));
+                });
+    }
+
+    /**
+     * Потоковый вариант {@link #getTrendForecast(String)}.
+     */
+    public Flux<String> streamTrendForecast(String cryptocurrency) {
+        log.info("Streaming trend forecast for {}", cryptocurrency);
+        return streamCompletion(PromptTemplate.TREND_FORECAST, trendForecastQuery(cryptocurrency));
+    }
+
+    private static String trendForecastQuery(String cryptocurrency) {
+        return String.format("Provide a short-term trend forecast for %s cryptocurrency. " +
                 "Consider technical analysis, recent developments, market conditions, " +
                 "and institutional adoption. Give concrete price predictions if possible.", 
                 cryptocurrency);
-        
-        try {
-            NewsResponse response = searchNews(query).block();
-            return response != null ? response.title() : 
-                "Unable to generate trend forecast at this time.";
-        } catch (Exception e) {
-            log.error("Error getting trend forecast for {}", cryptocurrency, e);
-            return String.format("Error getting forecast for %s: %s", cryptocurrency, e.getMessage());
-        }
     }
 
     /**
      * Получает события, влияющие на рынок.
      */
     public String getMarketMovingEvents(String cryptocurrency) {
+        return getMarketMovingEventsAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getMarketMovingEvents(String)}.
+     */
+    public Mono<String> getMarketMovingEventsAsync(String cryptocurrency) {
         log.info("Getting market moving events for {}", cryptocurrency);
         
         String query = String.format("Identify the most significant recent events affecting %s cryptocurrency. " +
@@ -139,20 +455,26 @@ public class PerplexityNewsClient {
                 "and any major announcements that could impact price.", 
                 cryptocurrency);
         
-        try {
-            NewsResponse response = searchNews(query).block();
-            return response != null ? response.title() : 
-                "No significant market-moving events identified at this time.";
-        } catch (Exception e) {
-            log.error("Error getting market moving events for {}", cryptocurrency, e);
-            return String.format("Error getting events for %s: %s", cryptocurrency, e.getMessage());
-        }
+        return searchNews(PromptTemplate.MARKET_MOVING_EVENTS, query)
+                .map(NewsResponse::title)
+                .defaultIfEmpty("No significant market-moving events identified at this time.")
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error getting market moving events for {}", cryptocurrency, e);
+                    return Mono.just(String.format("Error getting events for %s: %s", cryptocurrency, e.getMessage()));
+                });
     }
 
     /**
      * Анализирует корреляцию настроения и цены.
      */
     public String analyzeSentimentPriceCorrelation(String cryptocurrency) {
+        return analyzeSentimentPriceCorrelationAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #analyzeSentimentPriceCorrelation(String)}.
+     */
+    public Mono<String> analyzeSentimentPriceCorrelationAsync(String cryptocurrency) {
         log.info("Analyzing sentiment-price correlation for {}", cryptocurrency);
         
         String query = String.format("Analyze the correlation between news sentiment and price movements for %s. " +
@@ -160,59 +482,126 @@ public class PerplexityNewsClient {
                 "Provide insights on sentiment-driven price movements and their reliability.", 
                 cryptocurrency);
         
-        try {
-            NewsResponse response = searchNews(query).block();
-            return response != null ? response.title() : 
-                "Unable to analyze sentiment-price correlation at this time.";
-        } catch (Exception e) {
-            log.error("Error analyzing sentiment-price correlation for {}", cryptocurrency, e);
-            return String.format("Error analyzing correlation for %s: %s", cryptocurrency, e.getMessage());
-        }
+        return searchNews(PromptTemplate.SENTIMENT_PRICE_CORRELATION, query)
+                .map(NewsResponse::title)
+                .defaultIfEmpty("Unable to analyze sentiment-price correlation at this time.")
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error analyzing sentiment-price correlation for {}", cryptocurrency, e);
+                    return Mono.just(String.format("Error analyzing correlation for %s: %s", cryptocurrency, e.getMessage()));
+                });
     }
 
     /**
      * Сравнивает криптовалюты.
      */
     public String compareCryptocurrencies(List<String> cryptocurrencies) {
+        return compareCryptocurrenciesAsync(cryptocurrencies).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #compareCryptocurrencies(List)}.
+     */
+    public Mono<String> compareCryptocurrenciesAsync(List<String> cryptocurrencies) {
         log.info("Comparing cryptocurrencies: {}", cryptocurrencies);
         
+        return searchNews(PromptTemplate.COMPARISON, comparisonQuery(cryptocurrencies))
+                .map(NewsResponse::title)
+                .defaultIfEmpty("Unable to compare cryptocurrencies at this time.")
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error comparing cryptocurrencies: {}", cryptocurrencies, e);
+                    return Mono.just(String.format("Error comparing cryptocurrencies: %s", e.getMessage()));
+                });
+    }
+
+    /**
+     * Потоковый вариант {@link #compareCryptocurrencies(List)}.
+     */
+    public Flux<String> streamComparison(List<String> cryptocurrencies) {
+        log.info("Streaming comparison of cryptocurrencies: {}", cryptocurrencies);
+        return streamCompletion(PromptTemplate.COMPARISON, comparisonQuery(cryptocurrencies));
+    }
+
+    private static String comparisonQuery(List<String> cryptocurrencies) {
         String cryptoList = String.join(", ", cryptocurrencies);
-        String query = String.format("Compare the following cryptocurrencies: %s. " +
+        return String.format("Compare the following cryptocurrencies: %s. " +
                 "Analyze their recent performance, market sentiment, adoption rates, " +
                 "technical developments, and investment potential. " +
                 "Provide a detailed comparison with pros and cons for each.", 
                 cryptoList);
+    }
+
+    /**
+     * Получает новости и краткий обзор сразу по нескольким криптовалютам одним запросом.
+     */
+    public Map<String, CoinNewsDigest> getNewsDigests(List<String> cryptocurrencies, int maxArticlesPerCoin) {
+        return getNewsDigestsAsync(cryptocurrencies, maxArticlesPerCoin).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getNewsDigests(List, int)}.
+     * Модель отвечает JSON объектом по тикерам; тикеры, которых нет в ответе, в результат не попадают.
+     * Ошибки не подменяются текстом: вызывающая сторона сама решает, как добрать недостающие данные.
+     */
+    public Mono<Map<String, CoinNewsDigest>> getNewsDigestsAsync(List<String> cryptocurrencies, int maxArticlesPerCoin) {
+        log.info("Getting batched news digests for {} (max per coin: {})", cryptocurrencies, maxArticlesPerCoin);
+        
+        String query = String.format("For each of the following cryptocurrencies: %s, list the %d most important " +
+                "recent news items and give a one-sentence market summary. " +
+                "Respond only with a JSON object keyed by the ticker exactly as given, where each value is " +
+                "{\"summary\": string, \"news\": [string]} and each news item is one sentence with the key fact. " +
+                "Do not add any text outside the JSON object.",
+                String.join(", ", cryptocurrencies), maxArticlesPerCoin);
         
+        return complete(PromptTemplate.NEWS_DIGESTS, query).map(content -> parseDigests(content, cryptocurrencies));
+    }
+
+    private Map<String, CoinNewsDigest> parseDigests(String content, List<String> cryptocurrencies) {
+        // Модель может обернуть JSON в markdown блок или добавить пояснение, берем сам объект
+        int start = content.indexOf('{');
+        int end = content.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            throw new PerplexityApiException("Batched answer from Perplexity is not a JSON object");
+        }
+        Map<String, CoinNewsDigest> parsed;
         try {
-            NewsResponse response = searchNews(query).block();
-            return response != null ? response.title() : 
-                "Unable to compare cryptocurrencies at this time.";
-        } catch (Exception e) {
-            log.error("Error comparing cryptocurrencies: {}", cryptocurrencies, e);
-            return String.format("Error comparing cryptocurrencies: %s", e.getMessage());
+            parsed = jsonMapper.readValue(content.substring(start, end + 1), DIGESTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new PerplexityApiException("Malformed batched answer from Perplexity", e);
         }
+        
+        Map<String, CoinNewsDigest> digests = new LinkedHashMap<>();
+        for (String cryptocurrency : cryptocurrencies) {
+            parsed.entrySet().stream()
+                    .filter(entry -> entry.getKey().trim().equalsIgnoreCase(cryptocurrency.trim()))
+                    .map(Map.Entry::getValue)
+                    .filter(digest -> digest != null && digest.news() != null)
+                    .findFirst()
+                    .ifPresent(digest -> digests.put(cryptocurrency, digest));
+        }
+        return digests;
     }
 
     /**
      * Ищет новости по ключевым словам.
      */
-    public List<String> searchCryptoNews(String cryptocurrency, String keywords) {
+    public List<NewsItem> searchCryptoNews(String cryptocurrency, String keywords) {
+        return searchCryptoNewsAsync(cryptocurrency, keywords).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #searchCryptoNews(String, String)}.
+     * Формат ответа и обработка ошибок такие же, как у {@link #getCryptoNewsAsync(String, int)}.
+     */
+    public Mono<List<NewsItem>> searchCryptoNewsAsync(String cryptocurrency, String keywords) {
         log.info("Searching crypto news for {} with keywords: {}", cryptocurrency, keywords);
         
         String query = String.format("Search for recent news about %s cryptocurrency containing keywords: %s. " +
-                "Provide relevant articles that match these topics and explain their significance.", 
+                "Provide relevant articles that match these topics and explain their significance in the summary. " +
+                ARTICLES_FORMAT, 
                 cryptocurrency, keywords);
         
-        try {
-            NewsResponse response = searchNews(query).block();
-            if (response != null && response.title() != null) {
-                String content = response.title() + "\n" + response.source() + "\n" + response.url();
-                return Arrays.asList(content.split("\\. "));
-            }
-            return List.of(String.format("No news found for %s with keywords: %s", cryptocurrency, keywords));
-        } catch (Exception e) {
-            log.error("Error searching crypto news for {} with keywords: {}", cryptocurrency, keywords, e);
-            return List.of(String.format("Error searching news: %s", e.getMessage()));
-        }
+        return complete(PromptTemplate.SEARCH_NEWS, query)
+                .map(content -> newsParser.parse(content, cryptocurrency, MAX_SEARCH_ARTICLES))
+                .doOnError(e -> log.error("Error searching crypto news for {} with keywords: {}", cryptocurrency, keywords, e));
     }
 } 
@@ -0,0 +1,134 @@
+package com.cryptonews.mcpserver.client;
+
+import com.cryptonews.mcpserver.client.dto.PerplexitySearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики запросов к Perplexity в разрезе {@link PromptTemplate}:
+ * <ul>
+ *   <li>{@code perplexity.prompt.latency} - длительность запроса вместе с повторами, теги {@code outcome} и {@code exception};</li>
+ *   <li>{@code perplexity.prompt.response.size} - размер ответа модели в символах;</li>
+ *   <li>{@code perplexity.prompt.tokens} - расход токенов из блока {@code usage}, тег {@code type};</li>
+ *   <li>{@code perplexity.prompt.retries} - число повторных попыток.</li>
+ * </ul>
+ * Ответы из {@link PromptResponseStore} не учитываются: запроса к API не было.
+ */
+final class PromptMetrics {
+
+    private static final String TEMPLATE_TAG = "template";
+
+    private final MeterRegistry meterRegistry;
+    // Метры без ошибок создаются заранее, чтобы не искать их в реестре на каждом запросе
+    private final Map<PromptTemplate, Timer> successTimers = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, Timer> cancelledTimers = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, DistributionSummary> responseSizes = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, DistributionSummary> promptTokens = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, DistributionSummary> completionTokens = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, DistributionSummary> totalTokens = new EnumMap<>(PromptTemplate.class);
+    private final Map<PromptTemplate, Counter> retries = new EnumMap<>(PromptTemplate.class);
+
+    PromptMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (PromptTemplate template : PromptTemplate.values()) {
+            successTimers.put(template, latency(template, "success", "none"));
+            cancelledTimers.put(template, latency(template, "cancelled", "none"));
+            responseSizes.put(template, DistributionSummary.builder("perplexity.prompt.response.size")
+                    .description("Length of the model answer per prompt template")
+                    .baseUnit("characters")
+                    .tag(TEMPLATE_TAG, template.tag())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(16.0)
+                    .maximumExpectedValue(1_048_576.0)
+                    .register(meterRegistry));
+            promptTokens.put(template, tokens(template, "prompt"));
+            completionTokens.put(template, tokens(template, "completion"));
+            totalTokens.put(template, tokens(template, "total"));
+            retries.put(template, Counter.builder("perplexity.prompt.retries")
+                    .description("Retried upstream attempts per prompt template")
+                    .tag(TEMPLATE_TAG, template.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Замеряет запрос от подписки до ответа, ошибки или отмены.
+     */
+    <T> Mono<T> timed(PromptTemplate template, Mono<T> call) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> successTimers.get(template).record(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> recordError(template, e, System.nanoTime() - started))
+                    .doOnCancel(() -> cancelledTimers.get(template).record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Потоковый вариант {@link #timed(PromptTemplate, Mono)}: замеряется время до последнего фрагмента.
+     */
+    <T> Flux<T> timedMany(PromptTemplate template, Flux<T> call) {
+        return Flux.defer(() -> {
+            long started = System.nanoTime();
+            return call
+                    .doOnComplete(() -> successTimers.get(template).record(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> recordError(template, e, System.nanoTime() - started))
+                    .doOnCancel(() -> cancelledTimers.get(template).record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    void recordResponse(PromptTemplate template, int length, PerplexitySearchResponse.Usage usage) {
+        responseSizes.get(template).record(length);
+        if (usage == null) {
+            return;
+        }
+        if (usage.promptTokens() != null) {
+            promptTokens.get(template).record(usage.promptTokens());
+        }
+        if (usage.completionTokens() != null) {
+            completionTokens.get(template).record(usage.completionTokens());
+        }
+        if (usage.totalTokens() != null) {
+            totalTokens.get(template).record(usage.totalTokens());
+        }
+    }
+
+    void recordRetry(PromptTemplate template) {
+        retries.get(template).increment();
+    }
+
+    private void recordError(PromptTemplate template, Throwable error, long nanos) {
+        // Классов ошибок немного, метр с тегом exception берется из реестра по требованию
+        latency(template, "error", error.getClass().getSimpleName()).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer latency(PromptTemplate template, String outcome, String exception) {
+        return Timer.builder("perplexity.prompt.latency")
+                .description("Upstream latency per prompt template, including retries")
+                .tags(TEMPLATE_TAG, template.tag(), "outcome", outcome, "exception", exception)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokens(PromptTemplate template, String type) {
+        return DistributionSummary.builder("perplexity.prompt.tokens")
+                .description("Tokens reported in the usage block per prompt template")
+                .baseUnit("tokens")
+                .tags(TEMPLATE_TAG, template.tag(), "type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(131_072.0)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,314 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Постоянное хранилище ответов Perplexity: запрос → ответ модели.
+ * <p>
+ * Записи дописываются в конец файла, поиск идет по индексу в памяти (SHA-256 от модели и
+ * нормализованного запроса → смещение), а сам ответ читается из отображенного в память файла.
+ * Формат записи: {@code magic, timestamp, sha256[32], length, utf8[length], crc32}.
+ * Оборванная при сбое запись в конце файла отбрасывается при открытии.
+ * <ul>
+ *   <li>{@link Mode#RECORD} - ответы моложе TTL берутся из файла, остальные запрашиваются и дописываются;</li>
+ *   <li>{@link Mode#REPLAY} - только файл, без обращения к API и без учета TTL (нагрузочные тесты, CI);</li>
+ *   <li>{@link Mode#OFF} - хранилище не используется.</li>
+ * </ul>
+ */
+@Slf4j
+public class PromptResponseStore implements Closeable {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private static final int MAGIC = 0x50525331;
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + HASH_BYTES + Integer.BYTES;
+    private static final int TRAILER_BYTES = Integer.BYTES;
+
+    private final Mode mode;
+    private final Path path;
+    private final long ttlMillis;
+    private final long maxFileBytes;
+    private final Map<ByteBuffer, Entry> index = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter writes;
+
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    // Защищено монитором this
+    private long writePosition;
+
+    private PromptResponseStore(Mode mode, Path path, Duration ttl, long maxFileBytes, MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.path = path;
+        this.ttlMillis = ttl.toMillis();
+        this.maxFileBytes = Math.min(maxFileBytes, Integer.MAX_VALUE);
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.writes = Counter.builder("perplexity.prompt.store.writes")
+                .description("Responses appended to the prompt store")
+                .register(meterRegistry);
+        Gauge.builder("perplexity.prompt.store.entries", index, Map::size)
+                .description("Distinct prompts in the prompt store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Хранилище, которое ничего не находит и ничего не сохраняет.
+     */
+    public static PromptResponseStore disabled(MeterRegistry meterRegistry) {
+        return new PromptResponseStore(Mode.OFF, null, Duration.ZERO, 0, meterRegistry);
+    }
+
+    /**
+     * Открывает (или создает) файл хранилища и строит индекс по его записям.
+     */
+    public static PromptResponseStore open(Mode mode, Path path, Duration ttl, long maxFileBytes,
+                                           MeterRegistry meterRegistry) {
+        PromptResponseStore store = new PromptResponseStore(mode, path, ttl, maxFileBytes, meterRegistry);
+        if (mode == Mode.OFF) {
+            return store;
+        }
+        try {
+            store.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open prompt store " + path, e);
+        }
+        log.info("Prompt store {} opened in {} mode with {} entries", path, mode, store.index.size());
+        return store;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Ищет сохраненный ответ. В режиме {@link Mode#RECORD} ответы старше TTL не возвращаются.
+     */
+    public Optional<String> lookup(String key) {
+        return lookup(key, mode == Mode.RECORD);
+    }
+
+    /**
+     * Ищет сохраненный ответ без учета TTL: устаревший ответ лучше, чем никакого,
+     * когда дедлайн вызова истек раньше, чем ответил API.
+     */
+    public Optional<String> lookupStale(String key) {
+        return lookup(key, false);
+    }
+
+    private Optional<String> lookup(String key, boolean checkTtl) {
+        if (mode == Mode.OFF) {
+            return Optional.empty();
+        }
+        Entry entry = index.get(ByteBuffer.wrap(hash(key)));
+        if (entry == null || (checkTtl && System.currentTimeMillis() - entry.timestampMillis() > ttlMillis)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        byte[] value = new byte[entry.length()];
+        mappingCovering(entry.offset() + entry.length()).get((int) entry.offset(), value);
+        hits.increment();
+        return Optional.of(new String(value, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Дописывает ответ в конец файла. В режимах, отличных от {@link Mode#RECORD}, ничего не делает.
+     */
+    public void append(String key, String response) {
+        if (mode != Mode.RECORD) {
+            return;
+        }
+        byte[] hash = hash(key);
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer record = encode(hash, timestamp, response.getBytes(StandardCharsets.UTF_8));
+        try {
+            synchronized (this) {
+                if (writePosition + record.remaining() > maxFileBytes) {
+                    log.warn("Prompt store {} reached {} bytes, new responses are not recorded", path, maxFileBytes);
+                    return;
+                }
+                long offset = writePosition;
+                while (record.hasRemaining()) {
+                    offset += channel.write(record, offset);
+                }
+                index.put(ByteBuffer.wrap(hash),
+                        new Entry(writePosition + HEADER_BYTES, record.limit() - HEADER_BYTES - TRAILER_BYTES, timestamp));
+                writePosition = offset;
+            }
+            writes.increment();
+        } catch (IOException e) {
+            log.warn("Failed to append response to prompt store {}", path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            mapped = null;
+        }
+    }
+
+    static byte[] hash(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void load() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long expiredBytes = scan();
+        // Файл только растет, поэтому при открытии переписываем его, если большая часть записей устарела
+        if (mode == Mode.RECORD && expiredBytes > writePosition / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Читает записи подряд и заполняет индекс; возвращает объем устаревших записей.
+     */
+    private long scan() throws IOException {
+        long size = channel.size();
+        if (size > maxFileBytes) {
+            throw new IOException("Prompt store is larger than " + maxFileBytes + " bytes");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long now = System.currentTimeMillis();
+        long expiredBytes = 0;
+        int position = 0;
+        while (position < size) {
+            int recordLength = validRecordLength(buffer, position, (int) size);
+            if (recordLength < 0) {
+                log.warn("Prompt store {} has a damaged record at offset {}, truncating", path, position);
+                channel.truncate(position);
+                break;
+            }
+            long timestamp = buffer.getLong(position + Integer.BYTES);
+            byte[] hash = new byte[HASH_BYTES];
+            buffer.get(position + Integer.BYTES + Long.BYTES, hash);
+            Entry previous = index.put(ByteBuffer.wrap(hash),
+                    new Entry(position + HEADER_BYTES, recordLength - HEADER_BYTES - TRAILER_BYTES, timestamp));
+            if (previous != null) {
+                expiredBytes += previous.length() + HEADER_BYTES + TRAILER_BYTES;
+            } else if (now - timestamp > ttlMillis) {
+                expiredBytes += recordLength;
+            }
+            position += recordLength;
+        }
+        writePosition = position;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+        return expiredBytes;
+    }
+
+    private int validRecordLength(ByteBuffer buffer, int position, int size) {
+        if (size - position < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(position) != MAGIC) {
+            return -1;
+        }
+        int valueLength = buffer.getInt(position + HEADER_BYTES - Integer.BYTES);
+        if (valueLength < 0 || valueLength > size - position - HEADER_BYTES - TRAILER_BYTES) {
+            return -1;
+        }
+        int crcOffset = position + HEADER_BYTES + valueLength;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position, crcOffset - position));
+        return (int) crc.getValue() == buffer.getInt(crcOffset) ? HEADER_BYTES + valueLength + TRAILER_BYTES : -1;
+    }
+
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        long now = System.currentTimeMillis();
+        int kept = 0;
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<ByteBuffer, Entry> item : index.entrySet()) {
+                Entry entry = item.getValue();
+                if (now - entry.timestampMillis() > ttlMillis) {
+                    continue;
+                }
+                byte[] value = new byte[entry.length()];
+                mapped.get((int) entry.offset(), value);
+                ByteBuffer record = encode(item.getKey().array(), entry.timestampMillis(), value);
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+                kept++;
+            }
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted prompt store {}: kept {} of {} entries", path, kept, index.size());
+
+        index.clear();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        scan();
+    }
+
+    private static ByteBuffer encode(byte[] hash, long timestamp, byte[] value) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + value.length + TRAILER_BYTES);
+        record.putInt(MAGIC).putLong(timestamp).put(hash).putInt(value.length).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * Возвращает отображение файла, покрывающее {@code end}; после дозаписи отображение расширяется.
+     */
+    private MappedByteBuffer mappingCovering(long end) {
+        MappedByteBuffer current = mapped;
+        if (current.capacity() >= end) {
+            return current;
+        }
+        synchronized (this) {
+            try {
+                if (mapped.capacity() < end) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+                }
+                return mapped;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map prompt store " + path, e);
+            }
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("perplexity.prompt.store.lookups")
+                .description("Prompt store lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(long offset, int length, long timestampMillis) {
+    }
+}
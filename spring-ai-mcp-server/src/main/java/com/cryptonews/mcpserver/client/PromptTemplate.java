@@ -0,0 +1,29 @@
+package com.cryptonews.mcpserver.client;
+
+/**
+ * Шаблоны запросов к Perplexity. Значение {@link #tag()} используется как тег {@code template}
+ * в метриках {@code perplexity.prompt.*}.
+ */
+public enum PromptTemplate {
+
+    CRYPTO_NEWS("crypto-news"),
+    MARKET_SENTIMENT("market-sentiment"),
+    TREND_FORECAST("trend-forecast"),
+    MARKET_MOVING_EVENTS("market-moving-events"),
+    SENTIMENT_PRICE_CORRELATION("sentiment-price-correlation"),
+    COMPARISON("comparison"),
+    SEARCH_NEWS("search-news"),
+    NEWS_DIGESTS("news-digests"),
+    // Произвольный запрос через searchNews(String)
+    CUSTOM("custom");
+
+    private final String tag;
+
+    PromptTemplate(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
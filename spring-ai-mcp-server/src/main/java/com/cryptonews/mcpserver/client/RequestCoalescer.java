@@ -0,0 +1,156 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одинаковые одновременные запросы к внешнему API (single-flight).
+ * <p>
+ * Первый вызывающий с данным ключом запускает запрос, остальные, пришедшие до его завершения,
+ * получают тот же результат. Запрос отменяется, только если от него отписались все ожидающие.
+ * Завершенные запросы не кэшируются: после ответа следующий вызов снова идет во внешний API.
+ */
+@Slf4j
+public class RequestCoalescer<T> {
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaderCalls;
+    private final Counter coalescedCalls;
+
+    public RequestCoalescer(String name, MeterRegistry meterRegistry) {
+        this.leaderCalls = Counter.builder(name + ".coalescer.calls")
+                .description("Calls that started a new upstream request")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.coalescedCalls = Counter.builder(name + ".coalescer.calls")
+                .description("Calls that joined an identical in-flight upstream request")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder(name + ".coalescer.in.flight", inFlight, Map::size)
+                .description("Distinct upstream requests currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Нормализует текст запроса для ключа: регистр и пробелы не влияют на ответ модели.
+     */
+    public static String key(String model, String prompt) {
+        return model + '\n' + prompt.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Возвращает результат уже выполняющегося запроса с тем же ключом или запускает новый.
+     * Контекст Reactor первого вызывающего передается в запущенный запрос.
+     */
+    public Mono<T> coalesce(String key, Supplier<Mono<T>> upstream) {
+        return Mono.deferContextual(context -> {
+            InFlight created = new InFlight(key);
+            InFlight current = inFlight.compute(key, (k, existing) ->
+                    existing != null && existing.join() ? existing : created);
+
+            if (current != created) {
+                coalescedCalls.increment();
+                log.debug("Joined in-flight upstream request for key {}", key);
+                return current.result();
+            }
+
+            leaderCalls.increment();
+            Mono<T> result = created.result();
+            created.start(Mono.defer(upstream).contextWrite(context));
+            return result;
+        });
+    }
+
+    long inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Состояние одного запроса. Монитор объекта не удерживается при обращении к карте,
+     * иначе возможна взаимоблокировка с {@link Map#compute}, вызывающим {@link #join()}.
+     */
+    private final class InFlight {
+
+        private final String key;
+        private final Sinks.One<T> sink = Sinks.one();
+        private Disposable upstream;
+        // Создатель запроса учитывается сразу, чтобы запрос не закрылся до своего старта
+        private int subscribers = 1;
+        private boolean closed;
+        private boolean cancelled;
+
+        private InFlight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        Mono<T> result() {
+            return sink.asMono().doOnCancel(this::leave);
+        }
+
+        void start(Mono<T> request) {
+            Disposable subscription = request.subscribe(
+                    value -> {
+                        complete();
+                        sink.tryEmitValue(value);
+                    },
+                    error -> {
+                        complete();
+                        sink.tryEmitError(error);
+                    },
+                    () -> {
+                        complete();
+                        sink.tryEmitEmpty();
+                    });
+            boolean cancelledBeforeStart;
+            synchronized (this) {
+                upstream = subscription;
+                cancelledBeforeStart = cancelled;
+            }
+            if (cancelledBeforeStart) {
+                subscription.dispose();
+            }
+        }
+
+        private void complete() {
+            synchronized (this) {
+                closed = true;
+            }
+            inFlight.remove(key, this);
+        }
+
+        private void leave() {
+            Disposable toCancel;
+            synchronized (this) {
+                if (--subscribers > 0 || closed) {
+                    return;
+                }
+                closed = true;
+                cancelled = true;
+                toCancel = upstream;
+            }
+            inFlight.remove(key, this);
+            log.debug("All callers abandoned upstream request for key {}, cancelling", key);
+            if (toCancel != null) {
+                toCancel.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.cryptonews.mcpserver.client;
+
+import com.cryptonews.mcpserver.exception.PerplexityApiException;
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбирает ответ модели со списком новостей в формате JSON массива
+ * {@code [{"title", "summary", "source", "url", "published"}]} в {@link NewsItem}.
+ * <p>
+ * Ответ читается потоковым {@link JsonParser} по токенам, без построения дерева и промежуточных DTO;
+ * лишние поля пропускаются, разбор прекращается после {@code maxArticles} новостей.
+ */
+final class StructuredNewsParser {
+
+    // Размеры колонок NewsItem
+    private static final int MAX_TITLE_LENGTH = 500;
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+
+    private final JsonFactory jsonFactory;
+
+    StructuredNewsParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Возвращает новости без оценки настроения; {@code cryptocurrency} проставляется каждой новости.
+     *
+     * @throws PerplexityApiException если в ответе нет JSON массива или он поврежден
+     */
+    List<NewsItem> parse(String content, String cryptocurrency, int maxArticles) {
+        // Модель может обернуть массив в markdown блок или объект, а в тексте перед ним бывают ссылки вида [1]
+        int start = arrayStart(content);
+        if (start < 0) {
+            throw new PerplexityApiException("Answer from Perplexity does not contain a JSON array of articles");
+        }
+        StringReader reader = new StringReader(content);
+        List<NewsItem> articles = new ArrayList<>();
+        try {
+            reader.skip(start);
+            try (JsonParser parser = jsonFactory.createParser(reader)) {
+                parser.nextToken();
+                JsonToken token;
+                while (articles.size() < maxArticles && (token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new PerplexityApiException("Array of articles from Perplexity is truncated");
+                    }
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    NewsItem article = readArticle(parser, cryptocurrency);
+                    if (article != null) {
+                        articles.add(article);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new PerplexityApiException("Malformed array of articles from Perplexity", e);
+        }
+        return articles;
+    }
+
+    /**
+     * Начало массива новостей: первая {@code '['}, за которой после пробелов идет {@code '{'};
+     * если такой нет (например, массив пуст), первая {@code '['}.
+     */
+    private static int arrayStart(String content) {
+        for (int i = content.indexOf('['); i >= 0; i = content.indexOf('[', i + 1)) {
+            int next = i + 1;
+            while (next < content.length() && Character.isWhitespace(content.charAt(next))) {
+                next++;
+            }
+            if (next < content.length() && content.charAt(next) == '{') {
+                return i;
+            }
+        }
+        return content.indexOf('[');
+    }
+
+    private NewsItem readArticle(JsonParser parser, String cryptocurrency) throws IOException {
+        NewsItem article = new NewsItem();
+        article.setCryptocurrency(cryptocurrency);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "title" -> article.setTitle(truncate(parser.getText(), MAX_TITLE_LENGTH));
+                case "summary", "description" -> article.setDescription(truncate(parser.getText(), MAX_DESCRIPTION_LENGTH));
+                case "source" -> article.setSource(parser.getText());
+                case "url" -> article.setUrl(parser.getText());
+                case "published", "publishedDate", "date" -> article.setPublishedDate(parseDate(parser.getText()));
+                default -> {
+                    // Неизвестное поле пропускаем
+                }
+            }
+        }
+        if (article.getTitle() == null || article.getTitle().isBlank()) {
+            return null;
+        }
+        if (article.getDescription() == null) {
+            article.setDescription(article.getTitle());
+        }
+        if (article.getPublishedDate() == null) {
+            article.setPublishedDate(LocalDateTime.now());
+        }
+        return article;
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        try {
+            if (value.length() <= 10) {
+                return LocalDate.parse(value).atStartOfDay();
+            }
+            // Смещение часового пояса, если оно есть, отбрасывается
+            return DateTimeFormatter.ISO_DATE_TIME.parse(value, LocalDateTime::from);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength - 3) + "..." : value;
+    }
+}
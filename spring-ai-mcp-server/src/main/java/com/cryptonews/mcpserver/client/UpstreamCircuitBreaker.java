@@ -0,0 +1,208 @@
+package com.cryptonews.mcpserver.client;
+
+import com.cryptonews.mcpserver.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker для запросов к внешнему API.
+ * <p>
+ * В замкнутом состоянии учитывает исходы последних {@code windowSize} запросов. Когда доля сбоев
+ * (сетевые ошибки, таймауты, 429 и 5xx) достигает порога, размыкается на {@code openDuration}
+ * и сразу отклоняет запросы с {@link UpstreamUnavailableException}, не дожидаясь таймаутов.
+ * Затем пропускает {@code halfOpenCalls} пробных запросов: если все успешны, замыкается,
+ * при первом сбое снова размыкается.
+ */
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Counter successCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+
+    // Состояние ниже защищено монитором this
+    private final boolean[] outcomes;
+    private int nextOutcome;
+    private int recordedCalls;
+    private int recordedFailures;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    public UpstreamCircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                                  Duration openDuration, int halfOpenCalls, MeterRegistry meterRegistry) {
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1 || failureRateThreshold <= 0) {
+            throw new IllegalArgumentException("Circuit breaker settings must be positive");
+        }
+        this.name = name;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+
+        this.successCalls = callCounter(meterRegistry, "success");
+        this.failedCalls = callCounter(meterRegistry, "failure");
+        this.rejectedCalls = callCounter(meterRegistry, "rejected");
+        Gauge.builder(name + ".circuitbreaker.state", this, breaker -> breaker.state().ordinal())
+                .description("Circuit breaker state: 0 - closed, 1 - open, 2 - half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет запрос, если breaker его пропускает, и учитывает его исход.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(rejection());
+            }
+            return call.get()
+                    .doOnSuccess(value -> onSuccess())
+                    .doOnError(this::onError)
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    /**
+     * Потоковый вариант {@link #execute(Supplier)}: исход учитывается по завершении потока.
+     */
+    public <T> Flux<T> executeMany(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(rejection());
+            }
+            return call.get()
+                    .doOnComplete(this::onSuccess)
+                    .doOnError(this::onError)
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Сбои, которые говорят о недоступности внешнего API. Ошибки запроса (4xx, кроме 429)
+     * означают, что API отвечает, и не размыкают breaker.
+     */
+    static boolean isFailure(Throwable error) {
+        return PerplexityNewsClient.isTransient(error) || error instanceof TimeoutException;
+    }
+
+    private UpstreamUnavailableException rejection() {
+        rejectedCalls.increment();
+        return new UpstreamUnavailableException("Perplexity API is temporarily unavailable (circuit breaker is open)");
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    private void onSuccess() {
+        successCalls.increment();
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (++halfOpenSucceeded >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+    }
+
+    private void onError(Throwable error) {
+        if (!isFailure(error)) {
+            onSuccess();
+            return;
+        }
+        failedCalls.increment();
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recordedCalls >= minimumCalls && (double) recordedFailures / recordedCalls >= failureRateThreshold) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        }
+    }
+
+    private synchronized void onCancel() {
+        // Запрос мог начаться еще до перехода в HALF_OPEN, поэтому счетчик не уходит в минус
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                recordedFailures--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failure;
+        if (failure) {
+            recordedFailures++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Circuit breaker {} changed state {} -> {}", name, state, newState);
+        state = newState;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            recordedCalls = 0;
+            recordedFailures = 0;
+            nextOutcome = 0;
+        }
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(name + ".circuitbreaker.calls")
+                .description("Upstream calls by circuit breaker outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.cryptonews.mcpserver.client;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Ключи контекста Reactor, которые точки входа (MCP, SSE) передают в запросы к внешнему API:
+ * имя инструмента, идентификатор клиента и дедлайн вызова.
+ */
+public final class UpstreamContext {
+
+    public static final String TOOL_KEY = "upstream.tool";
+    public static final String CLIENT_KEY = "upstream.client";
+    public static final String DEADLINE_KEY = "upstream.deadline";
+
+    // Запросы без контекста: фоновые задачи и STDIO
+    static final String INTERNAL = "internal";
+
+    private UpstreamContext() {
+    }
+
+    public static Context of(String tool, String client) {
+        return Context.of(TOOL_KEY, tool != null ? tool : INTERNAL, CLIENT_KEY, client != null ? client : INTERNAL);
+    }
+
+    /**
+     * Контекст вызова, который должен завершиться к {@code deadline}.
+     */
+    public static Context of(String tool, String client, Instant deadline) {
+        return of(tool, client).put(DEADLINE_KEY, deadline);
+    }
+
+    public static String tool(ContextView context) {
+        return context.getOrDefault(TOOL_KEY, INTERNAL);
+    }
+
+    public static String client(ContextView context) {
+        return context.getOrDefault(CLIENT_KEY, INTERNAL);
+    }
+
+    public static Optional<Instant> deadline(ContextView context) {
+        return context.getOrEmpty(DEADLINE_KEY);
+    }
+
+    /**
+     * Ограничивает {@code call} дедлайном из контекста подписчика. По истечении дедлайна {@code call}
+     * отменяется и вместо него подписывается {@code onExpiry}; если дедлайн уже прошел, {@code call}
+     * не запускается вовсе. Без дедлайна в контексте {@code call} возвращается как есть.
+     */
+    public static <T> Mono<T> withinDeadline(Mono<T> call, Supplier<Mono<T>> onExpiry) {
+        return Mono.deferContextual(context -> deadline(context)
+                .map(deadline -> {
+                    Duration remaining = Duration.between(Instant.now(), deadline);
+                    return remaining.isNegative() || remaining.isZero()
+                            ? Mono.defer(onExpiry)
+                            : call.timeout(remaining, Mono.defer(onExpiry));
+                })
+                .orElse(call));
+    }
+
+    /**
+     * Потоковый вариант {@link #withinDeadline(Mono, Supplier)}: дедлайн ограничивает весь поток,
+     * а не ожидание отдельного фрагмента. Уже полученные фрагменты остаются у подписчика.
+     */
+    public static <T> Flux<T> withinDeadlineMany(Flux<T> call, Supplier<Flux<T>> onExpiry) {
+        return Flux.deferContextual(context -> deadline(context)
+                .map(deadline -> {
+                    if (!Instant.now().isBefore(deadline)) {
+                        return Flux.defer(onExpiry);
+                    }
+                    return call.timeout(untilDeadline(deadline), item -> untilDeadline(deadline), Flux.defer(onExpiry));
+                })
+                .orElse(call));
+    }
+
+    private static Mono<Long> untilDeadline(Instant deadline) {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return Mono.delay(remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+}
@@ -0,0 +1,53 @@
+package com.cryptonews.mcpserver.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Хранит длительность последних успешных запросов к внешнему API и считает по ним перцентиль
+ * для задержки hedged запросов. Перцентиль пересчитывается не чаще, чем раз в
+ * {@link #RECOMPUTE_EVERY} новых замеров.
+ */
+public class UpstreamLatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final int minSamples;
+    private final double percentile;
+    private int next;
+    private int count;
+    private int sinceRecompute = RECOMPUTE_EVERY;
+    private long cachedNanos = -1;
+
+    public UpstreamLatencyTracker(int windowSize, int minSamples, double percentile) {
+        this.samples = new long[windowSize];
+        this.minSamples = Math.min(minSamples, windowSize);
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceRecompute++;
+    }
+
+    /**
+     * Возвращает перцентиль длительности или {@code null}, пока замеров недостаточно.
+     */
+    public synchronized Duration percentile() {
+        if (count < minSamples) {
+            return null;
+        }
+        if (sinceRecompute >= RECOMPUTE_EVERY) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            cachedNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            sinceRecompute = 0;
+        }
+        return Duration.ofNanos(cachedNanos);
+    }
+}
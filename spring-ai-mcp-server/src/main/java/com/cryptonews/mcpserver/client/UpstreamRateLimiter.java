@@ -0,0 +1,240 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Ограничивает частоту и число одновременных запросов к внешнему API.
+ * <p>
+ * Частота задается token bucket ({@code permitsPerSecond} с запасом {@code burst}),
+ * параллелизм - числом выданных и еще не возвращенных разрешений. Запросы, которым не хватило
+ * разрешения, не отклоняются, а ждут в очереди. Очереди ведутся отдельно для каждой пары
+ * инструмент/клиент (см. {@link UpstreamContext}) и обслуживаются по кругу, поэтому один
+ * активный клиент или инструмент не вытесняет остальных.
+ */
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final int maxConcurrent;
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler scheduler = Schedulers.parallel();
+    private final Map<String, Timer> queueTimers = new ConcurrentHashMap<>();
+
+    // Состояние ниже защищено монитором this
+    private final Map<String, ArrayDeque<Waiter>> queues = new HashMap<>();
+    private final ArrayDeque<String> rotation = new ArrayDeque<>();
+    private double tokens;
+    private long lastRefillNanos;
+    private int active;
+    private int queued;
+    private boolean refillScheduled;
+
+    public UpstreamRateLimiter(String name, double permitsPerSecond, int burst, int maxConcurrent,
+                               MeterRegistry meterRegistry) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxConcurrent < 1) {
+            throw new IllegalArgumentException("Rate limit settings must be positive");
+        }
+        this.name = name;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxConcurrent = maxConcurrent;
+        this.meterRegistry = meterRegistry;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+
+        Gauge.builder(name + ".ratelimiter.queued", this, UpstreamRateLimiter::queuedCount)
+                .description("Upstream requests waiting for a permit")
+                .register(meterRegistry);
+        Gauge.builder(name + ".ratelimiter.active", this, UpstreamRateLimiter::activeCount)
+                .description("Upstream requests currently holding a permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет запрос после получения разрешения и возвращает разрешение по его завершении
+     * или отмене. Каждая подписка (в том числе повтор через {@code retry}) получает новое разрешение.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return Mono.deferContextual(context -> Mono.usingWhen(
+                acquire(UpstreamContext.tool(context), UpstreamContext.client(context)),
+                permit -> call.get(),
+                Permit::releaseAsync,
+                (permit, error) -> permit.releaseAsync(),
+                Permit::releaseAsync));
+    }
+
+    /**
+     * Потоковый вариант {@link #execute(Supplier)}: разрешение удерживается до конца потока.
+     */
+    public <T> Flux<T> executeMany(Supplier<Flux<T>> call) {
+        return Flux.deferContextual(context -> Flux.usingWhen(
+                acquire(UpstreamContext.tool(context), UpstreamContext.client(context)),
+                permit -> call.get(),
+                Permit::releaseAsync,
+                (permit, error) -> permit.releaseAsync(),
+                Permit::releaseAsync));
+    }
+
+    synchronized int queuedCount() {
+        return queued;
+    }
+
+    synchronized int activeCount() {
+        return active;
+    }
+
+    private Mono<Permit> acquire(String tool, String client) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(tool, tool + '/' + client, sink);
+            sink.onCancel(() -> cancel(waiter));
+            synchronized (this) {
+                ArrayDeque<Waiter> queue = queues.get(waiter.flow);
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    queues.put(waiter.flow, queue);
+                    rotation.add(waiter.flow);
+                }
+                queue.add(waiter);
+                queued++;
+            }
+            drain();
+        });
+    }
+
+    /**
+     * Выдает разрешения ожидающим, пока есть токены и свободные слоты. Если очередь не пуста,
+     * а токены кончились, планирует повторную попытку к моменту появления следующего токена.
+     */
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        long refillDelayNanos = -1;
+        synchronized (this) {
+            refill();
+            while (active < maxConcurrent && tokens >= 1 && !rotation.isEmpty()) {
+                String flow = rotation.poll();
+                ArrayDeque<Waiter> queue = queues.get(flow);
+                Waiter waiter = queue.poll();
+                if (queue.isEmpty()) {
+                    queues.remove(flow);
+                } else {
+                    rotation.add(flow);
+                }
+                queued--;
+                tokens -= 1;
+                active++;
+                waiter.permit = new Permit();
+                granted.add(waiter);
+            }
+            if (!rotation.isEmpty() && active < maxConcurrent && tokens < 1 && !refillScheduled) {
+                refillScheduled = true;
+                refillDelayNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+            }
+        }
+
+        if (refillDelayNanos >= 0) {
+            scheduler.schedule(() -> {
+                synchronized (this) {
+                    refillScheduled = false;
+                }
+                drain();
+            }, refillDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        for (Waiter waiter : granted) {
+            long waitedNanos = System.nanoTime() - waiter.enqueuedNanos;
+            queueTimer(waiter.tool).record(waitedNanos, TimeUnit.NANOSECONDS);
+            if (waitedNanos > TimeUnit.SECONDS.toNanos(1)) {
+                log.debug("Upstream request for {} waited {} ms for a permit", waiter.flow,
+                        TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+            }
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            permit = waiter.permit;
+            if (permit == null) {
+                ArrayDeque<Waiter> queue = queues.get(waiter.flow);
+                if (queue != null && queue.remove(waiter)) {
+                    queued--;
+                    if (queue.isEmpty()) {
+                        queues.remove(waiter.flow);
+                        rotation.remove(waiter.flow);
+                    }
+                }
+            }
+        }
+        // Разрешение выдано, но подписчик ушел раньше, чем получил его
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    private Timer queueTimer(String tool) {
+        return queueTimers.computeIfAbsent(tool, t -> Timer.builder(name + ".ratelimiter.queue.time")
+                .description("Time upstream requests spent waiting for a permit")
+                .tag("tool", t)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static final class Waiter {
+
+        private final String tool;
+        private final String flow;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedNanos = System.nanoTime();
+        private Permit permit;
+
+        private Waiter(String tool, String flow, MonoSink<Permit> sink) {
+            this.tool = tool;
+            this.flow = flow;
+            this.sink = sink;
+        }
+    }
+
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                synchronized (UpstreamRateLimiter.this) {
+                    active--;
+                }
+                drain();
+            }
+        }
+
+        Mono<Void> releaseAsync() {
+            return Mono.fromRunnable(this::release);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.cryptonews.mcpserver.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Сводка по одной криптовалюте из пакетного ответа Perplexity: краткий обзор рынка и новости.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CoinNewsDigest(String summary, List<String> news) {
+}
@@ -1,10 +1,17 @@
 package com.cryptonews.mcpserver.client.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record PerplexitySearchResponse(List<Choice> choices) {
+public record PerplexitySearchResponse(List<Choice> choices, Usage usage) {
+
+    public PerplexitySearchResponse(List<Choice> choices) {
+        this(choices, null);
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record Choice(Message message) {
     }
@@ -12,4 +19,13 @@ public record PerplexitySearchResponse(List<Choice> choices) {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record Message(String role, String content) {
     }
-} 
\ No newline at end of file
+
+    /**
+     * Расход токенов на запрос (блок {@code usage} ответа).
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(@JsonProperty("prompt_tokens") Integer promptTokens,
+                        @JsonProperty("completion_tokens") Integer completionTokens,
+                        @JsonProperty("total_tokens") Integer totalTokens) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.cryptonews.mcpserver.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Фрагмент потокового ответа {@code /chat/completions} (поле {@code data} SSE события).
+ * Блок {@code usage}, если он есть, содержит расход токенов на весь ответ к этому моменту.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PerplexityStreamChunk(List<Choice> choices, PerplexitySearchResponse.Usage usage) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(Delta delta, @JsonProperty("finish_reason") String finishReason) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Delta(String role, String content) {
+    }
+}
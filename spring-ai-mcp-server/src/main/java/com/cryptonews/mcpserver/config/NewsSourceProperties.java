@@ -0,0 +1,55 @@
+package com.cryptonews.mcpserver.config;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источники новостей ({@code news.sources}): какие включены и сколько ждать каждый из них.
+ * Источник, не ответивший за свой {@code timeout}, пропускается, остальные результаты используются.
+ */
+@Component
+@ConfigurationProperties(prefix = "news.sources")
+@Data
+public class NewsSourceProperties {
+
+    private final Source perplexity = new Source(true, Duration.ofSeconds(20));
+    private final File file = new File();
+    private final Source stub = new Source(false, Duration.ofSeconds(2));
+
+    @Data
+    public static class Source {
+        private boolean enabled;
+        private Duration timeout;
+
+        public Source() {
+        }
+
+        Source(boolean enabled, Duration timeout) {
+            this.enabled = enabled;
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Выгрузки RSS/Atom лент: один файл или каталог с файлами {@code *.xml}, {@code *.rss}, {@code *.atom}.
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class File extends Source {
+        private Path path = Path.of("data/news-feeds");
+        // Названия криптовалют, по которым новость из ленты относится к тикеру, например BTC: bitcoin
+        private Map<String, List<String>> aliases = new HashMap<>();
+
+        public File() {
+            super(false, Duration.ofSeconds(2));
+        }
+    }
+}
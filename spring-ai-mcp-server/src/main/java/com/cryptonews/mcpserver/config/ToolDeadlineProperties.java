@@ -0,0 +1,50 @@
+package com.cryptonews.mcpserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Дедлайны вызовов инструментов ({@code mcp.deadline}). Клиент может задать свой дедлайн
+ * параметром {@code _meta.timeoutMs} запроса {@code tools/call} или {@code timeoutMs} SSE запроса,
+ * но не больше {@link #max}.
+ * <p>
+ * Тайм-аут асинхронных HTTP запросов выводится из {@link #max}: иначе контейнер обрывает ответ
+ * через свои 30 секунд, раньше, чем истекает дедлайн и инструмент отвечает сохраненными данными.
+ */
+@Component
+@ConfigurationProperties(prefix = "mcp.deadline")
+@Data
+public class ToolDeadlineProperties {
+
+    private Duration defaultDeadline = Duration.ofSeconds(30);
+
+    private Duration max = Duration.ofMinutes(2);
+
+    // Запас сверх max на ответ сохраненными данными после истечения дедлайна
+    private Duration responseMargin = Duration.ofSeconds(15);
+
+    // Дедлайны отдельных инструментов по имени, перекрывают defaultDeadline
+    private Map<String, Duration> tools = new HashMap<>();
+
+    /**
+     * Дедлайн вызова: запрошенный клиентом, если он задан, иначе дедлайн инструмента.
+     */
+    public Duration forCall(String tool, Long requestedMillis) {
+        Duration deadline = requestedMillis != null && requestedMillis > 0
+                ? Duration.ofMillis(requestedMillis)
+                : tools.getOrDefault(tool, defaultDeadline);
+        return deadline.compareTo(max) > 0 ? max : deadline;
+    }
+
+    /**
+     * Тайм-аут асинхронного HTTP запроса ({@code Mono}/{@code Flux} контроллеров): больше любого дедлайна вызова.
+     */
+    public Duration asyncRequestTimeout() {
+        return max.plus(responseMargin);
+    }
+}
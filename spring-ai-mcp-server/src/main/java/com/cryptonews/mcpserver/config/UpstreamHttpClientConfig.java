@@ -0,0 +1,94 @@
+package com.cryptonews.mcpserver.config;
+
+import com.cryptonews.mcpserver.client.PromptResponseStore;
+import com.cryptonews.mcpserver.client.UpstreamCircuitBreaker;
+import com.cryptonews.mcpserver.client.UpstreamRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.function.Function;
+
+/**
+ * HTTP клиент, ограничитель частоты и circuit breaker для запросов к Perplexity.
+ * <p>
+ * Один пул соединений на все запросы: соединения и TLS сессии переиспользуются между вызовами,
+ * а число одновременных соединений ограничено настройками {@link UpstreamHttpClientProperties}.
+ * Метрики пула публикуются reactor-netty как {@code reactor.netty.connection.provider.*}
+ * (активные, простаивающие соединения и ожидающие получения соединения).
+ */
+@Configuration
+@Slf4j
+public class UpstreamHttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider perplexityConnectionProvider(UpstreamHttpClientProperties properties) {
+        UpstreamHttpClientProperties.Pool pool = properties.getPool();
+        return ConnectionProvider.builder("perplexity")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(properties.isMetricsEnabled())
+                .build();
+    }
+
+    @Bean
+    public UpstreamRateLimiter perplexityRateLimiter(UpstreamHttpClientProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        UpstreamHttpClientProperties.RateLimit rateLimit = properties.getRateLimit();
+        return new UpstreamRateLimiter("perplexity", rateLimit.getRequestsPerSecond(),
+                rateLimit.getBurst(), rateLimit.getMaxConcurrent(), meterRegistry);
+    }
+
+    @Bean
+    public UpstreamCircuitBreaker perplexityCircuitBreaker(UpstreamHttpClientProperties properties,
+                                                           MeterRegistry meterRegistry) {
+        UpstreamHttpClientProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        return new UpstreamCircuitBreaker("perplexity", circuitBreaker.getWindowSize(),
+                circuitBreaker.getMinimumCalls(), circuitBreaker.getFailureRateThreshold(),
+                circuitBreaker.getOpenDuration(), circuitBreaker.getHalfOpenCalls(), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PromptResponseStore perplexityPromptStore(UpstreamHttpClientProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        UpstreamHttpClientProperties.PromptStore promptStore = properties.getPromptStore();
+        return PromptResponseStore.open(promptStore.getMode(), promptStore.getPath(), promptStore.getTtl(),
+                promptStore.getMaxFileSize(), meterRegistry);
+    }
+
+    @Bean
+    public WebClient perplexityWebClient(WebClient.Builder webClientBuilder,
+                                         ConnectionProvider perplexityConnectionProvider,
+                                         UpstreamHttpClientProperties properties,
+                                         @Value("${perplexity.api.url}") String perplexityApiUrl) {
+        HttpClient httpClient = HttpClient.create(perplexityConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .responseTimeout(properties.getResponseTimeout())
+                .metrics(properties.isMetricsEnabled(), Function.identity());
+
+        if (properties.isHttp2Enabled() && perplexityApiUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        log.info("Perplexity HTTP client: maxConnections={}, protocols={}",
+                properties.getPool().getMaxConnections(), httpClient.configuration().protocols());
+
+        return webClientBuilder.clone()
+                .baseUrl(perplexityApiUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.cryptonews.mcpserver.config;
+
+import com.cryptonews.mcpserver.client.PromptResponseStore;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки HTTP клиента для внешних API (пул соединений reactor-netty, таймауты, HTTP/2)
+ * и ограничения частоты запросов к ним.
+ */
+@Component
+@ConfigurationProperties(prefix = "upstream.http")
+@Data
+public class UpstreamHttpClientProperties {
+
+    private final Pool pool = new Pool();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Retry retry = new Retry();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Hedging hedging = new Hedging();
+    private final PromptStore promptStore = new PromptStore();
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Максимальная пауза между чтениями ответа; для потоковых ответов не ограничивает общее время
+    private Duration responseTimeout = Duration.ofSeconds(60);
+    private boolean keepAlive = true;
+    // HTTP/2 согласуется через ALPN, поэтому включается только для https
+    private boolean http2Enabled = true;
+    private boolean metricsEnabled = true;
+
+    @Data
+    public static class Pool {
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictionInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class RateLimit {
+        private double requestsPerSecond = 5;
+        private int burst = 10;
+        // Не больше размера пула соединений, иначе лишние запросы будут ждать соединение в пуле
+        private int maxConcurrent = 20;
+    }
+
+    @Data
+    public static class Retry {
+        private int maxAttempts = 3;
+        private Duration minBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        // Доля случайного разброса задержки, чтобы повторы разных запросов не совпадали по времени
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        // Второй запрос отправляется, если первый не ответил за это время (p95 последних запросов)
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(500);
+        private int windowSize = 200;
+        private int minSamples = 50;
+    }
+
+    @Data
+    public static class PromptStore {
+        private PromptResponseStore.Mode mode = PromptResponseStore.Mode.OFF;
+        private Path path = Path.of("data", "perplexity-prompts.log");
+        private Duration ttl = Duration.ofHours(6);
+        private long maxFileSize = 256L * 1024 * 1024;
+    }
+}
@@ -1,12 +1,19 @@
 package com.cryptonews.mcpserver.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ToolDeadlineProperties deadlines;
+
+    public WebConfig(ToolDeadlineProperties deadlines) {
+        this.deadlines = deadlines;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -14,4 +21,10 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*");
     }
-} 
\ No newline at end of file
+
+    // Вызовы инструментов и SSE потоки - асинхронные запросы; без явного тайм-аута Tomcat обрывает их через 30 секунд
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(deadlines.asyncRequestTimeout().toMillis());
+    }
+}
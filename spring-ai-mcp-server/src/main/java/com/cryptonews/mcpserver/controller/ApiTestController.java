@@ -1,6 +1,7 @@
 package com.cryptonews.mcpserver.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +19,8 @@ import java.util.Map;
 @Slf4j
 public class ApiTestController {
 
+    private final WebClient webClient;
+
     @Value("${perplexity.api.key}")
     private String apiKey;
 
@@ -27,6 +30,10 @@ public class ApiTestController {
     @Value("${perplexity.api.model}")
     private String model;
 
+    public ApiTestController(@Qualifier("perplexityWebClient") WebClient webClient) {
+        this.webClient = webClient;
+    }
+
     @GetMapping("/perplexity-auth")
     public ResponseEntity<?> testPerplexityAuth() {
         log.info("Testing Perplexity API authentication");
@@ -34,10 +41,6 @@ public class ApiTestController {
         log.info("API URL: {}", apiUrl);
         log.info("Model: {}", model);
 
-        WebClient webClient = WebClient.builder()
-                .baseUrl(apiUrl)
-                .build();
-
         try {
             // Simple test request
             Map<String, Object> request = Map.of(
@@ -1,38 +1,65 @@
 package com.cryptonews.mcpserver.controller;
 
+import com.cryptonews.mcpserver.client.UpstreamContext;
+import com.cryptonews.mcpserver.config.ToolDeadlineProperties;
+import com.cryptonews.mcpserver.service.ProgressNotifications;
 import com.cryptonews.mcpserver.tools.CryptoNewsTools;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/mcp")
 @Slf4j
 public class McpController {
 
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    // Инструменты, которые умеют отдавать ответ по частям через notifications/progress
+    private static final Set<String> STREAMING_TOOLS = Set.of("getTrendForecast", "compareCryptocurrencies");
+
     private final CryptoNewsTools cryptoNewsTools;
+    private final ProgressNotifications progressNotifications;
+    private final ToolDeadlineProperties deadlines;
     private final ObjectMapper objectMapper;
 
     @Autowired
-    public McpController(CryptoNewsTools cryptoNewsTools) {
+    public McpController(CryptoNewsTools cryptoNewsTools, ProgressNotifications progressNotifications,
+                         ToolDeadlineProperties deadlines) {
         this.cryptoNewsTools = cryptoNewsTools;
+        this.progressNotifications = progressNotifications;
+        this.deadlines = deadlines;
         this.objectMapper = new ObjectMapper();
     }
 
+    /**
+     * Обрабатывает JSON-RPC запрос. Вызовы инструментов выполняются асинхронно,
+     * поэтому поток сервлета не удерживается на время запроса к Perplexity.
+     */
     @PostMapping(value = "", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<JsonNode> handleMcpRequest(@RequestBody JsonNode request) {
+    public Mono<ResponseEntity<JsonNode>> handleMcpRequest(@RequestBody JsonNode request,
+                                                           HttpServletRequest httpRequest) {
         try {
             log.info("Received MCP request: {}", request);
             
@@ -44,37 +71,62 @@ public class McpController {
             response.put("jsonrpc", "2.0");
             response.put("id", id);
 
+            Mono<JsonNode> result;
             switch (method) {
                 case "initialize":
-                    response.set("result", handleInitialize(params));
+                    result = Mono.just(handleInitialize(params));
                     break;
                 case "tools/list":
-                    response.set("result", handleToolsList());
+                    result = Mono.just(handleToolsList());
                     break;
                 case "tools/call":
-                    response.set("result", handleToolCall(params));
+                    result = handleToolCall(params, clientId(httpRequest));
                     break;
                 default:
                     ObjectNode error = objectMapper.createObjectNode();
                     error.put("code", -32601);
                     error.put("message", "Method not found: " + method);
                     response.set("error", error);
+                    log.info("Sending MCP response: {}", response);
+                    return Mono.just(ResponseEntity.ok(response));
             }
 
-            log.info("Sending MCP response: {}", response);
-            return ResponseEntity.ok(response);
+            return result
+                    .map(payload -> {
+                        response.set("result", payload);
+                        log.info("Sending MCP response: {}", response);
+                        return ResponseEntity.<JsonNode>ok(response);
+                    })
+                    .onErrorResume(e -> Mono.just(internalError(e)));
         } catch (Exception e) {
-            log.error("Error handling MCP request", e);
-            ObjectNode errorResponse = objectMapper.createObjectNode();
-            errorResponse.put("jsonrpc", "2.0");
-            ObjectNode error = objectMapper.createObjectNode();
-            error.put("code", -32603);
-            error.put("message", "Internal error: " + e.getMessage());
-            errorResponse.set("error", error);
-            return ResponseEntity.ok(errorResponse);
+            return Mono.just(internalError(e));
         }
     }
 
+    /**
+     * Поток {@code notifications/progress} вызовов этого клиента с токеном {@code progressToken}.
+     * Клиент подписывается до вызова {@code tools/call}; уведомления других клиентов сюда не попадают.
+     * <p>
+     * Spring MVC не ограничивает потоковые SSE ответы тайм-аутом асинхронного запроса, поэтому поток
+     * закрывается сам не позже самого долгого вызова - даже если вызова с этим токеном так и не было.
+     */
+    @GetMapping(value = "/progress/{progressToken}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> progress(@PathVariable String progressToken, HttpServletRequest httpRequest) {
+        return progressNotifications.subscribe(clientId(httpRequest), progressToken)
+                .take(deadlines.asyncRequestTimeout());
+    }
+
+    private ResponseEntity<JsonNode> internalError(Throwable e) {
+        log.error("Error handling MCP request", e);
+        ObjectNode errorResponse = objectMapper.createObjectNode();
+        errorResponse.put("jsonrpc", "2.0");
+        ObjectNode error = objectMapper.createObjectNode();
+        error.put("code", -32603);
+        error.put("message", "Internal error: " + e.getMessage());
+        errorResponse.set("error", error);
+        return ResponseEntity.ok(errorResponse);
+    }
+
     private JsonNode handleInitialize(JsonNode params) {
         ObjectNode result = objectMapper.createObjectNode();
         result.put("protocolVersion", "2024-11-05");
@@ -144,26 +196,81 @@ public class McpController {
         return result;
     }
 
-    private JsonNode handleToolCall(JsonNode params) throws Exception {
+    /**
+     * Идентификатор клиента для справедливой очереди запросов к Perplexity:
+     * заголовок {@code X-Client-Id}, если клиент его передал, иначе адрес клиента.
+     */
+    static String clientId(HttpServletRequest httpRequest) {
+        String clientId = httpRequest.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : httpRequest.getRemoteAddr();
+    }
+
+    private Mono<JsonNode> handleToolCall(JsonNode params, String clientId) {
         String toolName = params.get("name").asText();
         JsonNode arguments = params.has("arguments") ? params.get("arguments") : objectMapper.createObjectNode();
         
-        log.info("Calling tool: {} with arguments: {}", toolName, arguments);
+        JsonNode progressToken = params.path("_meta").get("progressToken");
+        JsonNode timeoutMs = params.path("_meta").get("timeoutMs");
+        Duration deadline = deadlines.forCall(toolName, timeoutMs != null && timeoutMs.canConvertToLong() ? timeoutMs.asLong() : null);
+        
+        log.info("Calling tool: {} with arguments: {} (deadline {})", toolName, arguments, deadline);
         
-        String result = callTool(toolName, arguments);
+        Mono<String> call = progressToken != null && STREAMING_TOOLS.contains(toolName)
+                ? callToolWithProgress(toolName, arguments, progressToken, clientId)
+                : callTool(toolName, arguments);
         
-        ObjectNode response = objectMapper.createObjectNode();
-        ArrayNode content = objectMapper.createArrayNode();
-        ObjectNode textContent = objectMapper.createObjectNode();
-        textContent.put("type", "text");
-        textContent.put("text", result);
-        content.add(textContent);
-        response.set("content", content);
+        return call.<JsonNode>map(result -> {
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode content = objectMapper.createArrayNode();
+            ObjectNode textContent = objectMapper.createObjectNode();
+            textContent.put("type", "text");
+            textContent.put("text", result);
+            content.add(textContent);
+            response.set("content", content);
+            
+            return response;
+            // Дедлайн доходит через контекст до запроса к Perplexity и отменяет его по истечении
+        }).contextWrite(UpstreamContext.of(toolName, clientId, Instant.now().plus(deadline)));
+    }
+
+    /**
+     * Вызывает потоковый вариант инструмента: каждый фрагмент ответа публикуется как
+     * {@code notifications/progress} в поток {@code /mcp/progress/{progressToken}} этого клиента,
+     * а итоговый текст возвращается целиком.
+     */
+    private Mono<String> callToolWithProgress(String toolName, JsonNode arguments, JsonNode progressToken,
+                                              String clientId) {
+        Flux<String> deltas;
+        if ("getTrendForecast".equals(toolName)) {
+            String cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
+            deltas = cryptoNewsTools.streamTrendForecast(cryptocurrency);
+        } else {
+            String cryptocurrencies = arguments.has("cryptocurrencies") ? arguments.get("cryptocurrencies").asText() : "BTC,ETH";
+            deltas = cryptoNewsTools.streamComparison(cryptocurrencies);
+        }
         
-        return response;
+        String token = progressToken.asText();
+        AtomicLong receivedChars = new AtomicLong();
+        return deltas
+                .doOnNext(delta -> progressNotifications.publish(clientId, token,
+                        progressNotification(progressToken, receivedChars.addAndGet(delta.length()), delta)))
+                .collect(Collectors.joining())
+                .doFinally(signal -> progressNotifications.complete(clientId, token));
     }
 
-    private String callTool(String toolName, JsonNode arguments) throws Exception {
+    private JsonNode progressNotification(JsonNode progressToken, long progress, String delta) {
+        ObjectNode notification = objectMapper.createObjectNode();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "notifications/progress");
+        ObjectNode params = objectMapper.createObjectNode();
+        params.set("progressToken", progressToken);
+        params.put("progress", progress);
+        params.put("message", delta);
+        notification.set("params", params);
+        return notification;
+    }
+
+    private Mono<String> callTool(String toolName, JsonNode arguments) {
         // Map tool calls to methods
         Map<String, String> toolMethodMap = new HashMap<>();
         toolMethodMap.put("getLatestCryptoNews", "getLatestCryptoNews");
@@ -176,10 +283,11 @@ public class McpController {
         toolMethodMap.put("searchCryptoNews", "searchCryptoNews");
         toolMethodMap.put("getMarketMovingEvents", "getMarketMovingEvents");
         toolMethodMap.put("analyzeSentimentPriceCorrelation", "analyzeSentimentPriceCorrelation");
+        toolMethodMap.put("getTrendingTopics", "getTrendingTopics");
 
         String methodName = toolMethodMap.get(toolName);
         if (methodName == null) {
-            return "{\"error\": \"Unknown tool: " + toolName + "\"}";
+            return Mono.just("{\"error\": \"Unknown tool: " + toolName + "\"}");
         }
 
         // Call the appropriate method based on tool name
@@ -187,51 +295,55 @@ public class McpController {
             case "getLatestCryptoNews":
                 String cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 Integer maxArticles = arguments.has("maxArticles") ? arguments.get("maxArticles").asInt() : 10;
-                return cryptoNewsTools.getLatestCryptoNews(cryptocurrency, maxArticles);
+                return cryptoNewsTools.getLatestCryptoNewsAsync(cryptocurrency, maxArticles);
                 
             case "analyzeCryptocurrency":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 String timeRange = arguments.has("timeRange") ? arguments.get("timeRange").asText() : "24 hours";
-                return cryptoNewsTools.analyzeCryptocurrency(cryptocurrency, timeRange);
+                return cryptoNewsTools.analyzeCryptocurrencyAsync(cryptocurrency, timeRange);
                 
             case "getMarketSentiment":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 timeRange = arguments.has("timeRange") ? arguments.get("timeRange").asText() : "24 hours";
-                return cryptoNewsTools.getMarketSentiment(cryptocurrency, timeRange);
+                return cryptoNewsTools.getMarketSentimentAsync(cryptocurrency, timeRange);
                 
             case "compareCryptocurrencies":
                 String cryptocurrencies = arguments.has("cryptocurrencies") ? arguments.get("cryptocurrencies").asText() : "BTC,ETH";
-                return cryptoNewsTools.compareCryptocurrencies(cryptocurrencies);
+                return cryptoNewsTools.compareCryptocurrenciesAsync(cryptocurrencies);
                 
             case "getPositiveNews":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 Integer limit = arguments.has("limit") ? arguments.get("limit").asInt() : 10;
-                return cryptoNewsTools.getPositiveNews(cryptocurrency, limit);
+                return cryptoNewsTools.getPositiveNewsAsync(cryptocurrency, limit);
                 
             case "getNegativeNews":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 limit = arguments.has("limit") ? arguments.get("limit").asInt() : 10;
-                return cryptoNewsTools.getNegativeNews(cryptocurrency, limit);
+                return cryptoNewsTools.getNegativeNewsAsync(cryptocurrency, limit);
                 
             case "getTrendForecast":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
-                return cryptoNewsTools.getTrendForecast(cryptocurrency);
+                return cryptoNewsTools.getTrendForecastAsync(cryptocurrency);
                 
             case "searchCryptoNews":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
                 String keywords = arguments.has("keywords") ? arguments.get("keywords").asText() : "";
-                return cryptoNewsTools.searchCryptoNews(cryptocurrency, keywords);
+                return cryptoNewsTools.searchCryptoNewsAsync(cryptocurrency, keywords);
                 
             case "getMarketMovingEvents":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
-                return cryptoNewsTools.getMarketMovingEvents(cryptocurrency);
+                return cryptoNewsTools.getMarketMovingEventsAsync(cryptocurrency);
                 
             case "analyzeSentimentPriceCorrelation":
                 cryptocurrency = arguments.has("cryptocurrency") ? arguments.get("cryptocurrency").asText() : "BTC";
-                return cryptoNewsTools.analyzeSentimentPriceCorrelation(cryptocurrency);
+                return cryptoNewsTools.analyzeSentimentPriceCorrelationAsync(cryptocurrency);
+                
+            case "getTrendingTopics":
+                limit = arguments.has("limit") ? arguments.get("limit").asInt() : 10;
+                return cryptoNewsTools.getTrendingTopicsAsync(limit);
                 
             default:
-                return "{\"error\": \"Unknown tool: " + toolName + "\"}";
+                return Mono.just("{\"error\": \"Unknown tool: " + toolName + "\"}");
         }
     }
 } 
\ No newline at end of file
@@ -60,7 +60,8 @@ public class TestController {
                 {"name": "getTrendForecast", "description": "Trend forecast"},
                 {"name": "searchCryptoNews", "description": "Search news by keywords"},
                 {"name": "getMarketMovingEvents", "description": "Market moving events"},
-                {"name": "analyzeSentimentPriceCorrelation", "description": "Sentiment-price correlation"}
+                {"name": "analyzeSentimentPriceCorrelation", "description": "Sentiment-price correlation"},
+                {"name": "getTrendingTopics", "description": "Trending topics across cryptocurrencies"}
               ]
             }
             """;
@@ -0,0 +1,64 @@
+package com.cryptonews.mcpserver.controller;
+
+import com.cryptonews.mcpserver.client.UpstreamContext;
+import com.cryptonews.mcpserver.config.ToolDeadlineProperties;
+import com.cryptonews.mcpserver.tools.CryptoNewsTools;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+import java.time.Instant;
+
+/**
+ * Потоковая выдача длинных инструментов через SSE.
+ * Каждый фрагмент ответа модели отправляется событием {@code delta}, в конце приходит событие {@code done}.
+ */
+@RestController
+@RequestMapping("/sse/tools")
+@Slf4j
+public class ToolStreamController {
+
+    private final CryptoNewsTools cryptoNewsTools;
+    private final ToolDeadlineProperties deadlines;
+
+    public ToolStreamController(CryptoNewsTools cryptoNewsTools, ToolDeadlineProperties deadlines) {
+        this.cryptoNewsTools = cryptoNewsTools;
+        this.deadlines = deadlines;
+    }
+
+    @GetMapping(value = "/getTrendForecast", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamTrendForecast(@RequestParam String cryptocurrency,
+                                                             @RequestParam(required = false) Long timeoutMs,
+                                                             HttpServletRequest httpRequest) {
+        log.info("Streaming getTrendForecast for {}", cryptocurrency);
+        return toEvents(cryptoNewsTools.streamTrendForecast(cryptocurrency))
+                .contextWrite(context("getTrendForecast", timeoutMs, httpRequest));
+    }
+
+    @GetMapping(value = "/compareCryptocurrencies", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamComparison(@RequestParam String cryptocurrencies,
+                                                          @RequestParam(required = false) Long timeoutMs,
+                                                          HttpServletRequest httpRequest) {
+        log.info("Streaming compareCryptocurrencies for {}", cryptocurrencies);
+        return toEvents(cryptoNewsTools.streamComparison(cryptocurrencies))
+                .contextWrite(context("compareCryptocurrencies", timeoutMs, httpRequest));
+    }
+
+    private Context context(String tool, Long timeoutMs, HttpServletRequest httpRequest) {
+        return UpstreamContext.of(tool, McpController.clientId(httpRequest),
+                Instant.now().plus(deadlines.forCall(tool, timeoutMs)));
+    }
+
+    private Flux<ServerSentEvent<String>> toEvents(Flux<String> deltas) {
+        return deltas
+                .map(delta -> ServerSentEvent.<String>builder().event("delta").data(delta).build())
+                .concatWithValues(ServerSentEvent.<String>builder().event("done").data("").build());
+    }
+}
@@ -0,0 +1,14 @@
+package com.cryptonews.mcpserver.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Дедлайн вызова инструмента истек раньше, чем пришел ответ Perplexity; запрос к API отменен.
+ */
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends UpstreamUnavailableException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
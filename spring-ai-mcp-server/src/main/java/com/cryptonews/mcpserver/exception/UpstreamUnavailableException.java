@@ -0,0 +1,14 @@
+package com.cryptonews.mcpserver.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Запрос к Perplexity не отправлялся: circuit breaker разомкнут после серии сбоев.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UpstreamUnavailableException extends PerplexityApiException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
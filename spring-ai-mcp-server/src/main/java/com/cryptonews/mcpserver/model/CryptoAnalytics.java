@@ -14,7 +14,11 @@ public class CryptoAnalytics {
     int totalArticles;
     Map<String, Integer> sentimentCounts;
     double averageSentiment;
+    double sentimentDeviation;
     double sentimentTrend;
+    double sentimentMomentum;
+    double sentimentSlope;
+    List<Double> sentimentDeltas;
     List<String> keyTopics;
     List<NewsItem> topPositiveNews;
     List<NewsItem> topNegativeNews;
@@ -1,5 +1,7 @@
 package com.cryptonews.mcpserver.model;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,11 +19,21 @@ public interface NewsItemRepository extends JpaRepository<NewsItem, Long> {
 
     List<NewsItem> findByCryptocurrencyIgnoreCase(String cryptocurrency);
 
+    Page<NewsItem> findByPublishedDateGreaterThanEqual(LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT n FROM NewsItem n WHERE LOWER(n.cryptocurrency) = LOWER(:cryptocurrency) AND n.publishedDate BETWEEN :start AND :end AND n.sentimentScore.compoundScore >= 0.05 ORDER BY n.sentimentScore.compoundScore DESC")
+    List<NewsItem> findMostPositiveNews(@Param("cryptocurrency") String cryptocurrency, @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end, Pageable pageable);
+
+    @Query("SELECT n FROM NewsItem n WHERE LOWER(n.cryptocurrency) = LOWER(:cryptocurrency) AND n.publishedDate BETWEEN :start AND :end AND n.sentimentScore.compoundScore <= -0.05 ORDER BY n.sentimentScore.compoundScore ASC")
+    List<NewsItem> findMostNegativeNews(@Param("cryptocurrency") String cryptocurrency, @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end, Pageable pageable);
+
     @Query("SELECT n FROM NewsItem n WHERE n.cryptocurrency = :cryptocurrency AND n.sentimentScore.compoundScore >= 0.05 ORDER BY n.publishedDate DESC")
-    List<NewsItem> findPositiveNewsByCryptocurrency(@Param("cryptocurrency") String cryptocurrency);
+    List<NewsItem> findPositiveNewsByCryptocurrency(@Param("cryptocurrency") String cryptocurrency, Pageable pageable);
 
     @Query("SELECT n FROM NewsItem n WHERE n.cryptocurrency = :cryptocurrency AND n.sentimentScore.compoundScore <= -0.05 ORDER BY n.publishedDate DESC")
-    List<NewsItem> findNegativeNewsByCryptocurrency(@Param("cryptocurrency") String cryptocurrency);
+    List<NewsItem> findNegativeNewsByCryptocurrency(@Param("cryptocurrency") String cryptocurrency, Pageable pageable);
 
     @Query("SELECT n FROM NewsItem n WHERE n.cryptocurrency = :cryptocurrency AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(n.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     List<NewsItem> searchByKeyword(@Param("cryptocurrency") String cryptocurrency, @Param("keyword") String keyword);
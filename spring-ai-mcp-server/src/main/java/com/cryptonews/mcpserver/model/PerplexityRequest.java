@@ -27,4 +27,9 @@ public record PerplexityRequest(
         this(model, messages, "web", "medium", 0.2, 0.9, false, false, 0, false, 0.0, 0.0, 
              Map.of("search_context_size", "low"));
     }
+
+    public PerplexityRequest withStream(boolean stream) {
+        return new PerplexityRequest(model, messages, searchMode, reasoningEffort, temperature, topP, returnImages,
+                returnRelatedQuestions, topK, stream, presencePenalty, frequencyPenalty, webSearchOptions);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.cryptonews.mcpserver.model;
+
+import lombok.Value;
+import java.util.List;
+
+/**
+ * Тема, которую чаще всего упоминают в новостях последнего времени.
+ * {@code score} - число упоминаний с затуханием: упоминание теряет половину веса за период полураспада.
+ */
+@Value
+public class TrendingTopic {
+
+    String topic;
+    double score;
+    List<String> cryptocurrencies;
+}
@@ -0,0 +1,86 @@
+package com.cryptonews.mcpserver.service;
+
+/**
+ * 128-битный хэш содержимого строки: MurmurHash3 x64 128 над символами строки в UTF-16LE.
+ * Ключ {@link SentimentCache}: в отличие от {@link String#hashCode()}, случайное совпадение
+ * хэшей разных текстов практически исключено.
+ */
+record ContentHash(long high, long low) {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    static ContentHash of(String text) {
+        int length = text.length();
+        long h1 = 0;
+        long h2 = 0;
+
+        // Блок - 16 байт, то есть 8 символов
+        int blocks = length >>> 3;
+        for (int block = 0; block < blocks; block++) {
+            int i = block << 3;
+            long k1 = chars(text, i, 4);
+            long k2 = chars(text, i + 4, 4);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks << 3;
+        int remaining = length - tail;
+        if (remaining > 4) {
+            h2 ^= mixK2(chars(text, tail + 4, remaining - 4));
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(chars(text, tail, Math.min(remaining, 4)));
+        }
+
+        long bytes = 2L * length;
+        h1 ^= bytes;
+        h2 ^= bytes;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new ContentHash(h1, h2);
+    }
+
+    // До четырех символов в long, младший символ в младших битах
+    private static long chars(String text, int from, int count) {
+        long value = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            value = (value << 16) | text.charAt(from + i);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -1,33 +1,60 @@
 package com.cryptonews.mcpserver.service;
 
 import com.cryptonews.mcpserver.client.PerplexityNewsClient;
+import com.cryptonews.mcpserver.client.dto.CoinNewsDigest;
 import com.cryptonews.mcpserver.model.CryptoAnalytics;
 import com.cryptonews.mcpserver.model.NewsItem;
 import com.cryptonews.mcpserver.model.NewsItemRepository;
 import com.cryptonews.mcpserver.model.SentimentScore;
+import com.cryptonews.mcpserver.model.TrendingTopic;
+import com.cryptonews.mcpserver.source.NewsSourceAggregator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Основной сервис для аналитики криптовалютных новостей.
  */
 @Service
-@Transactional
 @Slf4j
 public class NewsAnalyticsService {
 
+    private static final String SENTIMENT_UNAVAILABLE = "Unable to retrieve market sentiment analysis at this time.";
+    private static final String FORECAST_UNAVAILABLE = "Unable to retrieve trend forecast at this time.";
+    private static final String EVENTS_UNAVAILABLE = "Unable to retrieve market moving events at this time.";
+    private static final int TOP_NEWS = 3;
+    private static final int KEY_TOPICS = 10;
+    private static final int AGGREGATES_REBUILD_PAGE = 500;
+
     private final PerplexityNewsClient perplexityClient;
+    private final NewsSourceAggregator newsSources;
     private final SentimentAnalyzer sentimentAnalyzer;
     private final NewsItemRepository newsRepository;
+    private final SentimentAggregates sentimentAggregates;
+    private final TrendingTopics trendingTopics;
+    private final NewsIngestListener newsIngestListener;
+    private final CacheManager cacheManager;
 
     @Value("${news.analytics.max-articles-per-request:20}")
     private int maxArticlesPerRequest;
@@ -35,13 +62,62 @@ public class NewsAnalyticsService {
     @Value("${news.analytics.default-time-range-hours:24}")
     private int defaultTimeRangeHours;
 
+    @Value("${news.analytics.upstream-deadline:30s}")
+    private Duration upstreamDeadline;
+
+    @Value("${news.analytics.batch-size:10}")
+    private int batchSize = 10;
+
+    @Value("${news.analytics.batch-articles-per-coin:5}")
+    private int batchArticlesPerCoin = 5;
+
     @Autowired
     public NewsAnalyticsService(PerplexityNewsClient perplexityClient,
+                               NewsSourceAggregator newsSources,
                                SentimentAnalyzer sentimentAnalyzer,
-                               NewsItemRepository newsRepository) {
+                               NewsItemRepository newsRepository,
+                               SentimentAggregates sentimentAggregates,
+                               TrendingTopics trendingTopics,
+                               NewsIngestListener newsIngestListener,
+                               CacheManager cacheManager) {
         this.perplexityClient = perplexityClient;
+        this.newsSources = newsSources;
         this.sentimentAnalyzer = sentimentAnalyzer;
         this.newsRepository = newsRepository;
+        this.sentimentAggregates = sentimentAggregates;
+        this.trendingTopics = trendingTopics;
+        this.newsIngestListener = newsIngestListener;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Учитывает в агрегатах и темах новости, которые уже лежат в базе, например после перезапуска
+     * с внешней базой. Читаются только новости за окно агрегатов, в фоне: старт приложения не ждет
+     * разбора и не зависит от объема истории. Заголовки, уже учтенные в окне, пропускаются.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSentimentAggregates() {
+        LocalDateTime since = LocalDateTime.now().minus(sentimentAggregates.window());
+        Mono.fromCallable(() -> rebuildSentimentAggregates(since))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(recorded -> log.info("Rebuilt sentiment aggregates from {} stored news items since {}", recorded, since),
+                        e -> log.error("Failed to rebuild sentiment aggregates", e));
+    }
+
+    int rebuildSentimentAggregates(LocalDateTime since) {
+        int recorded = 0;
+        Page<NewsItem> page;
+        Pageable pageable = PageRequest.of(0, AGGREGATES_REBUILD_PAGE, Sort.by("id"));
+        do {
+            page = newsRepository.findByPublishedDateGreaterThanEqual(since, pageable);
+            for (NewsItem newsItem : page) {
+                if (newsIngestListener.record(newsItem)) {
+                    recorded++;
+                }
+            }
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        return recorded;
     }
 
     /**
@@ -49,35 +125,94 @@ public class NewsAnalyticsService {
      */
     @Cacheable(value = "news-cache", key = "#cryptocurrency.toLowerCase() + '-' + #maxArticles")
     public List<NewsItem> getLatestCryptoNews(String cryptocurrency, Integer maxArticles) {
+        return getLatestCryptoNewsAsync(cryptocurrency, maxArticles).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getLatestCryptoNews(String, Integer)}.
+     * Разделяет кэш {@code news-cache} с блокирующим вариантом.
+     */
+    @Cacheable(value = "news-cache", key = "#cryptocurrency.toLowerCase() + '-' + #maxArticles")
+    public Mono<List<NewsItem>> getLatestCryptoNewsAsync(String cryptocurrency, Integer maxArticles) {
         log.info("Fetching latest news for cryptocurrency: {}", cryptocurrency);
         
         int articlesToFetch = maxArticles != null ? maxArticles : maxArticlesPerRequest;
         
-        try {
-            // Получаем новости из Perplexity
-            List<String> newsTexts = perplexityClient.getCryptoNews(cryptocurrency, articlesToFetch);
-            
-            List<NewsItem> newsItems = new ArrayList<>();
-            for (String newsText : newsTexts) {
-                NewsItem newsItem = createNewsItem(newsText, cryptocurrency);
-                newsItems.add(newsItem);
-                
-                // Сохраняем в базе данных
-                try {
-                    newsRepository.save(newsItem);
-                } catch (Exception e) {
-                    log.warn("Failed to save news item to database", e);
-                }
+        // Получаем новости из всех включенных источников
+        return newsSources.latestNews(cryptocurrency, articlesToFetch)
+                // Анализ настроения и сохранение в базе блокирующие, уводим их с потоков HTTP клиента
+                .publishOn(Schedulers.boundedElastic())
+                .map(articles -> {
+                    List<NewsItem> newsItems = completeNewsItems(articles);
+                    // Сохраняем в базе данных
+                    saveNews(newsItems);
+                    
+                    log.info("Retrieved {} news items for {}", newsItems.size(), cryptocurrency);
+                    return newsItems;
+                })
+                .onErrorResume(e -> {
+                    log.error("Error fetching latest crypto news for {}", cryptocurrency, e);
+                    // Fallback к сохраненным новостям
+                    return fromDatabase(() -> newsRepository.findTop10ByCryptocurrencyIgnoreCaseOrderByPublishedDateDesc(cryptocurrency));
+                });
+    }
+
+    /**
+     * Получает последние новости сразу по нескольким криптовалютам.
+     * Криптовалюты запрашиваются пачками по {@code batch-size}, один запрос к Perplexity на пачку.
+     * Новости каждой криптовалюты сохраняются в базе и попадают в {@code news-cache} под тем же ключом,
+     * что и у {@link #getLatestCryptoNews(String, Integer)}.
+     */
+    public Map<String, List<NewsItem>> getLatestCryptoNewsBatch(List<String> cryptocurrencies, Integer maxArticles) {
+        return getLatestCryptoNewsBatchAsync(cryptocurrencies, maxArticles).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getLatestCryptoNewsBatch(List, Integer)}.
+     * Криптовалюты, новости которых уже есть в {@code news-cache}, к Perplexity не запрашиваются;
+     * криптовалюты, которых нет в пакетном ответе, запрашиваются по отдельности.
+     */
+    public Mono<Map<String, List<NewsItem>>> getLatestCryptoNewsBatchAsync(List<String> cryptocurrencies, Integer maxArticles) {
+        List<String> coins = cryptocurrencies.stream().distinct().collect(Collectors.toList());
+        int articlesPerCoin = maxArticles != null ? maxArticles : batchArticlesPerCoin;
+        
+        Map<String, List<NewsItem>> cached = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String coin : coins) {
+            List<NewsItem> news = cachedNews(coin, articlesPerCoin);
+            if (news != null) {
+                cached.put(coin, news);
+            } else {
+                misses.add(coin);
             }
-            
-            log.info("Retrieved {} news items for {}", newsItems.size(), cryptocurrency);
-            return newsItems;
-            
-        } catch (Exception e) {
-            log.error("Error fetching latest crypto news for {}", cryptocurrency, e);
-            // Fallback к сохраненным новостям
-            return newsRepository.findTop10ByCryptocurrencyIgnoreCaseOrderByPublishedDateDesc(cryptocurrency);
         }
+        log.info("Fetching batched news for {} of {} cryptocurrencies in batches of {}", misses.size(), coins.size(), batchSize);
+        
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < misses.size(); i += batchSize) {
+            batches.add(misses.subList(i, Math.min(misses.size(), i + batchSize)));
+        }
+        
+        return Flux.fromIterable(batches)
+                .flatMap(batch -> perplexityClient.getNewsDigestsAsync(batch, articlesPerCoin)
+                        .onErrorResume(e -> {
+                            log.warn("Batched news request failed for {}, fetching one by one", batch, e);
+                            return Mono.just(Collections.emptyMap());
+                        })
+                        .flatMapMany(digests -> Flux.fromIterable(batch)
+                                .flatMap(coin -> (digests.containsKey(coin)
+                                        ? fromDatabase(() -> storeDigestNews(coin, digests.get(coin), articlesPerCoin))
+                                        // Вызов внутри сервиса минует @Cacheable, поэтому кладем в кэш сами
+                                        : getLatestCryptoNewsAsync(coin, articlesPerCoin)
+                                                .doOnNext(items -> cacheNews(coin, articlesPerCoin, items)))
+                                        .map(items -> Map.entry(coin, items)))))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(byCoin -> {
+                    Map<String, List<NewsItem>> ordered = new LinkedHashMap<>();
+                    coins.forEach(coin -> ordered.put(coin,
+                            cached.getOrDefault(coin, byCoin.getOrDefault(coin, Collections.emptyList()))));
+                    return ordered;
+                });
     }
 
     /**
@@ -85,253 +220,484 @@ public class NewsAnalyticsService {
      */
     @Cacheable(value = "analytics-cache", key = "#cryptocurrency.toLowerCase() + '-' + #timeRange")
     public CryptoAnalytics analyzeCryptocurrency(String cryptocurrency, String timeRange) {
+        return analyzeCryptocurrencyAsync(cryptocurrency, timeRange).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #analyzeCryptocurrency(String, String)}.
+     */
+    @Cacheable(value = "analytics-cache", key = "#cryptocurrency.toLowerCase() + '-' + #timeRange")
+    public Mono<CryptoAnalytics> analyzeCryptocurrencyAsync(String cryptocurrency, String timeRange) {
         log.info("Performing comprehensive analysis for cryptocurrency: {} over {}", cryptocurrency, timeRange);
         
-        try {
-            // Получаем свежие новости
-            List<NewsItem> newsItems = getLatestCryptoNews(cryptocurrency, maxArticlesPerRequest);
-            
-            // Получаем исторические данные из базы
-            LocalDateTime startTime = calculateStartTime(timeRange);
-            List<NewsItem> historicalNews = newsRepository.findByCryptocurrencyIgnoreCaseAndPublishedDateBetween(
-                    cryptocurrency, startTime, LocalDateTime.now());
-            
-            // Объединяем новости
-            Set<NewsItem> allNews = new HashSet<>(newsItems);
-            allNews.addAll(historicalNews);
-            List<NewsItem> combinedNews = new ArrayList<>(allNews);
-            
-            // Анализируем настроения
-            Map<SentimentScore.SentimentLabel, List<NewsItem>> sentimentGroups = combinedNews.stream()
-                    .collect(Collectors.groupingBy(news -> 
-                            news.getSentimentScore() != null ? news.getSentimentScore().getLabel() : SentimentScore.SentimentLabel.NEUTRAL));
-            
-            // Вычисляем статистики
-            int totalArticles = combinedNews.size();
-            int positiveCount = sentimentGroups.getOrDefault(SentimentScore.SentimentLabel.POSITIVE, Collections.emptyList()).size();
-            int negativeCount = sentimentGroups.getOrDefault(SentimentScore.SentimentLabel.NEGATIVE, Collections.emptyList()).size();
-            int neutralCount = sentimentGroups.getOrDefault(SentimentScore.SentimentLabel.NEUTRAL, Collections.emptyList()).size();
-            
-            double averageSentiment = combinedNews.stream()
-                    .filter(news -> news.getSentimentScore() != null)
-                    .mapToDouble(news -> news.getSentimentScore().getCompoundScore())
-                    .average()
-                    .orElse(0.0);
-            
-            // Получаем дополнительную аналитику от Perplexity
-            String marketSentimentAnalysis = perplexityClient.analyzeMarketSentiment(cryptocurrency, timeRange);
-            String trendForecast = perplexityClient.getTrendForecast(cryptocurrency);
-            String marketMovingEvents = perplexityClient.getMarketMovingEvents(cryptocurrency);
-            
-            // Извлекаем ключевые темы
-            List<String> keyTopics = extractKeyTopics(combinedNews);
-            
-            // Получаем топ новости
-            List<NewsItem> topPositive = sentimentGroups.getOrDefault(SentimentScore.SentimentLabel.POSITIVE, Collections.emptyList())
-                    .stream()
-                    .sorted((a, b) -> Double.compare(
-                            b.getSentimentScore() != null ? b.getSentimentScore().getCompoundScore() : 0,
-                            a.getSentimentScore() != null ? a.getSentimentScore().getCompoundScore() : 0))
-                    .limit(3)
-                    .collect(Collectors.toList());
-            
-            List<NewsItem> topNegative = sentimentGroups.getOrDefault(SentimentScore.SentimentLabel.NEGATIVE, Collections.emptyList())
-                    .stream()
-                    .sorted((a, b) -> Double.compare(
-                            a.getSentimentScore() != null ? a.getSentimentScore().getCompoundScore() : 0,
-                            b.getSentimentScore() != null ? b.getSentimentScore().getCompoundScore() : 0))
-                    .limit(3)
-                    .collect(Collectors.toList());
-            
-            // Вычисляем тренд настроения
-            double sentimentTrend = calculateSentimentTrend(combinedNews);
-            
-            // Создаем результат
-            return CryptoAnalytics.builder()
-                    .cryptocurrency(cryptocurrency)
-                    .timeRange(timeRange)
-                    .totalArticles(totalArticles)
-                    .sentimentCounts(positiveCount, negativeCount, neutralCount)
-                    .averageSentiment(averageSentiment)
-                    .sentimentTrend(sentimentTrend)
-                    .keyTopics(keyTopics)
-                    .topPositiveNews(topPositive)
-                    .topNegativeNews(topNegative)
-                    .marketMovingEvents(marketMovingEvents)
-                    .trendForecast(trendForecast)
-                    .build();
-                    
-        } catch (Exception e) {
-            log.error("Error performing cryptocurrency analysis for {}", cryptocurrency, e);
-            // Возвращаем базовую аналитику
-            return createBasicAnalytics(cryptocurrency, timeRange);
-        }
+        // Свежие новости сохраняются в базе и попадают в агрегаты до того, как аналитика их прочитает.
+        // Запросы к Perplexity независимы от новостей, поэтому выполняются параллельно с ними
+        return Mono.zip(getLatestCryptoNewsAsync(cryptocurrency, maxArticlesPerRequest), fetchMarketInsights(cryptocurrency, timeRange))
+                .flatMap(results -> fromDatabase(() -> buildAnalytics(cryptocurrency, timeRange, results.getT2())))
+                .onErrorResume(e -> {
+                    log.error("Error performing cryptocurrency analysis for {}", cryptocurrency, e);
+                    // Возвращаем базовую аналитику
+                    return Mono.just(createBasicAnalytics(cryptocurrency, timeRange));
+                });
+    }
+
+    /**
+     * Новости из базы без обращения к Perplexity: ответ инструмента, когда дедлайн вызова истек.
+     */
+    public Mono<List<NewsItem>> getStoredNewsAsync(String cryptocurrency, Integer maxArticles) {
+        int limit = maxArticles != null ? maxArticles : maxArticlesPerRequest;
+        return fromDatabase(() -> newsRepository.findTop10ByCryptocurrencyIgnoreCaseOrderByPublishedDateDesc(cryptocurrency))
+                .<List<NewsItem>>map(news -> news.stream().limit(limit).collect(Collectors.toList()))
+                .onErrorReturn(Collections.emptyList());
+    }
+
+    /**
+     * Аналитика только по новостям из базы, без обращения к Perplexity: ответ инструмента,
+     * когда дедлайн вызова истек.
+     */
+    public Mono<CryptoAnalytics> analyzeStoredNewsAsync(String cryptocurrency, String timeRange) {
+        return fromDatabase(() -> buildAnalytics(cryptocurrency, timeRange, new MarketInsights(
+                        SENTIMENT_UNAVAILABLE, FORECAST_UNAVAILABLE, EVENTS_UNAVAILABLE)))
+                .onErrorResume(e -> {
+                    log.error("Error analyzing stored news for {}", cryptocurrency, e);
+                    return Mono.just(createBasicAnalytics(cryptocurrency, timeRange));
+                });
     }
 
     /**
      * Получает настроение рынка за период.
      */
     public String getMarketSentiment(String cryptocurrency, String timeRange) {
+        return getMarketSentimentAsync(cryptocurrency, timeRange).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getMarketSentiment(String, String)}.
+     */
+    public Mono<String> getMarketSentimentAsync(String cryptocurrency, String timeRange) {
         log.info("Getting market sentiment for {} over {}", cryptocurrency, timeRange);
         
-        try {
-            return perplexityClient.analyzeMarketSentiment(cryptocurrency, timeRange);
-        } catch (Exception e) {
-            log.error("Error getting market sentiment for {}", cryptocurrency, e);
-            return "Unable to retrieve market sentiment analysis at this time.";
-        }
+        return perplexityClient.analyzeMarketSentimentAsync(cryptocurrency, timeRange)
+                .onErrorResume(e -> {
+                    log.error("Error getting market sentiment for {}", cryptocurrency, e);
+                    return Mono.just(SENTIMENT_UNAVAILABLE);
+                });
     }
 
     /**
      * Сравнивает криптовалюты.
      */
     public String compareCryptocurrencies(List<String> cryptocurrencies) {
+        return compareCryptocurrenciesAsync(cryptocurrencies).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #compareCryptocurrencies(List)}.
+     */
+    public Mono<String> compareCryptocurrenciesAsync(List<String> cryptocurrencies) {
         log.info("Comparing cryptocurrencies: {}", cryptocurrencies);
         
         if (cryptocurrencies == null || cryptocurrencies.isEmpty()) {
-            return "No cryptocurrencies provided for comparison.";
+            return Mono.just("No cryptocurrencies provided for comparison.");
         }
         
-        try {
-            return perplexityClient.compareCryptocurrencies(cryptocurrencies);
-        } catch (Exception e) {
-            log.error("Error comparing cryptocurrencies: {}", cryptocurrencies, e);
-            return "Unable to perform cryptocurrency comparison at this time.";
+        // Структурированный ответ по каждой криптовалюте заодно заполняет кэш новостей
+        return perplexityClient.getNewsDigestsAsync(cryptocurrencies, batchArticlesPerCoin)
+                .filter(digests -> !digests.isEmpty())
+                .publishOn(Schedulers.boundedElastic())
+                .map(digests -> {
+                    digests.forEach((coin, digest) -> storeDigestNews(coin, digest, batchArticlesPerCoin));
+                    return formatComparison(cryptocurrencies, digests);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Batched comparison failed for {}, using free-form comparison", cryptocurrencies, e);
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> perplexityClient.compareCryptocurrenciesAsync(cryptocurrencies)))
+                .onErrorResume(e -> {
+                    log.error("Error comparing cryptocurrencies: {}", cryptocurrencies, e);
+                    return Mono.just("Unable to perform cryptocurrency comparison at this time.");
+                });
+    }
+
+    /**
+     * Потоковый вариант {@link #compareCryptocurrencies(List)}: фрагменты ответа приходят по мере генерации.
+     */
+    public Flux<String> streamComparison(List<String> cryptocurrencies) {
+        log.info("Streaming comparison of cryptocurrencies: {}", cryptocurrencies);
+        
+        if (cryptocurrencies == null || cryptocurrencies.isEmpty()) {
+            return Flux.just("No cryptocurrencies provided for comparison.");
         }
+        
+        return perplexityClient.streamComparison(cryptocurrencies)
+                .onErrorResume(e -> {
+                    log.error("Error streaming comparison of cryptocurrencies: {}", cryptocurrencies, e);
+                    return Flux.just("Unable to perform cryptocurrency comparison at this time.");
+                });
     }
 
     /**
      * Получает позитивные новости.
      */
     public List<NewsItem> getPositiveNews(String cryptocurrency, Integer limit) {
+        return getPositiveNewsAsync(cryptocurrency, limit).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getPositiveNews(String, Integer)}.
+     */
+    public Mono<List<NewsItem>> getPositiveNewsAsync(String cryptocurrency, Integer limit) {
         log.info("Getting positive news for {} (limit: {})", cryptocurrency, limit);
         
-        int newsLimit = limit != null ? limit : 10;
-        
-        try {
-            // Используем готовый метод из репозитория
-            List<NewsItem> positiveNews = newsRepository.findPositiveNewsByCryptocurrency(cryptocurrency);
-            
-            // Если недостаточно новостей, получаем новые
-            if (positiveNews.size() < newsLimit) {
-                List<NewsItem> freshNews = getLatestCryptoNews(cryptocurrency, maxArticlesPerRequest);
-                freshNews.stream()
-                        .filter(news -> news.getSentimentScore() != null && 
-                                news.getSentimentScore().getLabel() == SentimentScore.SentimentLabel.POSITIVE)
-                        .forEach(positiveNews::add);
-            }
-            
-            return positiveNews.stream().limit(newsLimit).collect(Collectors.toList());
-            
-        } catch (Exception e) {
-            log.error("Error getting positive news for {}", cryptocurrency, e);
-            return Collections.emptyList();
-        }
+        // Используем готовый метод из репозитория
+        return getNewsBySentiment(cryptocurrency, limit, SentimentScore.SentimentLabel.POSITIVE,
+                page -> newsRepository.findPositiveNewsByCryptocurrency(cryptocurrency, page))
+                .onErrorResume(e -> {
+                    log.error("Error getting positive news for {}", cryptocurrency, e);
+                    return Mono.just(Collections.emptyList());
+                });
     }
 
     /**
      * Получает негативные новости.
      */
     public List<NewsItem> getNegativeNews(String cryptocurrency, Integer limit) {
+        return getNegativeNewsAsync(cryptocurrency, limit).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getNegativeNews(String, Integer)}.
+     */
+    public Mono<List<NewsItem>> getNegativeNewsAsync(String cryptocurrency, Integer limit) {
         log.info("Getting negative news for {} (limit: {})", cryptocurrency, limit);
         
-        int newsLimit = limit != null ? limit : 10;
-        
-        try {
-            // Используем готовый метод из репозитория
-            List<NewsItem> negativeNews = newsRepository.findNegativeNewsByCryptocurrency(cryptocurrency);
-            
-            // Если недостаточно новостей, получаем новые
-            if (negativeNews.size() < newsLimit) {
-                List<NewsItem> freshNews = getLatestCryptoNews(cryptocurrency, maxArticlesPerRequest);
-                freshNews.stream()
-                        .filter(news -> news.getSentimentScore() != null && 
-                                news.getSentimentScore().getLabel() == SentimentScore.SentimentLabel.NEGATIVE)
-                        .forEach(negativeNews::add);
-            }
-            
-            return negativeNews.stream().limit(newsLimit).collect(Collectors.toList());
-            
-        } catch (Exception e) {
-            log.error("Error getting negative news for {}", cryptocurrency, e);
-            return Collections.emptyList();
-        }
+        // Используем готовый метод из репозитория
+        return getNewsBySentiment(cryptocurrency, limit, SentimentScore.SentimentLabel.NEGATIVE,
+                page -> newsRepository.findNegativeNewsByCryptocurrency(cryptocurrency, page))
+                .onErrorResume(e -> {
+                    log.error("Error getting negative news for {}", cryptocurrency, e);
+                    return Mono.just(Collections.emptyList());
+                });
     }
 
     /**
      * Получает прогноз трендов.
      */
     public String getTrendForecast(String cryptocurrency) {
+        return getTrendForecastAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getTrendForecast(String)}.
+     */
+    public Mono<String> getTrendForecastAsync(String cryptocurrency) {
         log.info("Getting trend forecast for {}", cryptocurrency);
         
-        try {
-            return perplexityClient.getTrendForecast(cryptocurrency);
-        } catch (Exception e) {
-            log.error("Error getting trend forecast for {}", cryptocurrency, e);
-            return "Unable to retrieve trend forecast at this time.";
-        }
+        return perplexityClient.getTrendForecastAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error getting trend forecast for {}", cryptocurrency, e);
+                    return Mono.just(FORECAST_UNAVAILABLE);
+                });
+    }
+
+    /**
+     * Потоковый вариант {@link #getTrendForecast(String)}: фрагменты прогноза приходят по мере генерации.
+     */
+    public Flux<String> streamTrendForecast(String cryptocurrency) {
+        log.info("Streaming trend forecast for {}", cryptocurrency);
+        
+        return perplexityClient.streamTrendForecast(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error streaming trend forecast for {}", cryptocurrency, e);
+                    return Flux.just(FORECAST_UNAVAILABLE);
+                });
     }
 
     /**
      * Ищет новости по ключевым словам.
      */
     public List<NewsItem> searchCryptoNews(String cryptocurrency, String keywords) {
+        return searchCryptoNewsAsync(cryptocurrency, keywords).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #searchCryptoNews(String, String)}.
+     */
+    public Mono<List<NewsItem>> searchCryptoNewsAsync(String cryptocurrency, String keywords) {
         log.info("Searching crypto news for {} with keywords: {}", cryptocurrency, keywords);
         
-        try {
-            // Получаем свежие новости через поиск
-            List<String> searchResults = perplexityClient.searchCryptoNews(cryptocurrency, keywords);
-            
-            List<NewsItem> newsItems = new ArrayList<>();
-            for (String newsText : searchResults) {
-                NewsItem newsItem = createNewsItem(newsText, cryptocurrency);
-                newsItems.add(newsItem);
-            }
-            
-            // Также ищем в существующих новостях
-            List<NewsItem> matchingNews = newsRepository.searchByKeyword(cryptocurrency, keywords);
-            
-            // Объединяем результаты
-            Set<NewsItem> allResults = new HashSet<>(newsItems);
-            allResults.addAll(matchingNews);
-            
-            return new ArrayList<>(allResults);
-            
-        } catch (Exception e) {
-            log.error("Error searching crypto news for {} with keywords: {}", cryptocurrency, keywords, e);
-            return Collections.emptyList();
-        }
+        // Получаем свежие новости через поиск
+        return perplexityClient.searchCryptoNewsAsync(cryptocurrency, keywords)
+                .publishOn(Schedulers.boundedElastic())
+                .<List<NewsItem>>map(searchResults -> {
+                    List<NewsItem> newsItems = completeNewsItems(searchResults);
+                    
+                    // Также ищем в существующих новостях
+                    List<NewsItem> matchingNews = newsRepository.searchByKeyword(cryptocurrency, keywords);
+                    
+                    // Объединяем результаты
+                    Set<NewsItem> allResults = new HashSet<>(newsItems);
+                    allResults.addAll(matchingNews);
+                    
+                    return new ArrayList<>(allResults);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error searching crypto news for {} with keywords: {}", cryptocurrency, keywords, e);
+                    // Fallback к сохраненным новостям
+                    return fromDatabase(() -> newsRepository.searchByKeyword(cryptocurrency, keywords))
+                            .onErrorReturn(Collections.emptyList());
+                });
     }
 
     /**
      * Получает события, влияющие на рынок.
      */
     public String getMarketMovingEvents(String cryptocurrency) {
+        return getMarketMovingEventsAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getMarketMovingEvents(String)}.
+     */
+    public Mono<String> getMarketMovingEventsAsync(String cryptocurrency) {
         log.info("Getting market moving events for {}", cryptocurrency);
         
-        try {
-            return perplexityClient.getMarketMovingEvents(cryptocurrency);
-        } catch (Exception e) {
-            log.error("Error getting market moving events for {}", cryptocurrency, e);
-            return "Unable to retrieve market moving events at this time.";
-        }
+        return perplexityClient.getMarketMovingEventsAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error getting market moving events for {}", cryptocurrency, e);
+                    return Mono.just(EVENTS_UNAVAILABLE);
+                });
     }
 
     /**
      * Анализирует корреляцию настроения и цены.
      */
     public String analyzeSentimentPriceCorrelation(String cryptocurrency) {
+        return analyzeSentimentPriceCorrelationAsync(cryptocurrency).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #analyzeSentimentPriceCorrelation(String)}.
+     */
+    public Mono<String> analyzeSentimentPriceCorrelationAsync(String cryptocurrency) {
         log.info("Analyzing sentiment-price correlation for {}", cryptocurrency);
         
+        return perplexityClient.analyzeSentimentPriceCorrelationAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error analyzing sentiment-price correlation for {}", cryptocurrency, e);
+                    return Mono.just("Unable to perform sentiment-price correlation analysis at this time.");
+                });
+    }
+
+    /**
+     * Самые упоминаемые в последнее время темы по всем криптовалютам.
+     */
+    public List<TrendingTopic> getTrendingTopics(Integer limit) {
+        return getTrendingTopicsAsync(limit).block();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getTrendingTopics(Integer)}. Темы читаются из памяти, без базы и Perplexity.
+     */
+    public Mono<List<TrendingTopic>> getTrendingTopicsAsync(Integer limit) {
+        int topicsLimit = limit != null && limit > 0 ? limit : 10;
+        log.info("Getting {} trending topics", topicsLimit);
+        return Mono.fromSupplier(() -> trendingTopics.trending(topicsLimit));
+    }
+
+    // Приватные вспомогательные методы
+
+    /**
+     * Выполняет блокирующее обращение к базе данных на отдельном пуле потоков.
+     */
+    private <T> Mono<T> fromDatabase(Callable<T> query) {
+        return Mono.fromCallable(query).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Сохраняет новости одного запроса одной транзакцией: вставки уходят JDBC-пакетами
+     * ({@code hibernate.jdbc.batch_size}), идентификаторы выдаются блоками последовательности.
+     * Ошибка сохранения не мешает вернуть новости.
+     */
+    private void saveNews(List<NewsItem> newsItems) {
+        if (newsItems.isEmpty()) {
+            return;
+        }
         try {
-            return perplexityClient.analyzeSentimentPriceCorrelation(cryptocurrency);
+            newsRepository.saveAll(newsItems);
         } catch (Exception e) {
-            log.error("Error analyzing sentiment-price correlation for {}", cryptocurrency, e);
-            return "Unable to perform sentiment-price correlation analysis at this time.";
+            log.warn("Failed to save {} news items to database", newsItems.size(), e);
         }
     }
 
-    // Приватные вспомогательные методы
+    /**
+     * Превращает новости из пакетного ответа в {@link NewsItem}, сохраняет их и кладет в {@code news-cache}.
+     */
+    private List<NewsItem> storeDigestNews(String cryptocurrency, CoinNewsDigest digest, int maxArticles) {
+        List<NewsItem> newsItems = completeNewsItems(digest.news().stream()
+                .limit(maxArticles)
+                .map(newsText -> createNewsItem(newsText, cryptocurrency))
+                .toList());
+        saveNews(newsItems);
+        
+        cacheNews(cryptocurrency, maxArticles, newsItems);
+        log.info("Stored {} batched news items for {}", newsItems.size(), cryptocurrency);
+        return newsItems;
+    }
+
+    /**
+     * Новости из {@code news-cache} под ключом {@code @Cacheable} у {@link #getLatestCryptoNews(String, Integer)};
+     * {@code null}, если их там нет.
+     */
+    @SuppressWarnings("unchecked")
+    private List<NewsItem> cachedNews(String cryptocurrency, int maxArticles) {
+        Cache newsCache = cacheManager.getCache("news-cache");
+        Cache.ValueWrapper cached = newsCache != null ? newsCache.get(newsCacheKey(cryptocurrency, maxArticles)) : null;
+        return cached != null ? (List<NewsItem>) cached.get() : null;
+    }
+
+    private void cacheNews(String cryptocurrency, int maxArticles, List<NewsItem> newsItems) {
+        Cache newsCache = cacheManager.getCache("news-cache");
+        if (newsCache != null) {
+            newsCache.put(newsCacheKey(cryptocurrency, maxArticles), newsItems);
+        }
+    }
+
+    // Совпадает с ключом @Cacheable у getLatestCryptoNews
+    private static String newsCacheKey(String cryptocurrency, int maxArticles) {
+        return cryptocurrency.toLowerCase() + "-" + maxArticles;
+    }
+
+    private String formatComparison(List<String> cryptocurrencies, Map<String, CoinNewsDigest> digests) {
+        StringBuilder comparison = new StringBuilder("Comparison of ")
+                .append(String.join(", ", cryptocurrencies))
+                .append(":\n");
+        for (String cryptocurrency : cryptocurrencies) {
+            CoinNewsDigest digest = digests.get(cryptocurrency);
+            comparison.append("\n").append(cryptocurrency).append(": ");
+            if (digest == null) {
+                comparison.append("no recent data available.\n");
+                continue;
+            }
+            comparison.append(digest.summary() != null ? digest.summary() : "no summary available.").append("\n");
+            digest.news().stream().limit(3).forEach(news -> comparison.append("  - ").append(news).append("\n"));
+        }
+        return comparison.toString();
+    }
+
+    /**
+     * Берет сохраненные новости с нужным настроением и, если их недостаточно, добирает из свежих.
+     * Из базы читается не больше {@code limit} новостей; из свежих берутся недостающие с самой сильной оценкой.
+     */
+    private Mono<List<NewsItem>> getNewsBySentiment(String cryptocurrency, Integer limit,
+                                                    SentimentScore.SentimentLabel label,
+                                                    Function<Pageable, List<NewsItem>> storedNewsQuery) {
+        int newsLimit = limit != null ? limit : 10;
+        if (newsLimit <= 0) {
+            return Mono.just(Collections.emptyList());
+        }
+        
+        return fromDatabase(() -> storedNewsQuery.apply(PageRequest.of(0, newsLimit)))
+                .flatMap(storedNews -> {
+                    if (storedNews.size() >= newsLimit) {
+                        return Mono.just(storedNews);
+                    }
+                    // Если недостаточно новостей, получаем новые
+                    return getLatestCryptoNewsAsync(cryptocurrency, maxArticlesPerRequest)
+                            .map(freshNews -> {
+                                List<NewsItem> candidates = freshNews.stream()
+                                        .filter(item -> item.getSentimentScore() != null &&
+                                                item.getSentimentScore().getLabel() == label)
+                                        .collect(Collectors.toList());
+                                List<NewsItem> news = new ArrayList<>(storedNews);
+                                news.addAll(TopK.select(candidates, newsLimit - storedNews.size(), strongest(label)));
+                                return news;
+                            });
+                });
+    }
+
+    /**
+     * Порядок по силе настроения: у позитивных больше итоговая оценка, у негативных - меньше.
+     */
+    private static Comparator<NewsItem> strongest(SentimentScore.SentimentLabel label) {
+        Comparator<NewsItem> byCompound = Comparator.comparingDouble(item -> item.getSentimentScore().getCompoundScore());
+        return label == SentimentScore.SentimentLabel.NEGATIVE ? byCompound.reversed() : byCompound;
+    }
+
+    /**
+     * Аналитика за период: счетчики, средняя оценка, разброс и тренды берутся из {@link SentimentAggregates},
+     * ключевые темы - из {@link TrendingTopics}, из базы читаются только лучшие и худшие новости.
+     */
+    private CryptoAnalytics buildAnalytics(String cryptocurrency, String timeRange, MarketInsights insights) {
+        LocalDateTime endTime = LocalDateTime.now();
+        LocalDateTime startTime = calculateStartTime(timeRange);
+        SentimentAggregates.Summary summary = sentimentAggregates.summarize(cryptocurrency, startTime, endTime);
+        
+        // Ключевые темы копятся при сохранении новостей
+        List<String> keyTopics = trendingTopics.keyTopics(cryptocurrency, KEY_TOPICS);
+        
+        // Получаем топ новости; одна новость может быть сохранена несколько раз, поэтому берем с запасом
+        Pageable topCandidates = PageRequest.of(0, TOP_NEWS * 4);
+        List<NewsItem> topPositive = distinct(
+                newsRepository.findMostPositiveNews(cryptocurrency, startTime, endTime, topCandidates), TOP_NEWS);
+        List<NewsItem> topNegative = distinct(
+                newsRepository.findMostNegativeNews(cryptocurrency, startTime, endTime, topCandidates), TOP_NEWS);
+        
+        // Создаем результат
+        return CryptoAnalytics.builder()
+                .cryptocurrency(cryptocurrency)
+                .timeRange(timeRange)
+                .totalArticles(summary.totalArticles())
+                .sentimentCounts(summary.positive(), summary.negative(), summary.neutral())
+                .averageSentiment(summary.averageSentiment())
+                .sentimentDeviation(summary.sentimentDeviation())
+                .sentimentTrend(summary.sentimentTrend())
+                .sentimentMomentum(summary.sentimentMomentum())
+                .sentimentSlope(summary.sentimentSlope())
+                .sentimentDeltas(summary.sentimentDeltas())
+                .keyTopics(keyTopics)
+                .topPositiveNews(topPositive)
+                .topNegativeNews(topNegative)
+                .marketMovingEvents(insights.marketMovingEvents())
+                .trendForecast(insights.trendForecast())
+                .build();
+    }
+
+    /**
+     * Первые {@code limit} новостей без повторов с тем же заголовком.
+     */
+    private static List<NewsItem> distinct(List<NewsItem> news, int limit) {
+        return news.stream().distinct().limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Запускает параллельно три независимых запроса к Perplexity с общим дедлайном.
+     * Запрос, который упал или не успел к дедлайну, заменяется заглушкой, остальные результаты сохраняются.
+     */
+    private Mono<MarketInsights> fetchMarketInsights(String cryptocurrency, String timeRange) {
+        return Mono.zip(
+                withDeadline(perplexityClient.analyzeMarketSentimentAsync(cryptocurrency, timeRange),
+                        SENTIMENT_UNAVAILABLE, cryptocurrency),
+                withDeadline(perplexityClient.getTrendForecastAsync(cryptocurrency),
+                        FORECAST_UNAVAILABLE, cryptocurrency),
+                withDeadline(perplexityClient.getMarketMovingEventsAsync(cryptocurrency),
+                        EVENTS_UNAVAILABLE, cryptocurrency))
+                .map(results -> new MarketInsights(results.getT1(), results.getT2(), results.getT3()));
+    }
+
+    private Mono<String> withDeadline(Mono<String> call, String fallback, String cryptocurrency) {
+        return call
+                .timeout(upstreamDeadline)
+                .defaultIfEmpty(fallback)
+                .onErrorResume(e -> {
+                    log.warn("Upstream call for {} failed or missed the {} deadline: {}", cryptocurrency, upstreamDeadline, e.toString());
+                    return Mono.just(fallback);
+                });
+    }
+
+    private record MarketInsights(String marketSentiment, String trendForecast, String marketMovingEvents) {
+    }
 
     private NewsItem createNewsItem(String newsText, String cryptocurrency) {
         NewsItem newsItem = new NewsItem();
@@ -343,19 +709,40 @@ public class NewsAnalyticsService {
                 newsText.substring(0, 100) + "..." : newsText;
         newsItem.setTitle(title);
         newsItem.setDescription(newsText);
-        newsItem.setSource("Perplexity AI");
-        
-        // Анализируем настроение
-        SentimentScore sentiment = sentimentAnalyzer.analyzeSentiment(newsText);
-        newsItem.setSentimentScore(sentiment);
-        
-        // Генерируем URL (поскольку это могут быть сводные данные)
-        newsItem.setUrl("https://perplexity.ai/search?q=" + 
-                cryptocurrency.replace(" ", "+") + "+news");
         
         return newsItem;
     }
 
+    /**
+     * Дополняет новости источником, ссылкой и оценкой настроения.
+     * Настроение всех новостей оценивается одним пакетом {@link SentimentAnalyzer#analyzeBatch(List)}.
+     */
+    private List<NewsItem> completeNewsItems(List<NewsItem> newsItems) {
+        List<String> texts = new ArrayList<>(newsItems.size());
+        for (NewsItem newsItem : newsItems) {
+            if (newsItem.getSource() == null || newsItem.getSource().isBlank()) {
+                newsItem.setSource("Perplexity AI");
+            }
+            
+            // Генерируем URL, если модель его не указала (это могут быть сводные данные)
+            if (newsItem.getUrl() == null || newsItem.getUrl().isBlank()) {
+                newsItem.setUrl("https://perplexity.ai/search?q=" + 
+                        newsItem.getCryptocurrency().replace(" ", "+") + "+news");
+            }
+            
+            // Анализируем настроение по заголовку и описанию
+            texts.add(newsItem.getDescription().equals(newsItem.getTitle())
+                    ? newsItem.getDescription()
+                    : newsItem.getTitle() + ". " + newsItem.getDescription());
+        }
+        
+        List<SentimentScore> scores = sentimentAnalyzer.analyzeBatch(texts);
+        for (int i = 0; i < newsItems.size(); i++) {
+            newsItems.get(i).setSentimentScore(scores.get(i));
+        }
+        return newsItems;
+    }
+
     private LocalDateTime calculateStartTime(String timeRange) {
         LocalDateTime now = LocalDateTime.now();
         
@@ -396,64 +783,6 @@ public class NewsAnalyticsService {
         return defaultValue;
     }
 
-    private List<String> extractKeyTopics(List<NewsItem> newsItems) {
-        Map<String, Integer> wordFrequency = new HashMap<>();
-        
-        for (NewsItem news : newsItems) {
-            String content = (news.getTitle() + " " + (news.getDescription() != null ? news.getDescription() : "")).toLowerCase();
-            String[] words = content.split("\\W+");
-            
-            for (String word : words) {
-                if (word.length() > 3 && !isStopWord(word)) {
-                    wordFrequency.merge(word, 1, Integer::sum);
-                }
-            }
-        }
-        
-        return wordFrequency.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(10)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-    }
-
-    private boolean isStopWord(String word) {
-        Set<String> stopWords = Set.of("this", "that", "with", "have", "will", "from", "they", "been", 
-                "their", "said", "each", "which", "their", "would", "there", "what", "about", "said");
-        return stopWords.contains(word);
-    }
-
-    private double calculateSentimentTrend(List<NewsItem> newsItems) {
-        if (newsItems.size() < 2) {
-            return 0.0;
-        }
-        
-        // Сортируем по времени
-        List<NewsItem> sorted = newsItems.stream()
-                .filter(news -> news.getSentimentScore() != null)
-                .sorted(Comparator.comparing(NewsItem::getPublishedDate))
-                .collect(Collectors.toList());
-        
-        if (sorted.size() < 2) {
-            return 0.0;
-        }
-        
-        // Берем первую и последнюю половину для сравнения
-        int midPoint = sorted.size() / 2;
-        
-        double firstHalfAvg = sorted.subList(0, midPoint).stream()
-                .mapToDouble(news -> news.getSentimentScore().getCompoundScore())
-                .average()
-                .orElse(0.0);
-        
-        double secondHalfAvg = sorted.subList(midPoint, sorted.size()).stream()
-                .mapToDouble(news -> news.getSentimentScore().getCompoundScore())
-                .average()
-                .orElse(0.0);
-        
-        return secondHalfAvg - firstHalfAvg;
-    }
-
     private boolean containsKeywords(NewsItem news, String keywords) {
         if (keywords == null || keywords.isEmpty()) {
             return false;
@@ -479,6 +808,7 @@ public class NewsAnalyticsService {
                 .sentimentCounts(0, 0, 0)
                 .averageSentiment(0.0)
                 .sentimentTrend(0.0)
+                .sentimentDeltas(List.of())
                 .keyTopics(Collections.emptyList())
                 .topPositiveNews(Collections.emptyList())
                 .topNegativeNews(Collections.emptyList())
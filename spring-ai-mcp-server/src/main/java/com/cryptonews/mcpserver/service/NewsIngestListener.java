@@ -0,0 +1,53 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import jakarta.persistence.PostPersist;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Слушатель сущности {@link NewsItem}: переносит сохраненную новость в {@link SentimentAggregates}
+ * и {@link TrendingTopics}. Внутри транзакции новость учитывается после фиксации, чтобы откаченная
+ * вставка не попала в агрегаты.
+ * <p>
+ * Hibernate берет экземпляр слушателя из контекста Spring.
+ */
+@Component
+public class NewsIngestListener {
+
+    private final SentimentAggregates sentimentAggregates;
+    private final TrendingTopics trendingTopics;
+
+    public NewsIngestListener(SentimentAggregates sentimentAggregates, TrendingTopics trendingTopics) {
+        this.sentimentAggregates = sentimentAggregates;
+        this.trendingTopics = trendingTopics;
+    }
+
+    @PostPersist
+    public void newsPersisted(NewsItem newsItem) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(newsItem);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(newsItem);
+            }
+        });
+    }
+
+    /**
+     * Учитывает новость; повторно сохраненный заголовок не учитывается ни в агрегатах, ни в темах.
+     *
+     * @return {@code true}, если новость учтена
+     */
+    public boolean record(NewsItem newsItem) {
+        if (!sentimentAggregates.record(newsItem)) {
+            return false;
+        }
+        trendingTopics.record(newsItem);
+        return true;
+    }
+}
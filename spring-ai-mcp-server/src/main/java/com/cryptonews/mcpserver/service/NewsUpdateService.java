@@ -1,9 +1,12 @@
 package com.cryptonews.mcpserver.service;
 
+import com.cryptonews.mcpserver.model.NewsItem;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -11,28 +14,29 @@ public class NewsUpdateService {
 
     private final NewsAnalyticsService newsAnalyticsService;
     private final SseService sseService;
-    private final List<String> trackedTokens = List.of("BTC", "ETH"); // Example tokens
+    private final List<String> trackedTokens;
 
-    public NewsUpdateService(NewsAnalyticsService newsAnalyticsService, SseService sseService) {
+    public NewsUpdateService(NewsAnalyticsService newsAnalyticsService, SseService sseService,
+                             @Value("${news.update.tracked-tokens:BTC,ETH}") List<String> trackedTokens) {
         this.newsAnalyticsService = newsAnalyticsService;
         this.sseService = sseService;
+        this.trackedTokens = trackedTokens;
     }
 
     @Scheduled(fixedRate = 60000) // Fetch news every 60 seconds
     public void fetchNewsUpdates() {
-        log.info("Fetching news updates for tracked tokens...");
-        trackedTokens.forEach(token -> {
-            try {
-                var newsItems = newsAnalyticsService.getLatestCryptoNews(token, 5);
-                if (!newsItems.isEmpty()) {
-                    newsItems.forEach(newsItem -> {
-                        log.info("Sending news update for token {}: {}", token, newsItem.getTitle());
-                        sseService.send("news-update", newsItem);
-                    });
-                }
-            } catch (Exception e) {
-                log.error("Error fetching news updates for token {}", token, e);
-            }
-        });
+        log.info("Fetching news updates for {} tracked tokens...", trackedTokens.size());
+        Map<String, List<NewsItem>> newsByToken;
+        try {
+            // Один запрос к Perplexity на пачку токенов вместо запроса на каждый токен
+            newsByToken = newsAnalyticsService.getLatestCryptoNewsBatch(trackedTokens, 5);
+        } catch (Exception e) {
+            log.error("Error fetching news updates for tracked tokens {}", trackedTokens, e);
+            return;
+        }
+        newsByToken.forEach((token, newsItems) -> newsItems.forEach(newsItem -> {
+            log.info("Sending news update for token {}: {}", token, newsItem.getTitle());
+            sseService.send("news-update", newsItem);
+        }));
     }
-} 
+}
@@ -0,0 +1,203 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Автомат Ахо-Корасик над словами фраз {@link SentimentLexicon}.
+ * <p>
+ * Алфавит автомата - номера слов фраз из словаря, поэтому автомат получает слова прямо из прохода
+ * токенизатора: один переход на слово (амортизированно), независимо от числа и длины фраз.
+ * Переходы хранятся в хэш-таблице с открытой адресацией по паре (состояние, слово),
+ * для каждого состояния заранее вычислены ссылка неудачи и ближайшее состояние-суффикс, в котором
+ * заканчивается фраза.
+ */
+final class PhraseAutomaton {
+
+    static final int ROOT = 0;
+    static final int NO_MATCH = -1;
+
+    private static final long EMPTY = -1L;
+
+    private final long[] transitionKeys;
+    private final int[] transitionTargets;
+    private final int transitionMask;
+
+    private final int[] failure;
+    private final int[] depth;
+    // Номер фразы, которая заканчивается в состоянии, или NO_MATCH
+    private final int[] phrase;
+    // Ближайшее по ссылкам неудачи состояние, в котором заканчивается фраза, или NO_MATCH
+    private final int[] shorterMatch;
+    private final double[] weights;
+    private final int maxLength;
+
+    /**
+     * @param phrases фразы как последовательности номеров слов
+     * @param weights веса фраз в том же порядке
+     */
+    PhraseAutomaton(List<int[]> phrases, double[] weights) {
+        // Бор: переходы собираются во временные списки детей каждого состояния
+        List<List<int[]>> children = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> terminals = new ArrayList<>();
+        children.add(new ArrayList<>());
+        depths.add(0);
+        terminals.add(NO_MATCH);
+
+        int transitions = 0;
+        int longest = 0;
+        for (int p = 0; p < phrases.size(); p++) {
+            int[] words = phrases.get(p);
+            longest = Math.max(longest, words.length);
+            int state = ROOT;
+            for (int word : words) {
+                int next = child(children.get(state), word);
+                if (next == NO_MATCH) {
+                    next = children.size();
+                    children.get(state).add(new int[]{word, next});
+                    children.add(new ArrayList<>());
+                    depths.add(depths.get(state) + 1);
+                    terminals.add(NO_MATCH);
+                    transitions++;
+                }
+                state = next;
+            }
+            if (terminals.get(state) == NO_MATCH) {
+                terminals.set(state, p);
+            }
+        }
+
+        int states = children.size();
+        int capacity = Integer.highestOneBit(Math.max(2, transitions) * 2 - 1) << 1;
+        this.transitionKeys = new long[capacity];
+        this.transitionTargets = new int[capacity];
+        this.transitionMask = capacity - 1;
+        Arrays.fill(transitionKeys, EMPTY);
+        for (int state = 0; state < states; state++) {
+            for (int[] edge : children.get(state)) {
+                putTransition(state, edge[0], edge[1]);
+            }
+        }
+
+        this.failure = new int[states];
+        this.depth = depths.stream().mapToInt(Integer::intValue).toArray();
+        this.phrase = terminals.stream().mapToInt(Integer::intValue).toArray();
+        this.shorterMatch = new int[states];
+        this.weights = weights.clone();
+        this.maxLength = longest;
+
+        // Ссылки неудачи вычисляются обходом в ширину: у родителя они уже готовы
+        shorterMatch[ROOT] = NO_MATCH;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int[] edge : children.get(ROOT)) {
+            failure[edge[1]] = ROOT;
+            shorterMatch[edge[1]] = NO_MATCH;
+            queue.add(edge[1]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int[] edge : children.get(state)) {
+                int target = edge[1];
+                int fail = next(failure[state], edge[0]);
+                failure[target] = fail;
+                shorterMatch[target] = phrase[fail] != NO_MATCH ? fail : shorterMatch[fail];
+                queue.add(target);
+            }
+        }
+    }
+
+    /**
+     * Переход по слову с номером {@code word}; слова вне фраз ({@code word < 0}) возвращают автомат в корень.
+     */
+    int next(int state, int word) {
+        if (word < 0) {
+            return ROOT;
+        }
+        while (true) {
+            int target = transition(state, word);
+            if (target != NO_MATCH) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * Самая длинная фраза, которая заканчивается в состоянии: само состояние или {@link #NO_MATCH}.
+     */
+    int longestMatch(int state) {
+        return phrase[state] != NO_MATCH ? state : shorterMatch[state];
+    }
+
+    /**
+     * Следующая по длине фраза, заканчивающаяся там же, где фраза состояния {@code match}.
+     */
+    int shorterMatch(int match) {
+        return shorterMatch[match];
+    }
+
+    /**
+     * Число слов фразы, которая заканчивается в состоянии {@code match}.
+     */
+    int length(int match) {
+        return depth[match];
+    }
+
+    double weight(int match) {
+        return weights[phrase[match]];
+    }
+
+    /**
+     * Число слов самой длинной фразы.
+     */
+    int maxLength() {
+        return maxLength;
+    }
+
+    private int transition(int state, int word) {
+        long key = key(state, word);
+        int slot = slot(key);
+        while (transitionKeys[slot] != EMPTY) {
+            if (transitionKeys[slot] == key) {
+                return transitionTargets[slot];
+            }
+            slot = (slot + 1) & transitionMask;
+        }
+        return NO_MATCH;
+    }
+
+    private void putTransition(int state, int word, int target) {
+        long key = key(state, word);
+        int slot = slot(key);
+        while (transitionKeys[slot] != EMPTY) {
+            slot = (slot + 1) & transitionMask;
+        }
+        transitionKeys[slot] = key;
+        transitionTargets[slot] = target;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & transitionMask;
+    }
+
+    private static long key(int state, int word) {
+        return ((long) state << 32) | (word & 0xFFFFFFFFL);
+    }
+
+    private static int child(List<int[]> edges, int word) {
+        for (int[] edge : edges) {
+            if (edge[0] == word) {
+                return edge[1];
+            }
+        }
+        return NO_MATCH;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cryptonews.mcpserver.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Каналы {@code notifications/progress} отдельных вызовов инструментов.
+ * <p>
+ * Канал определяется клиентом и его {@code progressToken}: уведомления вызова получает только клиент,
+ * который сделал вызов и подписался на свой токен. Канал ничего не буферизует - уведомления,
+ * отправленные без подписчика, отбрасываются, а не достаются следующему подключившемуся.
+ */
+@Service
+@Slf4j
+public class ProgressNotifications {
+
+    private final Map<Channel, Sinks.Many<ServerSentEvent<String>>> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Поток уведомлений вызовов клиента {@code clientId} с токеном {@code progressToken}.
+     * Завершается, когда вызов закончился.
+     */
+    public Flux<ServerSentEvent<String>> subscribe(String clientId, String progressToken) {
+        Channel channel = new Channel(clientId, progressToken);
+        return Flux.defer(() -> {
+            Sinks.Many<ServerSentEvent<String>> sink = channels.computeIfAbsent(channel,
+                    key -> Sinks.many().multicast().directBestEffort());
+            // Последний отписавшийся убирает канал
+            return sink.asFlux().doFinally(signal -> channels.computeIfPresent(channel,
+                    (key, current) -> current == sink && current.currentSubscriberCount() == 0 ? null : current));
+        });
+    }
+
+    /**
+     * Отправляет уведомление подписчикам канала; без подписчиков уведомление отбрасывается.
+     */
+    public void publish(String clientId, String progressToken, JsonNode notification) {
+        Sinks.Many<ServerSentEvent<String>> sink = channels.get(new Channel(clientId, progressToken));
+        if (sink == null) {
+            return;
+        }
+        sink.tryEmitNext(ServerSentEvent.<String>builder()
+                .event("message")
+                .data(notification.toString())
+                .build());
+        log.debug("Sent progress notification for token {}", progressToken);
+    }
+
+    /**
+     * Завершает потоки подписчиков канала после окончания вызова.
+     */
+    public void complete(String clientId, String progressToken) {
+        Sinks.Many<ServerSentEvent<String>> sink = channels.remove(new Channel(clientId, progressToken));
+        if (sink != null) {
+            sink.tryEmitComplete();
+        }
+    }
+
+    private record Channel(String clientId, String progressToken) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.SentimentScore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Накопительные агрегаты настроения по криптовалютам, обновляются при сохранении {@link NewsItem}
+ * ({@link NewsIngestListener}).
+ * <p>
+ * Для каждой криптовалюты хранятся корзины по времени публикации ({@code news.analytics.aggregates.bucket}):
+ * число новостей по меткам настроения, сумма и сумма квадратов итоговых оценок. Сводка за период читает
+ * только корзины периода, поэтому анализ за месяц стоит столько же, сколько за час. Границы периода
+ * округляются до корзины.
+ * <p>
+ * Агрегаты хранят только окно {@code news.analytics.aggregates.trend-window}, отсчитанное от самой свежей
+ * корзины криптовалюты: более старые корзины отбрасываются, новости старше окна не учитываются. Для периода
+ * длиннее окна сводка, как и тренд по {@link SentimentTrendRing}, охватывает только окно. Память поэтому
+ * пропорциональна числу новостей в окне, а не всей истории.
+ * <p>
+ * Новость с тем же заголовком по той же криптовалюте учитывается один раз, как и при сравнении
+ * {@link NewsItem} через {@code equals}: заголовки помнятся вместе с корзиной и забываются вместе с ней.
+ * Внутри окна учет точный - повторное сохранение и повторный разбор базы не меняют счетчики.
+ */
+@Component
+public class SentimentAggregates {
+
+    private final long bucketSeconds;
+    private final int windowBuckets;
+    private final int momentumBuckets;
+    private final int seriesPoints;
+    private final Map<String, CoinSeries> series = new ConcurrentHashMap<>();
+
+    public SentimentAggregates(@Value("${news.analytics.aggregates.bucket:1h}") Duration bucket,
+                               @Value("${news.analytics.aggregates.trend-window:31d}") Duration trendWindow,
+                               @Value("${news.analytics.aggregates.momentum-window:6h}") Duration momentumWindow,
+                               @Value("${news.analytics.aggregates.series-points:24}") int seriesPoints) {
+        if (bucket.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Aggregate bucket must be at least one second: " + bucket);
+        }
+        this.bucketSeconds = bucket.getSeconds();
+        this.windowBuckets = (int) Math.max(2, trendWindow.getSeconds() / bucketSeconds);
+        this.momentumBuckets = (int) Math.max(1, momentumWindow.getSeconds() / bucketSeconds);
+        this.seriesPoints = seriesPoints;
+    }
+
+    /**
+     * Окно, которое хранят агрегаты.
+     */
+    public Duration window() {
+        return Duration.ofSeconds(windowBuckets * bucketSeconds);
+    }
+
+    /**
+     * Учитывает новость. Новости без криптовалюты, даты публикации или заголовка, новости старше окна,
+     * а также повторы пропускаются.
+     *
+     * @return {@code true}, если новость попала в агрегаты
+     */
+    public boolean record(NewsItem newsItem) {
+        if (newsItem.getCryptocurrency() == null || newsItem.getPublishedDate() == null || newsItem.getTitle() == null) {
+            return false;
+        }
+        return series.computeIfAbsent(normalize(newsItem.getCryptocurrency()), key -> new CoinSeries())
+                .record(ContentHash.of(newsItem.getTitle()), bucketOf(newsItem.getPublishedDate()),
+                        newsItem.getSentimentScore());
+    }
+
+    /**
+     * Сводка по криптовалюте за период {@code [start, end]}.
+     */
+    public Summary summarize(String cryptocurrency, LocalDateTime start, LocalDateTime end) {
+        String coin = normalize(cryptocurrency);
+        CoinSeries coinSeries = series.get(coin);
+        if (coinSeries == null || start.isAfter(end)) {
+            return Summary.EMPTY;
+        }
+        long from = bucketOf(start);
+        long to = bucketOf(end);
+        int positive = 0;
+        int negative = 0;
+        int neutral = 0;
+        int scored = 0;
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+        for (Bucket bucket : coinSeries.buckets.subMap(from, true, to, true).values()) {
+            Bucket snapshot = bucket.snapshot();
+            positive += snapshot.positive;
+            negative += snapshot.negative;
+            neutral += snapshot.neutral;
+            scored += snapshot.scored;
+            sum += snapshot.sum;
+            sumOfSquares += snapshot.sumOfSquares;
+        }
+
+        double average = scored > 0 ? sum / scored : 0.0;
+        double deviation = scored > 0 ? Math.sqrt(Math.max(0.0, sumOfSquares / scored - average * average)) : 0.0;
+        SentimentTrendRing.Trend trend = coinSeries.trend.trend(from, to, momentumBuckets, seriesPoints);
+        return new Summary(positive + negative + neutral, positive, negative, neutral, average, deviation,
+                trend.trend(), trend.momentum(), trend.slope(), trend.deltas());
+    }
+
+    private long bucketOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    private static String normalize(String cryptocurrency) {
+        return cryptocurrency.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Сводка за период.
+     *
+     * @param averageSentiment  средняя итоговая оценка новостей с оценкой
+     * @param sentimentDeviation стандартное отклонение итоговой оценки
+     * @param sentimentTrend    изменение средней оценки от первой половины новостей ко второй
+     * @param sentimentMomentum изменение средней оценки последнего окна импульса относительно предыдущего
+     * @param sentimentSlope    наклон линейной регрессии оценок по времени, изменение за одну корзину
+     * @param sentimentDeltas   изменения средней оценки по последним {@code series-points} корзинам периода
+     */
+    public record Summary(int totalArticles, int positive, int negative, int neutral,
+                          double averageSentiment, double sentimentDeviation, double sentimentTrend,
+                          double sentimentMomentum, double sentimentSlope, List<Double> sentimentDeltas) {
+
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, 0.0, 0.0, 0.0, 0.0, 0.0, List.of());
+    }
+
+    /**
+     * Корзины и заголовки одной криптовалюты за окно. Запись идет под монитором серии,
+     * чтение сводки - без блокировки, по снимкам корзин.
+     */
+    private final class CoinSeries {
+
+        private final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+        private final SentimentTrendRing trend = new SentimentTrendRing(windowBuckets);
+        // Заголовок -> корзина, в которую он учтен
+        private final Map<ContentHash, Long> headlines = new HashMap<>();
+        private long newest = Long.MIN_VALUE;
+
+        synchronized boolean record(ContentHash headline, long bucket, SentimentScore score) {
+            if (bucket > newest) {
+                newest = bucket;
+                trim(bucket - windowBuckets + 1);
+            } else if (bucket <= newest - windowBuckets) {
+                return false;
+            }
+            if (headlines.putIfAbsent(headline, bucket) != null) {
+                return false;
+            }
+            buckets.computeIfAbsent(bucket, key -> new Bucket()).add(score);
+            if (score != null) {
+                trend.add(bucket, score.getCompoundScore());
+            }
+            return true;
+        }
+
+        // Окно сдвигается не чаще раза за корзину, поэтому проход по заголовкам окупается
+        private void trim(long horizon) {
+            buckets.headMap(horizon).clear();
+            headlines.values().removeIf(bucket -> bucket < horizon);
+        }
+    }
+
+    private static final class Bucket {
+
+        private int positive;
+        private int negative;
+        private int neutral;
+        private int scored;
+        private double sum;
+        private double sumOfSquares;
+
+        // Новость без оценки считается нейтральной, но в средние не входит
+        synchronized void add(SentimentScore score) {
+            if (score == null) {
+                neutral++;
+                return;
+            }
+            switch (score.getLabel()) {
+                case POSITIVE -> positive++;
+                case NEGATIVE -> negative++;
+                case NEUTRAL -> neutral++;
+            }
+            double compound = score.getCompoundScore();
+            scored++;
+            sum += compound;
+            sumOfSquares += compound * compound;
+        }
+
+        synchronized Bucket snapshot() {
+            Bucket copy = new Bucket();
+            copy.positive = positive;
+            copy.negative = negative;
+            copy.neutral = neutral;
+            copy.scored = scored;
+            copy.sum = sum;
+            copy.sumOfSquares = sumOfSquares;
+            return copy;
+        }
+    }
+}
@@ -1,104 +1,199 @@
 package com.cryptonews.mcpserver.service;
 
 import com.cryptonews.mcpserver.model.SentimentScore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class SentimentAnalyzer {
 
-    private final Map<String, Double> positiveWords;
-    private final Map<String, Double> negativeWords;
-    private final Map<String, Double> cryptoPositiveTerms;
-    private final Map<String, Double> cryptoNegativeTerms;
-    private final Set<String> intensifiers;
-    private final Set<String> negators;
+    // Пакет меньше порога оценивается в вызывающем потоке: передача в пул дороже самой оценки
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    private final SentimentLexicon lexicon;
+
+    // Буферы разбора переиспользуются между вызовами в одном потоке, у каждого потока пула свои
+    private final ThreadLocal<Scratch> scratch;
+
+    private final ForkJoinPool batchPool;
+
+    private final SentimentCache cache;
+    private final Function<String, SentimentScore> scorer = this::score;
 
     public SentimentAnalyzer() {
-        this.positiveWords = initializePositiveWords();
-        this.negativeWords = initializeNegativeWords();
-        this.cryptoPositiveTerms = initializeCryptoPositiveTerms();
-        this.cryptoNegativeTerms = initializeCryptoNegativeTerms();
-        this.intensifiers = initializeIntensifiers();
-        this.negators = initializeNegators();
+        this(0, new SentimentCache(DataSize.ofMegabytes(16), Duration.ofMinutes(60), new SimpleMeterRegistry()));
+    }
+
+    /**
+     * @param parallelism число потоков пула {@link #analyzeBatch(List)}; {@code 0} - по числу процессоров
+     */
+    @Autowired
+    public SentimentAnalyzer(@Value("${sentiment.batch.parallelism:0}") int parallelism, SentimentCache cache) {
+        this.cache = cache;
+        // Криптовалютные термины приоритетнее общих слов
+        this.lexicon = SentimentLexicon.builder()
+                .scores(initializeCryptoPositiveTerms(), 1.0)
+                .scores(initializeCryptoNegativeTerms(), -1.0)
+                .scores(initializePositiveWords(), 1.0)
+                .scores(initializeNegativeWords(), -1.0)
+                .flags(initializeIntensifiers(), SentimentLexicon.INTENSIFIER)
+                .flags(initializeNegators(), SentimentLexicon.NEGATOR)
+                .phrases(initializePhrases())
+                .build();
+        // Окно хранит слова самой длинной фразы и слово перед ней
+        int window = lexicon.phrases().maxLength() + 1;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(window));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.batchPool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("sentiment-" + threadNumber.incrementAndGet());
+                    return thread;
+                },
+                null, false);
     }
 
-    @Cacheable(value = "sentiment-cache", key = "#text.hashCode()")
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdown();
+    }
+
+    /**
+     * Оценивает настроение текста. Оценки кэшируются в {@link SentimentCache} по содержимому текста.
+     */
     public SentimentScore analyzeSentiment(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return new SentimentScore(0.0, 0.0, 1.0, 0.0);
+        if (text == null || text.isBlank()) {
+            return toSentimentScore(0.0, 0.0);
         }
+        return cache.get(text, scorer);
+    }
 
-        log.debug("Analyzing sentiment for text: {}", text.substring(0, Math.min(100, text.length())));
-
-        String processedText = preprocessText(text);
-        String[] words = processedText.split("\\s+");
+    /**
+     * Оценивает настроение нескольких текстов. Большие пакеты делятся между потоками отдельного
+     * {@link ForkJoinPool}.
+     *
+     * @return оценки в порядке текстов
+     */
+    public List<SentimentScore> analyzeBatch(List<String> texts) {
+        SentimentScore[] scores = new SentimentScore[texts.size()];
+        if (texts.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = analyzeSentiment(texts.get(i));
+            }
+        } else {
+            batchPool.invoke(new BatchTask(texts, scores, 0, scores.length));
+        }
+        return Arrays.asList(scores);
+    }
 
-        double positiveScore = 0.0;
-        double negativeScore = 0.0;
+    private SentimentScore score(String text) {
+        if (log.isDebugEnabled()) {
+            log.debug("Analyzing sentiment for text: {}", text.substring(0, Math.min(100, text.length())));
+        }
 
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i];
-            double intensity = 1.0;
-            boolean negated = false;
+        Scratch state = scratch.get().reset(text);
+        SentimentTokenizer tokenizer = state.tokenizer;
+        PhraseAutomaton phrases = lexicon.phrases();
+        int phraseState = PhraseAutomaton.ROOT;
+        int prevFlags = 0;
 
-            if (i > 0) {
-                String prevWord = words[i - 1];
-                if (intensifiers.contains(prevWord)) {
-                    intensity = 1.5;
-                }
-                if (negators.contains(prevWord)) {
-                    negated = true;
-                }
+        // Слова и фразы оцениваются за один проход: автомат фраз получает те же слова, что и словарь
+        while (tokenizer.next()) {
+            int slot = lexicon.find(tokenizer.buffer(), tokenizer.length(), tokenizer.hash());
+            int flags = lexicon.flags(slot);
+            double score = 0.0;
+            if ((flags & SentimentLexicon.SCORED) != 0) {
+                score = applyModifiers(lexicon.weight(slot), prevFlags);
             }
+            state.push(score, flags);
 
-            Double score = getWordSentiment(word);
-            if (score != null) {
-                if (negated) {
-                    score = -score;
-                }
-                score *= intensity;
-
-                if (score > 0) {
-                    positiveScore += score;
-                } else if (score < 0) {
-                    negativeScore += Math.abs(score);
+            // Фраза заменяет оценки своих слов; из пересекающихся фраз выигрывает найденная раньше
+            phraseState = phrases.next(phraseState, lexicon.phraseWord(slot));
+            for (int match = phrases.longestMatch(phraseState); match != PhraseAutomaton.NO_MATCH;
+                 match = phrases.shorterMatch(match)) {
+                if (state.replaceTail(phrases.length(match), phrases.weight(match))) {
+                    break;
                 }
             }
+            prevFlags = flags;
         }
+        state.flush();
+
+        int wordCount = state.count;
+        double positiveScore = state.positive;
+        double negativeScore = state.negative;
+
+        double totalWords = wordCount > 0 ? wordCount : 1;
+        return toSentimentScore(Math.min(positiveScore / totalWords, 1.0), Math.min(negativeScore / totalWords, 1.0));
+    }
 
-        double totalWords = words.length > 0 ? words.length : 1;
-        positiveScore = Math.min(positiveScore / totalWords, 1.0);
-        negativeScore = Math.min(negativeScore / totalWords, 1.0);
+    /**
+     * Оценка по нормированным положительной и отрицательной составляющим; нейтральная и итоговая выводятся из них.
+     */
+    static SentimentScore toSentimentScore(double positiveScore, double negativeScore) {
         double neutralScore = Math.max(0.0, 1.0 - positiveScore - negativeScore);
         double compoundScore = Math.max(-1.0, Math.min(1.0, positiveScore - negativeScore));
-
         return new SentimentScore(positiveScore, negativeScore, neutralScore, compoundScore);
     }
 
-    private String preprocessText(String text) {
-        text = text.toLowerCase();
-        text = text.replaceAll("https?://\\S+", "");
-        text = text.replaceAll("@[\\w-]+", "");
-        text = text.replaceAll("#[\\w-]+", "");
-        text = text.replaceAll("[^a-zA-Z0-9\\s\\-]", " ");
-        text = text.replaceAll("\\s+", " ");
-        return text.trim();
+    /**
+     * Делит пакет пополам, пока в части больше {@link #PARALLEL_THRESHOLD} текстов.
+     */
+    private final class BatchTask extends RecursiveAction {
+
+        private final List<String> texts;
+        private final SentimentScore[] scores;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<String> texts, SentimentScore[] scores, int from, int to) {
+            this.texts = texts;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    scores[i] = analyzeSentiment(texts.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(texts, scores, from, middle), new BatchTask(texts, scores, middle, to));
+        }
     }
 
-    private Double getWordSentiment(String word) {
-        if (cryptoPositiveTerms.containsKey(word)) return cryptoPositiveTerms.get(word);
-        if (cryptoNegativeTerms.containsKey(word)) return -cryptoNegativeTerms.get(word);
-        if (positiveWords.containsKey(word)) return positiveWords.get(word);
-        if (negativeWords.containsKey(word)) return -negativeWords.get(word);
-        return null;
+    /**
+     * Отрицание или усилитель перед словом (фразой) меняют знак или силу его оценки.
+     */
+    private static double applyModifiers(double score, int prevFlags) {
+        if ((prevFlags & SentimentLexicon.NEGATOR) != 0) {
+            score = -score;
+        }
+        return score * ((prevFlags & SentimentLexicon.INTENSIFIER) != 0 ? 1.5 : 1.0);
     }
 
     private Map<String, Double> initializePositiveWords() {
@@ -146,4 +241,92 @@ public class SentimentAnalyzer {
     private Set<String> initializeNegators() {
         return Set.of("not", "no", "never", "none", "without");
     }
-} 
\ No newline at end of file
+
+    private Map<String, Double> initializePhrases() {
+        Map<String, Double> phrases = new HashMap<>();
+        phrases.put("all time high", 0.9); phrases.put("all-time high", 0.9); phrases.put("record high", 0.7);
+        phrases.put("to the moon", 0.9); phrases.put("bull run", 0.8); phrases.put("short squeeze", 0.6);
+        phrases.put("golden cross", 0.7); phrases.put("buy the dip", 0.5); phrases.put("etf approval", 0.8);
+        phrases.put("rug pull", -0.9); phrases.put("exit scam", -0.9); phrases.put("ponzi scheme", -0.9);
+        phrases.put("sec lawsuit", -0.8); phrases.put("death cross", -0.7); phrases.put("bear market", -0.7);
+        phrases.put("all time low", -0.8); phrases.put("all-time low", -0.8); phrases.put("security breach", -0.8);
+        phrases.put("liquidation cascade", -0.8); phrases.put("not bullish at all", -0.9);
+        return phrases;
+    }
+
+    /**
+     * Состояние одного вызова {@link #analyzeSentiment(String)}: токенизатор и кольцевое окно последних слов.
+     * Оценка слова попадает в сумму, только когда слово выходит из окна, поэтому найденная позже фраза
+     * еще может заменить оценки своих слов. Суммы накапливаются в порядке слов.
+     */
+    private static final class Scratch {
+
+        private final SentimentTokenizer tokenizer = new SentimentTokenizer();
+        private final double[] scores;
+        private final int[] flags;
+        private final boolean[] inPhrase;
+
+        private int count;
+        private double positive;
+        private double negative;
+
+        Scratch(int window) {
+            this.scores = new double[window];
+            this.flags = new int[window];
+            this.inPhrase = new boolean[window];
+        }
+
+        Scratch reset(String text) {
+            tokenizer.reset(text);
+            count = 0;
+            positive = 0.0;
+            negative = 0.0;
+            return this;
+        }
+
+        void push(double score, int wordFlags) {
+            int index = count % scores.length;
+            if (count >= scores.length) {
+                commit(scores[index]);
+            }
+            scores[index] = score;
+            flags[index] = wordFlags;
+            inPhrase[index] = false;
+            count++;
+        }
+
+        /**
+         * Заменяет оценки последних {@code length} слов оценкой фразы, если ни одно из них
+         * еще не вошло в другую фразу.
+         */
+        boolean replaceTail(int length, double weight) {
+            int first = count - length;
+            for (int i = first; i < count; i++) {
+                if (inPhrase[i % scores.length]) {
+                    return false;
+                }
+            }
+            int prevFlags = first > 0 ? flags[(first - 1) % scores.length] : 0;
+            for (int i = first; i < count; i++) {
+                scores[i % scores.length] = 0.0;
+                inPhrase[i % scores.length] = true;
+            }
+            scores[(count - 1) % scores.length] = applyModifiers(weight, prevFlags);
+            return true;
+        }
+
+        void flush() {
+            for (int i = Math.max(0, count - scores.length); i < count; i++) {
+                commit(scores[i % scores.length]);
+            }
+        }
+
+        private void commit(double score) {
+            if (score > 0) {
+                positive += score;
+            } else if (score < 0) {
+                negative += Math.abs(score);
+            }
+        }
+    }
+}
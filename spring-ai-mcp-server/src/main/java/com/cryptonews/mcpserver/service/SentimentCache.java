@@ -0,0 +1,89 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.SentimentScore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш оценок {@link SentimentAnalyzer} по содержимому текста.
+ * <p>
+ * Ключ - 128-битный {@link ContentHash} текста, значение - пара {@code double}: положительная и
+ * отрицательная оценки, остальные поля {@link SentimentScore} из них выводятся. Размер кэша задается
+ * объемом памяти ({@code sentiment.cache.max-memory}), а не числом записей; {@code 0} отключает кэш.
+ * Попадания и промахи публикуются метриками {@code cache.*} с тегом {@code cache=sentiment-cache}.
+ */
+@Component
+public class SentimentCache {
+
+    /**
+     * Примерный размер записи в байтах: ключ (заголовок и два long) 32, значение 32,
+     * узел Caffeine с полями вытеснения и времени записи около 80.
+     */
+    static final int ENTRY_WEIGHT = 144;
+
+    // null, если кэш отключен
+    private final Cache<ContentHash, Scores> cache;
+
+    public SentimentCache(@Value("${sentiment.cache.max-memory:16MB}") DataSize maxMemory,
+                          @Value("${sentiment.cache.expire-after-write:60m}") Duration expireAfterWrite,
+                          MeterRegistry meterRegistry) {
+        if (maxMemory.toBytes() == 0) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((ContentHash key, Scores value) -> ENTRY_WEIGHT)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sentiment-cache");
+    }
+
+    /**
+     * Оценка текста из кэша; при промахе считается {@code scorer} и запоминается.
+     * Одновременные промахи по одному тексту могут посчитать оценку дважды - результат одинаков.
+     */
+    SentimentScore get(String text, Function<String, SentimentScore> scorer) {
+        if (cache == null) {
+            return scorer.apply(text);
+        }
+        ContentHash key = ContentHash.of(text);
+        Scores cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return SentimentAnalyzer.toSentimentScore(cached.positive(), cached.negative());
+        }
+        SentimentScore score = scorer.apply(text);
+        cache.put(key, new Scores(score.getPositiveScore(), score.getNegativeScore()));
+        return score;
+    }
+
+    CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    long estimatedSize() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    /**
+     * Выполняет отложенное вытеснение сразу.
+     */
+    void cleanUp() {
+        if (cache != null) {
+            cache.cleanUp();
+        }
+    }
+
+    private record Scores(double positive, double negative) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый словарь {@link SentimentAnalyzer}: все словари оценок, усилители и отрицания в одной
+ * хэш-таблице с открытой адресацией.
+ * <p>
+ * Слова хранятся подряд в одном массиве символов, веса - примитивными {@code double}, признаки слова -
+ * битами {@link #SCORED}, {@link #INTENSIFIER} и {@link #NEGATOR}. Поиск идет по диапазону символов
+ * с готовым хэшем ({@link String#hashCode()} слова) и стоит одну пробу без создания объектов.
+ * <p>
+ * Словам, из которых состоят фразы, присваиваются номера - алфавит {@link PhraseAutomaton}.
+ */
+final class SentimentLexicon {
+
+    static final int SCORED = 1;
+    static final int INTENSIFIER = 1 << 1;
+    static final int NEGATOR = 1 << 2;
+
+    static final int NOT_FOUND = -1;
+
+    private final char[] chars;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] hashes;
+    private final double[] weights;
+    private final byte[] flags;
+    private final int[] phraseWords;
+    private final int mask;
+    private final PhraseAutomaton phrases;
+
+    private SentimentLexicon(Map<String, Entry> entries, PhraseAutomaton phrases) {
+        // Заполнение не больше половины, чтобы цепочки проб оставались короткими
+        int capacity = Integer.highestOneBit(Math.max(2, entries.size()) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        this.hashes = new int[capacity];
+        this.weights = new double[capacity];
+        this.flags = new byte[capacity];
+        this.phraseWords = new int[capacity];
+        this.phrases = phrases;
+        this.chars = new char[entries.keySet().stream().mapToInt(String::length).sum()];
+
+        int offset = 0;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            String word = entry.getKey();
+            int hash = word.hashCode();
+            int slot = spread(hash) & mask;
+            while (lengths[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            word.getChars(0, word.length(), chars, offset);
+            offsets[slot] = offset;
+            lengths[slot] = word.length();
+            hashes[slot] = hash;
+            weights[slot] = entry.getValue().weight;
+            flags[slot] = (byte) entry.getValue().flags;
+            phraseWords[slot] = entry.getValue().phraseWord;
+            offset += word.length();
+        }
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Ищет слово {@code word[0..length)} с хэшем {@code hash}.
+     *
+     * @return номер ячейки для {@link #weight(int)} и {@link #flags(int)} или {@link #NOT_FOUND}
+     */
+    int find(char[] word, int length, int hash) {
+        if (length == 0) {
+            return NOT_FOUND;
+        }
+        int slot = spread(hash) & mask;
+        while (lengths[slot] != 0) {
+            if (hashes[slot] == hash && lengths[slot] == length && regionMatches(offsets[slot], word, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    double weight(int slot) {
+        return weights[slot];
+    }
+
+    int flags(int slot) {
+        return slot == NOT_FOUND ? 0 : flags[slot];
+    }
+
+    /**
+     * Номер слова в алфавите {@link #phrases()} или {@code -1}, если слово не входит ни в одну фразу.
+     */
+    int phraseWord(int slot) {
+        return slot == NOT_FOUND ? -1 : phraseWords[slot];
+    }
+
+    PhraseAutomaton phrases() {
+        return phrases;
+    }
+
+    private boolean regionMatches(int offset, char[] word, int length) {
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Хэш String плохо распределен в младших битах, подмешиваем старшие, как HashMap
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+        private double weight;
+        private int flags;
+        private int phraseWord = -1;
+    }
+
+    static final class Builder {
+
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        private final List<int[]> phrases = new ArrayList<>();
+        private final List<Double> phraseWeights = new ArrayList<>();
+        private int phraseWordCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Добавляет слова с весами, умноженными на {@code sign}. Слово, у которого вес уже есть,
+         * сохраняет прежний вес: словари добавляются в порядке приоритета.
+         */
+        Builder scores(Map<String, Double> words, double sign) {
+            words.forEach((word, weight) -> {
+                Entry entry = entries.computeIfAbsent(word, key -> new Entry());
+                if ((entry.flags & SCORED) == 0) {
+                    entry.weight = sign * weight;
+                    entry.flags |= SCORED;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Отмечает слова признаком {@link #INTENSIFIER} или {@link #NEGATOR}.
+         */
+        Builder flags(Collection<String> words, int flag) {
+            words.forEach(word -> entries.computeIfAbsent(word, key -> new Entry()).flags |= flag);
+            return this;
+        }
+
+        /**
+         * Добавляет фразы с весами. Слова фразы разделяются пробелом и записываются так, как их выдает
+         * {@link SentimentTokenizer}: строчные {@code [a-z0-9-]}.
+         */
+        Builder phrases(Map<String, Double> weightedPhrases) {
+            weightedPhrases.forEach((phrase, weight) -> {
+                String[] words = phrase.split(" ");
+                int[] ids = new int[words.length];
+                for (int i = 0; i < words.length; i++) {
+                    if (!words[i].matches("[a-z0-9-]+")) {
+                        throw new IllegalArgumentException("Phrase word '" + words[i] + "' of '" + phrase
+                                + "' cannot be produced by the tokenizer");
+                    }
+                    Entry entry = entries.computeIfAbsent(words[i], key -> new Entry());
+                    if (entry.phraseWord < 0) {
+                        entry.phraseWord = phraseWordCount++;
+                    }
+                    ids[i] = entry.phraseWord;
+                }
+                phrases.add(ids);
+                phraseWeights.add(weight);
+            });
+            return this;
+        }
+
+        SentimentLexicon build() {
+            if (entries.containsKey("")) {
+                throw new IllegalArgumentException("Lexicon words must not be empty");
+            }
+            double[] weights = phraseWeights.stream().mapToDouble(Double::doubleValue).toArray();
+            return new SentimentLexicon(entries, new PhraseAutomaton(phrases, weights));
+        }
+    }
+}
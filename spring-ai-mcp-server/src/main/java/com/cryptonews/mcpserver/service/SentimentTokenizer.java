@@ -0,0 +1,168 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.Locale;
+
+/**
+ * Однопроходный разбор текста на слова для {@link SentimentAnalyzer}.
+ * <p>
+ * Повторяет прежнюю цепочку {@code toLowerCase} и {@code replaceAll}: ссылки {@code http(s)://} до пробела,
+ * упоминания {@code @name} и хэштеги {@code #tag} выбрасываются, словом считается непрерывная
+ * последовательность {@code [a-z0-9-]}, все остальные символы - разделители. Строки не создаются:
+ * текущее слово в нижнем регистре лежит в переиспользуемом буфере вместе с хэшем для
+ * {@link SentimentLexicon#find(char[], int, int)}.
+ * <p>
+ * Экземпляр хранит состояние разбора и не потокобезопасен.
+ */
+final class SentimentTokenizer {
+
+    // Заглавная I с точкой - единственный символ, который при переводе в нижний регистр меняет длину строки
+    private static final char CAPITAL_I_WITH_DOT = 'İ';
+
+    private String text;
+    private int position;
+    private char[] token = new char[32];
+    private int length;
+    private int hash;
+
+    /**
+     * Начинает разбор нового текста.
+     */
+    SentimentTokenizer reset(String text) {
+        this.text = text.indexOf(CAPITAL_I_WITH_DOT) >= 0 ? text.toLowerCase(Locale.ROOT) : text;
+        this.position = 0;
+        this.length = 0;
+        return this;
+    }
+
+    /**
+     * Переходит к следующему слову.
+     *
+     * @return {@code false}, если слов больше нет
+     */
+    boolean next() {
+        length = 0;
+        hash = 0;
+        int end = text.length();
+        while (position < end) {
+            int urlEnd = urlEnd(position);
+            if (urlEnd > position) {
+                position = urlEnd;
+                if (length > 0) {
+                    return true;
+                }
+                continue;
+            }
+            char c = Character.toLowerCase(text.charAt(position));
+            if (c == '@' || c == '#') {
+                int tagEnd = tagEnd(position + 1);
+                if (tagEnd > position + 1) {
+                    position = tagEnd;
+                    if (length > 0) {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            position++;
+            if (isWordChar(c)) {
+                append(c);
+            } else if (length > 0) {
+                return true;
+            }
+        }
+        return length > 0;
+    }
+
+    /**
+     * Конец ссылки {@code http://} или {@code https://}, начинающейся в {@code start}: первый пробельный символ.
+     * Если ссылки нет, возвращает {@code start}.
+     */
+    private int urlEnd(int start) {
+        int i = start;
+        if (!matches(i, "http")) {
+            return start;
+        }
+        i += 4;
+        if (i < text.length() && Character.toLowerCase(text.charAt(i)) == 's') {
+            i++;
+        }
+        if (!matches(i, "://")) {
+            return start;
+        }
+        i += 3;
+        int urlStart = i;
+        while (i < text.length() && !isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        // Регулярное выражение требовало хотя бы один символ после "://"
+        return i > urlStart ? i : start;
+    }
+
+    /**
+     * Конец упоминания или хэштега, имя которого начинается в {@code start}: символы {@code [a-z0-9_-]}.
+     * Ссылки удалялись раньше упоминаний, поэтому начало ссылки завершает имя.
+     */
+    private int tagEnd(int start) {
+        int i = start;
+        while (i < text.length()) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (!(isWordChar(c) || c == '_') || urlEnd(i) > i) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private boolean matches(int start, String prefix) {
+        if (start + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (length == token.length) {
+            char[] grown = new char[token.length * 2];
+            System.arraycopy(token, 0, grown, 0, length);
+            token = grown;
+        }
+        token[length++] = c;
+        hash = 31 * hash + c;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    // Пробельные символы в смысле \s регулярных выражений Java
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Длина текущего слова.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Буфер с текущим словом в позициях {@code [0, length())}. Содержимое меняется при вызове {@link #next()}.
+     */
+    char[] buffer() {
+        return token;
+    }
+
+    /**
+     * Хэш текущего слова, совпадающий с {@link String#hashCode()} той же строки.
+     */
+    int hash() {
+        return hash;
+    }
+}
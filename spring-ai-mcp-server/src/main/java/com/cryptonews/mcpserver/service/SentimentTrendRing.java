@@ -0,0 +1,223 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кольцевой буфер корзин по времени для тренда настроения одной криптовалюты, без блокировок.
+ * <p>
+ * Корзина - одно значение {@code long}: сумма итоговых оценок в фиксированной точке
+ * (старшие 32 бита, шаг {@code 1 / SCALE}), число оценок (20 бит) и номер круга буфера (12 бит).
+ * Добавление - один CAS; корзина прошлого круга при первой записи нового круга обнуляется тем же CAS,
+ * поэтому сумма и число никогда не расходятся. Ячейка с нулевым числом оценок пуста при любом номере
+ * круга. Номер корзины - время, деленное на ширину корзины; корзина хранится, пока буфер не прошел
+ * полный круг.
+ */
+final class SentimentTrendRing {
+
+    static final double SCALE = 10_000.0;
+
+    private static final int LAP_BITS = 12;
+    private static final int COUNT_BITS = 20;
+    private static final long LAP_MASK = (1L << LAP_BITS) - 1;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray cells;
+    private final int capacity;
+
+    SentimentTrendRing(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Trend ring needs at least two buckets: " + capacity);
+        }
+        this.cells = new AtomicLongArray(capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Добавляет итоговую оценку в корзину {@code bucket}.
+     *
+     * @return {@code false}, если корзина уже вытеснена новым кругом или переполнена
+     */
+    boolean add(long bucket, double compound) {
+        int slot = slot(bucket);
+        long lap = lap(bucket);
+        long units = Math.round(compound * SCALE);
+        while (true) {
+            long cell = cells.get(slot);
+            long cellLap = cell & LAP_MASK;
+            long count = count(cell);
+            long next;
+            if (count == 0) {
+                // Пустая ячейка: ни одной записи, номер круга 0 в ней ничего не значит
+                next = pack(units, 1, lap);
+            } else if (cellLap == lap) {
+                long sum = (cell >> (LAP_BITS + COUNT_BITS)) + units;
+                if (count == COUNT_MASK || sum != (int) sum) {
+                    return false;
+                }
+                next = pack(sum, count + 1, lap);
+            } else if (isLater(cellLap, lap)) {
+                return false;
+            } else {
+                next = pack(units, 1, lap);
+            }
+            if (cells.compareAndSet(slot, cell, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Тренд по корзинам {@code [from, to]}; начало окна обрезается до емкости буфера.
+     *
+     * @param momentumBuckets корзин в каждом из двух окон импульса
+     * @param seriesPoints    число последних корзин в ряду изменений
+     */
+    Trend trend(long from, long to, int momentumBuckets, int seriesPoints) {
+        from = Math.max(from, to - capacity + 1);
+        if (from > to) {
+            return Trend.EMPTY;
+        }
+        int buckets = (int) (to - from + 1);
+        // Снимок окна: корзины читаются по одному разу, дальше счет идет по копии
+        long[] window = new long[buckets];
+        long count = 0;
+        double sum = 0.0;
+        double sumX = 0.0;
+        double sumXX = 0.0;
+        double sumXY = 0.0;
+        for (int i = 0; i < buckets; i++) {
+            long bucket = from + i;
+            long cell = cells.get(slot(bucket));
+            if ((cell & LAP_MASK) != lap(bucket) || count(cell) == 0) {
+                continue;
+            }
+            window[i] = cell;
+            long n = count(cell);
+            double s = sum(cell);
+            count += n;
+            sum += s;
+            // Регрессия по отдельным оценкам с x = номер корзины от начала окна
+            sumX += (double) n * i;
+            sumXX += (double) n * i * i;
+            sumXY += s * i;
+        }
+        if (count == 0) {
+            return Trend.EMPTY;
+        }
+
+        double slopeDenominator = count * sumXX - sumX * sumX;
+        double slope = slopeDenominator > 0 ? (count * sumXY - sumX * sum) / slopeDenominator : 0.0;
+        return new Trend(halfTrend(window, count), momentum(window, momentumBuckets), slope,
+                deltas(window, seriesPoints));
+    }
+
+    /**
+     * Разница средней оценки второй и первой половины оценок по времени. Порядок внутри корзины
+     * неизвестен, поэтому корзина на границе половин делится по своей средней оценке.
+     */
+    private static double halfTrend(long[] window, long count) {
+        if (count < 2) {
+            return 0.0;
+        }
+        long firstHalf = count / 2;
+        double firstSum = 0.0;
+        double secondSum = 0.0;
+        long taken = 0;
+        for (long cell : window) {
+            long n = count(cell);
+            if (n == 0) {
+                continue;
+            }
+            long toFirst = Math.min(n, firstHalf - taken);
+            double part = sum(cell) * toFirst / n;
+            firstSum += part;
+            secondSum += sum(cell) - part;
+            taken += toFirst;
+        }
+        return secondSum / (count - firstHalf) - firstSum / firstHalf;
+    }
+
+    /**
+     * Средняя оценка последних {@code size} корзин минус средняя оценка {@code size} корзин перед ними;
+     * 0, если в одном из окон нет оценок.
+     */
+    private static double momentum(long[] window, int size) {
+        int end = window.length;
+        double recent = average(window, Math.max(0, end - size), end);
+        double previous = average(window, Math.max(0, end - 2 * size), Math.max(0, end - size));
+        return Double.isNaN(recent) || Double.isNaN(previous) ? 0.0 : recent - previous;
+    }
+
+    /**
+     * Изменение средней оценки каждой из последних {@code points} корзин относительно предыдущей
+     * корзины с оценками; корзина без оценок дает 0.
+     */
+    private static List<Double> deltas(long[] window, int points) {
+        int start = Math.max(0, window.length - points);
+        double last = Double.NaN;
+        List<Double> deltas = new ArrayList<>(window.length - start);
+        for (int i = 0; i < window.length; i++) {
+            long n = count(window[i]);
+            double average = n > 0 ? sum(window[i]) / n : Double.NaN;
+            if (i >= start) {
+                deltas.add(n > 0 && !Double.isNaN(last) ? average - last : 0.0);
+            }
+            if (n > 0) {
+                last = average;
+            }
+        }
+        return Collections.unmodifiableList(deltas);
+    }
+
+    private static double average(long[] window, int from, int to) {
+        long count = 0;
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            count += count(window[i]);
+            sum += sum(window[i]);
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) capacity);
+    }
+
+    private long lap(long bucket) {
+        return Math.floorDiv(bucket, (long) capacity) & LAP_MASK;
+    }
+
+    // Круг cellLap позже круга lap с учетом переполнения 12-битного номера
+    private static boolean isLater(long cellLap, long lap) {
+        long distance = (cellLap - lap) & LAP_MASK;
+        return distance != 0 && distance < (1L << (LAP_BITS - 1));
+    }
+
+    private static long pack(long sum, long count, long lap) {
+        return (sum << (LAP_BITS + COUNT_BITS)) | (count << LAP_BITS) | lap;
+    }
+
+    private static long count(long cell) {
+        return (cell >>> LAP_BITS) & COUNT_MASK;
+    }
+
+    private static double sum(long cell) {
+        return (cell >> (LAP_BITS + COUNT_BITS)) / SCALE;
+    }
+
+    /**
+     * Тренд за окно.
+     *
+     * @param trend    изменение средней оценки от первой половины оценок ко второй
+     * @param momentum изменение средней оценки последнего окна импульса относительно предыдущего
+     * @param slope    наклон линейной регрессии оценок по времени, изменение за одну корзину
+     * @param deltas   изменения средней оценки по последним корзинам, от старых к новым
+     */
+    record Trend(double trend, double momentum, double slope, List<Double> deltas) {
+
+        static final Trend EMPTY = new Trend(0.0, 0.0, 0.0, List.of());
+    }
+}
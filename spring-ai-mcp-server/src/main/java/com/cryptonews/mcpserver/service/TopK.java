@@ -0,0 +1,44 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Выбор {@code k} наибольших элементов без сортировки всего набора.
+ * <p>
+ * Кандидаты проходят через min-кучу размера {@code k}: в вершине лежит наименьший из отобранных,
+ * и новый элемент вытесняет его, только если больше. Память - {@code O(k)}, время - {@code O(n log k)}.
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * До {@code k} наибольших по {@code order} элементов, от наибольшего к наименьшему.
+     * Из равных элементов остаются встреченные раньше.
+     */
+    static <T> List<T> select(Iterable<? extends T> items, int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            return List.of();
+        }
+        PriorityQueue<T> heap = new PriorityQueue<>(k, order);
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.add(item);
+            } else if (order.compare(item, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+        List<T> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(heap.poll());
+        }
+        Collections.reverse(top);
+        return top;
+    }
+}
@@ -0,0 +1,125 @@
+package com.cryptonews.mcpserver.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Самые частые темы потока с затуханием: Space-Saving на {@code capacity} счетчиков.
+ * <p>
+ * Упоминание в момент {@code t} весит {@code 2^((t - landmark) / halfLife)} (прямое затухание), поэтому
+ * упоминание недельной давности весит меньше сегодняшнего, а старые счетчики не нужно пересчитывать
+ * при каждом добавлении. Когда веса становятся слишком большими, все счетчики делятся на общий
+ * множитель, а точка отсчета переносится. Тема вне счетчиков вытесняет самую редкую и наследует ее вес
+ * как оценку сверху ошибки: частые темы гарантированно остаются в счетчиках.
+ */
+final class TopicSketch {
+
+    // Предел показателя веса до перенормировки: 2^64 далеко от переполнения double
+    private static final double MAX_EXPONENT = 64.0;
+
+    // Больший вес впереди, при равном весе - тема раньше по алфавиту
+    private static final Comparator<Counter> HEAVIER = Comparator.comparingDouble((Counter counter) -> counter.weight)
+            .thenComparing(counter -> counter.topic, Comparator.reverseOrder());
+
+    private final int capacity;
+    private final double halfLifeSeconds;
+    private final Map<String, Counter> counters;
+    private long landmark = Long.MIN_VALUE;
+
+    TopicSketch(int capacity, long halfLifeSeconds) {
+        if (capacity < 1 || halfLifeSeconds < 1) {
+            throw new IllegalArgumentException("Topic sketch needs positive capacity and half-life");
+        }
+        this.capacity = capacity;
+        this.halfLifeSeconds = halfLifeSeconds;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Учитывает одно упоминание темы в момент {@code epochSecond}.
+     */
+    synchronized void add(String topic, long epochSecond) {
+        if (landmark == Long.MIN_VALUE) {
+            landmark = epochSecond;
+        }
+        double exponent = (epochSecond - landmark) / halfLifeSeconds;
+        if (exponent > MAX_EXPONENT) {
+            rescale(epochSecond);
+            exponent = 0.0;
+        }
+        double weight = Math.pow(2.0, exponent);
+
+        Counter counter = counters.get(topic);
+        if (counter != null) {
+            counter.weight += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(topic, new Counter(topic, weight, 0.0));
+            return;
+        }
+        Counter rarest = null;
+        for (Counter candidate : counters.values()) {
+            if (rarest == null || candidate.weight < rarest.weight) {
+                rarest = candidate;
+            }
+        }
+        counters.remove(rarest.topic);
+        counters.put(topic, new Counter(topic, rarest.weight + weight, rarest.weight));
+    }
+
+    /**
+     * До {@code limit} самых частых тем с весом на момент {@code nowEpochSecond}: сколько упоминаний
+     * осталось бы после затухания, с учетом унаследованной при вытеснении ошибки.
+     */
+    synchronized List<Topic> top(int limit, long nowEpochSecond) {
+        if (counters.isEmpty()) {
+            return List.of();
+        }
+        double decay = Math.pow(2.0, (landmark - nowEpochSecond) / halfLifeSeconds);
+        List<Topic> topics = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Counter counter : TopK.select(counters.values(), limit, HEAVIER)) {
+            topics.add(new Topic(counter.topic, counter.weight * decay, counter.error * decay));
+        }
+        return topics;
+    }
+
+    synchronized boolean contains(String topic) {
+        return counters.containsKey(topic);
+    }
+
+    synchronized int size() {
+        return counters.size();
+    }
+
+    private void rescale(long epochSecond) {
+        double factor = Math.pow(2.0, (landmark - epochSecond) / halfLifeSeconds);
+        for (Counter counter : counters.values()) {
+            counter.weight *= factor;
+            counter.error *= factor;
+        }
+        landmark = epochSecond;
+    }
+
+    /**
+     * Тема с весом и оценкой сверху его завышения.
+     */
+    record Topic(String topic, double weight, double error) {
+    }
+
+    private static final class Counter {
+
+        private final String topic;
+        private double weight;
+        private double error;
+
+        private Counter(String topic, double weight, double error) {
+            this.topic = topic;
+            this.weight = weight;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.TrendingTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Ключевые темы новостей по криптовалютам и по всем криптовалютам сразу.
+ * <p>
+ * Слова заголовка и описания каждой новости один раз при сохранении попадают в {@link TopicSketch}
+ * криптовалюты и в общий; упоминания затухают с периодом полураспада {@code news.topics.half-life}.
+ * Память ограничена числом счетчиков ({@code news.topics.capacity} на криптовалюту и
+ * {@code news.topics.global-capacity} на общий) и не растет с числом новостей.
+ */
+@Component
+public class TrendingTopics {
+
+    private static final int MIN_TOPIC_LENGTH = 4;
+
+    private static final Set<String> STOP_WORDS = Set.of("this", "that", "with", "have", "will", "from", "they",
+            "been", "their", "said", "each", "which", "would", "there", "what", "about");
+
+    private final int capacity;
+    private final long halfLifeSeconds;
+    private final Map<String, TopicSketch> byCoin = new ConcurrentHashMap<>();
+    private final TopicSketch global;
+
+    public TrendingTopics(@Value("${news.topics.capacity:64}") int capacity,
+                          @Value("${news.topics.global-capacity:256}") int globalCapacity,
+                          @Value("${news.topics.half-life:6h}") Duration halfLife) {
+        this.capacity = capacity;
+        this.halfLifeSeconds = halfLife.getSeconds();
+        this.global = new TopicSketch(globalCapacity, halfLifeSeconds);
+    }
+
+    /**
+     * Учитывает темы новости. Новости без криптовалюты или даты публикации пропускаются.
+     */
+    public void record(NewsItem newsItem) {
+        if (newsItem.getCryptocurrency() == null || newsItem.getPublishedDate() == null) {
+            return;
+        }
+        TopicSketch coin = byCoin.computeIfAbsent(normalize(newsItem.getCryptocurrency()),
+                key -> new TopicSketch(capacity, halfLifeSeconds));
+        long time = newsItem.getPublishedDate().toEpochSecond(ZoneOffset.UTC);
+        Consumer<String> sink = topic -> {
+            coin.add(topic, time);
+            global.add(topic, time);
+        };
+        forEachTopic(newsItem.getTitle(), sink);
+        forEachTopic(newsItem.getDescription(), sink);
+    }
+
+    /**
+     * До {@code limit} самых упоминаемых в последнее время тем криптовалюты.
+     */
+    public List<String> keyTopics(String cryptocurrency, int limit) {
+        TopicSketch sketch = byCoin.get(normalize(cryptocurrency));
+        if (sketch == null) {
+            return List.of();
+        }
+        return sketch.top(limit, now()).stream().map(TopicSketch.Topic::topic).toList();
+    }
+
+    /**
+     * До {@code limit} самых упоминаемых в последнее время тем по всем криптовалютам,
+     * для каждой - криптовалюты, у которых тема сейчас среди счетчиков.
+     */
+    public List<TrendingTopic> trending(int limit) {
+        List<TrendingTopic> trending = new ArrayList<>();
+        for (TopicSketch.Topic topic : global.top(limit, now())) {
+            List<String> coins = new ArrayList<>();
+            byCoin.forEach((coin, sketch) -> {
+                if (sketch.contains(topic.topic())) {
+                    coins.add(coin);
+                }
+            });
+            coins.sort(null);
+            trending.add(new TrendingTopic(topic.topic(), topic.weight(), coins));
+        }
+        return trending;
+    }
+
+    /**
+     * Слова текста длиннее трех символов, кроме служебных, в нижнем регистре. Слово - непрерывная
+     * последовательность {@code [A-Za-z0-9_]}, как при разбиении по {@code \W+}.
+     */
+    static void forEachTopic(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && isWordChar(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOPIC_LENGTH) {
+                    String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(word)) {
+                        sink.accept(word);
+                    }
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static long now() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String normalize(String cryptocurrency) {
+        return cryptocurrency.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,252 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.config.NewsSourceProperties;
+import com.cryptonews.mcpserver.model.NewsItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Новости из выгрузок RSS/Atom лент на диске.
+ * <p>
+ * Файлы разбираются потоковым StAX парсером и держатся в памяти, пока не изменится их время модификации.
+ * Новость относится к криптовалюте, если тикер или одно из его названий ({@code aliases})
+ * встречается отдельным словом в заголовке, описании или категориях.
+ */
+@Component
+@Order(10)
+@ConditionalOnProperty(prefix = "news.sources.file", name = "enabled", havingValue = "true")
+@Slf4j
+public class FileNewsSource implements NewsSource {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        // Выгрузки приходят извне: DTD и внешние сущности не обрабатываем
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Path path;
+    private final Duration timeout;
+    private final Map<String, List<String>> aliases;
+    private final Map<Path, Feed> feeds = new ConcurrentHashMap<>();
+
+    public FileNewsSource(NewsSourceProperties properties) {
+        NewsSourceProperties.File file = properties.getFile();
+        this.path = file.getPath();
+        this.timeout = file.getTimeout();
+        this.aliases = new ConcurrentHashMap<>();
+        file.getAliases().forEach((ticker, names) -> aliases.put(ticker.toLowerCase(Locale.ROOT),
+                names.stream().map(name -> name.toLowerCase(Locale.ROOT)).toList()));
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    public Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles) {
+        // Чтение файлов блокирующее
+        return Mono.fromCallable(() -> findNews(cryptocurrency, maxArticles))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private List<NewsItem> findNews(String cryptocurrency, int maxArticles) throws IOException {
+        List<String> terms = new ArrayList<>();
+        terms.add(cryptocurrency.toLowerCase(Locale.ROOT));
+        terms.addAll(aliases.getOrDefault(cryptocurrency.toLowerCase(Locale.ROOT), List.of()));
+
+        return feedFiles().stream()
+                .map(this::feed)
+                .flatMap(feed -> feed.entries().stream())
+                .filter(entry -> terms.stream().anyMatch(term -> containsWord(entry.searchText(), term)))
+                .sorted(Comparator.comparing(FeedEntry::published).reversed())
+                .limit(maxArticles)
+                .map(entry -> entry.toNewsItem(cryptocurrency))
+                .toList();
+    }
+
+    private List<Path> feedFiles() throws IOException {
+        if (Files.isRegularFile(path)) {
+            return List.of(path);
+        }
+        if (!Files.isDirectory(path)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                return name.endsWith(".xml") || name.endsWith(".rss") || name.endsWith(".atom");
+            }).toList();
+        }
+    }
+
+    private Feed feed(Path file) {
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            log.warn("Cannot read news feed {}", file, e);
+            return Feed.EMPTY;
+        }
+        return feeds.compute(file, (key, cached) -> cached != null && cached.lastModified() == modified
+                ? cached
+                : new Feed(modified, parse(file, modified)));
+    }
+
+    private List<FeedEntry> parse(Path file, long modified) {
+        LocalDateTime fileTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneId.systemDefault());
+        // Новости без элемента source подписываются именем файла ленты
+        String feedName = file.getFileName().toString().replaceFirst("\\.[^.]+$", "");
+        List<FeedEntry> entries = new ArrayList<>();
+        try (InputStream input = Files.newInputStream(file)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && ("item".equals(reader.getLocalName()) || "entry".equals(reader.getLocalName()))) {
+                        FeedEntry entry = readEntry(reader, reader.getLocalName(), feedName, fileTime);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            log.warn("Failed to parse news feed {}, using {} entries read so far", file, entries.size(), e);
+        }
+        log.info("Loaded {} entries from news feed {}", entries.size(), file);
+        return entries;
+    }
+
+    private FeedEntry readEntry(XMLStreamReader reader, String element, String feedName, LocalDateTime fileTime) throws XMLStreamException {
+        String title = null;
+        String description = null;
+        String link = null;
+        String source = feedName;
+        LocalDateTime published = null;
+        StringBuilder categories = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && element.equals(reader.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "title" -> title = reader.getElementText().trim();
+                case "description", "summary", "content" -> description = reader.getElementText().trim();
+                case "link" -> {
+                    // В RSS ссылка - текст элемента, в Atom - атрибут href
+                    String href = reader.getAttributeValue(null, "href");
+                    String text = reader.getElementText().trim();
+                    link = href != null ? href : text;
+                }
+                case "pubDate", "published", "updated" -> {
+                    LocalDateTime date = parseDate(reader.getElementText().trim());
+                    published = published != null ? published : date;
+                }
+                case "category" -> {
+                    String term = reader.getAttributeValue(null, "term");
+                    categories.append(' ').append(term != null ? term : reader.getElementText());
+                }
+                case "source" -> source = reader.getElementText().trim();
+                default -> {
+                    // Остальные элементы записи не используются
+                }
+            }
+        }
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        String searchText = (title + ' ' + (description != null ? description : "") + categories).toLowerCase(Locale.ROOT);
+        return new FeedEntry(title, description != null ? description : title, link, source,
+                published != null ? published : fileTime, searchText);
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        try {
+            return LocalDateTime.ofInstant(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value, Instant::from),
+                    ZoneId.systemDefault());
+        } catch (DateTimeParseException e) {
+            try {
+                return DateTimeFormatter.ISO_DATE_TIME.parse(value, LocalDateTime::from);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что {@code term} входит в {@code text} отдельным словом, а не частью другого слова.
+     */
+    static boolean containsWord(String text, String term) {
+        int from = 0;
+        int index;
+        while ((index = text.indexOf(term, from)) >= 0) {
+            int end = index + term.length();
+            boolean startsWord = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+            boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+            from = index + 1;
+        }
+        return false;
+    }
+
+    private record Feed(long lastModified, List<FeedEntry> entries) {
+        static final Feed EMPTY = new Feed(-1, List.of());
+    }
+
+    private record FeedEntry(String title, String description, String link, String source,
+                             LocalDateTime published, String searchText) {
+
+        NewsItem toNewsItem(String cryptocurrency) {
+            NewsItem newsItem = new NewsItem();
+            newsItem.setCryptocurrency(cryptocurrency);
+            newsItem.setTitle(title.length() > 500 ? title.substring(0, 497) + "..." : title);
+            newsItem.setDescription(description.length() > 2000 ? description.substring(0, 1997) + "..." : description);
+            newsItem.setUrl(link);
+            newsItem.setSource(source);
+            newsItem.setPublishedDate(published);
+            return newsItem;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Источник новостей для {@link NewsSourceAggregator}. Реализации регистрируются как бины;
+ * порядок бинов ({@link org.springframework.core.annotation.Order}) задает приоритет при удалении дублей.
+ */
+public interface NewsSource {
+
+    /**
+     * Имя источника для логов и метрик.
+     */
+    String name();
+
+    /**
+     * Сколько агрегатор ждет ответа источника.
+     */
+    Duration timeout();
+
+    /**
+     * Последние новости по криптовалюте, не больше {@code maxArticles}. Новости возвращаются без оценки
+     * настроения и не сохраняются; каждый вызов возвращает новые экземпляры {@link NewsItem}.
+     */
+    Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles);
+}
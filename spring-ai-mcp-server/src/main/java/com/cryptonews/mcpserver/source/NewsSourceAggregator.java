@@ -0,0 +1,133 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Опрашивает все включенные {@link NewsSource} параллельно и объединяет их новости.
+ * <p>
+ * Каждый источник ограничен своим {@link NewsSource#timeout()}: упавший или не успевший источник
+ * пропускается, и ответ собирается из остальных. Ошибка возвращается, только если не ответил ни один.
+ * Дубли (одинаковый url или заголовок) удаляются, при совпадении остается новость источника
+ * с более высоким приоритетом. Длительность опроса пишется в {@code news.source.fetch}
+ * с тегами {@code source} и {@code outcome}.
+ */
+@Component
+@Slf4j
+public class NewsSourceAggregator {
+
+    private final List<NewsSource> sources;
+    private final MeterRegistry meterRegistry;
+
+    public NewsSourceAggregator(List<NewsSource> sources, MeterRegistry meterRegistry) {
+        this.sources = List.copyOf(sources);
+        this.meterRegistry = meterRegistry;
+        log.info("News sources enabled: {}", this.sources.stream().map(NewsSource::name).toList());
+    }
+
+    /**
+     * Последние новости по криптовалюте из всех источников, свежие первыми, не больше {@code maxArticles}.
+     */
+    public Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles) {
+        if (sources.isEmpty()) {
+            return Mono.error(new IllegalStateException("No news sources are enabled"));
+        }
+        // flatMapSequential подписывается на все источники сразу, но отдает результаты в порядке приоритета
+        return Flux.fromIterable(sources)
+                .flatMapSequential(source -> fetch(source, cryptocurrency, maxArticles))
+                .collectList()
+                .flatMap(results -> {
+                    List<List<NewsItem>> succeeded = results.stream()
+                            .filter(result -> result.news() != null)
+                            .map(SourceResult::news)
+                            .toList();
+                    if (succeeded.isEmpty()) {
+                        return Mono.error(results.get(0).error());
+                    }
+                    return Mono.just(merge(succeeded, maxArticles));
+                });
+    }
+
+    private Mono<SourceResult> fetch(NewsSource source, String cryptocurrency, int maxArticles) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return source.latestNews(cryptocurrency, maxArticles)
+                    .timeout(source.timeout())
+                    .defaultIfEmpty(List.of())
+                    .map(news -> {
+                        sample.stop(timer(source, "success"));
+                        return new SourceResult(news, null);
+                    })
+                    .onErrorResume(e -> {
+                        boolean timedOut = e instanceof TimeoutException;
+                        sample.stop(timer(source, timedOut ? "timeout" : "error"));
+                        if (timedOut) {
+                            log.warn("News source {} did not answer within {} for {}", source.name(), source.timeout(), cryptocurrency);
+                        } else {
+                            log.warn("News source {} failed for {}: {}", source.name(), cryptocurrency, e.toString());
+                        }
+                        return Mono.just(new SourceResult(null, e));
+                    });
+        });
+    }
+
+    private Timer timer(NewsSource source, String outcome) {
+        return Timer.builder("news.source.fetch")
+                .description("Time to fetch latest news from a news source")
+                .tag("source", source.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    static List<NewsItem> merge(List<List<NewsItem>> results, int maxArticles) {
+        Set<String> seen = new HashSet<>();
+        List<NewsItem> merged = new ArrayList<>();
+        for (List<NewsItem> news : results) {
+            for (NewsItem newsItem : news) {
+                Optional<String> url = Optional.ofNullable(newsItem.getUrl()).filter(value -> !value.isBlank());
+                String title = normalizeTitle(newsItem.getTitle());
+                // Новость - дубль, если совпал хотя бы один из ключей; запоминаем оба
+                boolean duplicate = url.map(value -> seen.contains("url:" + value)).orElse(false)
+                        || seen.contains("title:" + title);
+                url.ifPresent(value -> seen.add("url:" + value));
+                seen.add("title:" + title);
+                if (!duplicate) {
+                    merged.add(newsItem);
+                }
+            }
+        }
+        // Сортировка устойчивая: при равных датах сохраняется порядок источников
+        merged.sort(Comparator.comparing(NewsItem::getPublishedDate, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged.size() > maxArticles ? new ArrayList<>(merged.subList(0, maxArticles)) : merged;
+    }
+
+    private static String normalizeTitle(String title) {
+        if (title == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private record SourceResult(List<NewsItem> news, Throwable error) {
+    }
+}
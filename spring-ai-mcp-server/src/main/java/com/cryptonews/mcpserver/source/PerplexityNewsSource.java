@@ -0,0 +1,44 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.client.PerplexityNewsClient;
+import com.cryptonews.mcpserver.config.NewsSourceProperties;
+import com.cryptonews.mcpserver.model.NewsItem;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Новости из ответа Perplexity.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(prefix = "news.sources.perplexity", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PerplexityNewsSource implements NewsSource {
+
+    private final PerplexityNewsClient perplexityClient;
+    private final Duration timeout;
+
+    public PerplexityNewsSource(PerplexityNewsClient perplexityClient, NewsSourceProperties properties) {
+        this.perplexityClient = perplexityClient;
+        this.timeout = properties.getPerplexity().getTimeout();
+    }
+
+    @Override
+    public String name() {
+        return "perplexity";
+    }
+
+    @Override
+    public Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    public Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles) {
+        return perplexityClient.getCryptoNewsAsync(cryptocurrency, maxArticles);
+    }
+}
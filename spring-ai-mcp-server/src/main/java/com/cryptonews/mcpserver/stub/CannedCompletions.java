@@ -0,0 +1,141 @@
+package com.cryptonews.mcpserver.stub;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Заготовленные ответы на запросы, которые формирует {@code PerplexityNewsClient}.
+ * Тип запроса определяется по его тексту, криптовалюта подставляется в шаблон ответа.
+ */
+final class CannedCompletions {
+
+    private static final Pattern DIGESTS = Pattern.compile("following cryptocurrencies: (.+?), list the (\\d+) most important");
+    private static final Pattern LATEST_NEWS = Pattern.compile("latest (\\d+) news articles about (\\S+) cryptocurrency");
+    private static final Pattern SEARCH = Pattern.compile("recent news about (\\S+) cryptocurrency containing keywords: (.+?)\\. Provide");
+    private static final Pattern SENTIMENT = Pattern.compile("market sentiment for (\\S+) cryptocurrency");
+    private static final Pattern FORECAST = Pattern.compile("trend forecast for (\\S+) cryptocurrency");
+    private static final Pattern EVENTS = Pattern.compile("recent events affecting (\\S+) cryptocurrency");
+    private static final Pattern CORRELATION = Pattern.compile("price movements for (\\S+?)\\.");
+    private static final Pattern COMPARISON = Pattern.compile("following cryptocurrencies: (.+?)\\. Analyze");
+
+    private static final List<String> HEADLINES = List.of(
+            "%s rallies as spot ETF inflows reach a monthly high",
+            "Analysts warn of a possible %s correction after strong gains",
+            "Major exchange lists new %s trading pairs and reports record volume",
+            "Regulators open an investigation into %s market manipulation claims",
+            "%s network upgrade goes live and improves transaction throughput",
+            "Institutional investors increase %s holdings despite volatility",
+            "%s price drops after a large whale transfer to exchanges",
+            "Developers announce a successful %s scalability test",
+            "Hackers exploit a bridge protocol and %s users report losses",
+            "%s adoption grows as payment providers add support");
+
+    private CannedCompletions() {
+    }
+
+    static String completionFor(String prompt) {
+        Matcher matcher;
+        if ((matcher = DIGESTS.matcher(prompt)).find()) {
+            return digests(matcher.group(1).split(",\\s*"), Integer.parseInt(matcher.group(2)));
+        }
+        if ((matcher = LATEST_NEWS.matcher(prompt)).find()) {
+            return headlines(upper(matcher.group(2)), Integer.parseInt(matcher.group(1)), null);
+        }
+        if ((matcher = SEARCH.matcher(prompt)).find()) {
+            return headlines(upper(matcher.group(1)), 3, matcher.group(2));
+        }
+        if ((matcher = SENTIMENT.matcher(prompt)).find()) {
+            String crypto = upper(matcher.group(1));
+            return String.format("Market sentiment for %s is moderately bullish. Social media mentions rose 12%% "
+                    + "week over week, funding rates are positive and exchange outflows continue, "
+                    + "although traders remain cautious ahead of macroeconomic data.", crypto);
+        }
+        if ((matcher = FORECAST.matcher(prompt)).find()) {
+            String crypto = upper(matcher.group(1));
+            return String.format("Short-term forecast for %s: consolidation in a tight range is likely over the next "
+                    + "week. A breakout above the recent high could target a 6-8%% move, while losing support "
+                    + "may lead to a 5%% pullback. Institutional flows remain the key driver.", crypto);
+        }
+        if ((matcher = EVENTS.matcher(prompt)).find()) {
+            String crypto = upper(matcher.group(1));
+            return String.format("Key events for %s: a scheduled network upgrade next month, new ETF filings, "
+                    + "a partnership with a major payment provider and an upcoming regulatory hearing.", crypto);
+        }
+        if ((matcher = CORRELATION.matcher(prompt)).find()) {
+            String crypto = upper(matcher.group(1));
+            return String.format("Sentiment and price for %s show a moderate positive correlation (0.4-0.6) on daily "
+                    + "data. Negative regulatory news has a stronger and faster price impact than positive news.", crypto);
+        }
+        if ((matcher = COMPARISON.matcher(prompt)).find()) {
+            StringBuilder comparison = new StringBuilder("Comparison of ").append(matcher.group(1)).append(":");
+            for (String crypto : matcher.group(1).split(",\\s*")) {
+                comparison.append(String.format(" %s - steady adoption and active development, but exposed to market-wide volatility.",
+                        upper(crypto)));
+            }
+            return comparison.toString();
+        }
+        return "The crypto market is mixed today: majors trade sideways while selected altcoins outperform.";
+    }
+
+    /**
+     * Заголовки заготовленных новостей по криптовалюте, не больше {@code count}.
+     */
+    static List<String> headlineList(String crypto, int count) {
+        return HEADLINES.stream()
+                .limit(Math.max(1, count))
+                .map(headline -> String.format(headline, upper(crypto)))
+                .toList();
+    }
+
+    /**
+     * Новости в том виде, в каком их запрашивает клиент: JSON массив статей.
+     */
+    private static String headlines(String crypto, int count, String keywords) {
+        StringBuilder json = new StringBuilder("[");
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < Math.max(1, Math.min(count, HEADLINES.size())); i++) {
+            String headline = String.format(HEADLINES.get(i), crypto);
+            if (keywords != null) {
+                headline = headline + " amid " + keywords + " discussion";
+            }
+            json.append(i > 0 ? "," : "")
+                    .append("{\"title\":\"").append(escape(headline))
+                    .append("\",\"summary\":\"").append(escape(headline)).append(". Traders watch how the news affects ")
+                    .append(crypto).append(" liquidity and short-term sentiment.")
+                    .append("\",\"source\":\"Crypto Stub Wire\"")
+                    .append(",\"url\":\"https://stub.local/news/").append(crypto.toLowerCase(Locale.ROOT)).append('/').append(i + 1)
+                    .append("\",\"published\":\"").append(today.minusDays(i)).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Пакетный ответ: JSON объект по тикерам, как его запрашивает клиент.
+     */
+    private static String digests(String[] cryptocurrencies, int count) {
+        StringBuilder json = new StringBuilder("{");
+        for (int c = 0; c < cryptocurrencies.length; c++) {
+            String crypto = cryptocurrencies[c].trim();
+            json.append(c > 0 ? "," : "").append('"').append(crypto).append("\":{\"summary\":\"")
+                    .append(String.format("%s trades sideways with steady institutional demand.", upper(crypto)))
+                    .append("\",\"news\":[");
+            for (int i = 0; i < Math.max(1, Math.min(count, HEADLINES.size())); i++) {
+                json.append(i > 0 ? "," : "").append('"')
+                        .append(String.format(HEADLINES.get((i + c) % HEADLINES.size()), upper(crypto))).append('"');
+            }
+            json.append("]}");
+        }
+        return json.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String upper(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
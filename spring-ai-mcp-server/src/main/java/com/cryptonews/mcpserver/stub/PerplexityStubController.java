@@ -0,0 +1,199 @@
+package com.cryptonews.mcpserver.stub;
+
+import com.cryptonews.mcpserver.model.PerplexityRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встроенная замена {@code /chat/completions} Perplexity для нагрузочных тестов без сети.
+ * <p>
+ * Включается свойством {@code perplexity.stub.enabled} (профиль {@code stub}); клиент направляется
+ * на нее через {@code perplexity.api.url}. Отвечает заготовленными новостями и аналитикой
+ * с настраиваемой задержкой, долей ошибок 5xx и ответов 429, поддерживает {@code stream=true}.
+ */
+@RestController
+@RequestMapping("/perplexity-stub")
+@ConditionalOnProperty(prefix = "perplexity.stub", name = "enabled", havingValue = "true")
+@Slf4j
+public class PerplexityStubController {
+
+    // z-оценка 99-го перцентиля стандартного нормального распределения
+    private static final double Z_99 = 2.3263;
+
+    private final PerplexityStubProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong completionIds = new AtomicLong();
+
+    public PerplexityStubController(PerplexityStubProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        log.warn("Perplexity stub is enabled: /perplexity-stub/chat/completions serves canned completions");
+    }
+
+    @PostMapping(value = "/chat/completions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ObjectNode>> completion(@RequestBody PerplexityRequest request) {
+        HttpStatus failure = injectedFailure();
+        return Mono.delay(sampleLatency()).map(tick -> {
+            if (failure != null) {
+                return failureResponse(failure, errorBody(failure));
+            }
+            String id = nextId();
+            String content = CannedCompletions.completionFor(prompt(request));
+            ObjectNode message = objectMapper.createObjectNode()
+                    .put("role", "assistant")
+                    .put("content", content);
+            ObjectNode choice = objectMapper.createObjectNode().put("index", 0).put("finish_reason", "stop");
+            choice.set("message", message);
+            ObjectNode body = objectMapper.createObjectNode()
+                    .put("id", id)
+                    .put("model", request.model())
+                    .put("object", "chat.completion")
+                    .put("created", System.currentTimeMillis() / 1000);
+            body.putArray("choices").add(choice);
+            body.set("usage", usage(prompt(request), content));
+            return ResponseEntity.ok(body);
+        });
+    }
+
+    /**
+     * Потоковый ответ: фрагменты по {@code stream-chunk-size} символов с интервалом
+     * {@code stream-chunk-interval}, в конце {@code [DONE]}. Ошибки возвращаются статусом
+     * до начала потока, как у настоящего API.
+     */
+    @PostMapping(value = "/chat/completions", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamCompletion(@RequestBody PerplexityRequest request) {
+        HttpStatus failure = injectedFailure();
+        if (failure != null) {
+            return failureResponse(failure, Flux.empty());
+        }
+
+        String id = nextId();
+        String content = CannedCompletions.completionFor(prompt(request));
+        List<String> chunks = split(content, properties.getStreamChunkSize());
+        // Как и настоящий API, расход токенов передаем в последнем фрагменте
+        ObjectNode usage = usage(prompt(request), content);
+        Flux<ServerSentEvent<String>> events = Flux.range(0, chunks.size())
+                .delayElements(properties.getStreamChunkInterval())
+                .map(i -> ServerSentEvent.builder(chunk(id, request.model(), chunks.get(i),
+                        i == chunks.size() - 1 ? usage : null)).build())
+                .concatWithValues(ServerSentEvent.builder("[DONE]").build());
+        return ResponseEntity.ok(Mono.delay(sampleLatency()).thenMany(events));
+    }
+
+    private HttpStatus injectedFailure() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < properties.getRateLimitRate()) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+        if (roll < properties.getRateLimitRate() + properties.getErrorRate()) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return null;
+    }
+
+    private <T> ResponseEntity<T> failureResponse(HttpStatus status, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (status == HttpStatus.TOO_MANY_REQUESTS) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+        }
+        return response.body(body);
+    }
+
+    private ObjectNode errorBody(HttpStatus status) {
+        ObjectNode error = objectMapper.createObjectNode()
+                .put("message", status == HttpStatus.TOO_MANY_REQUESTS ? "Rate limit exceeded" : "Upstream overloaded")
+                .put("code", status.value());
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("error", error);
+        return body;
+    }
+
+    Duration sampleLatency() {
+        PerplexityStubProperties.Latency latency = properties.getLatency();
+        long minNanos = latency.getMin().toNanos();
+        long medianNanos = Math.max(1, latency.getMedian().toNanos());
+        long p99Nanos = Math.max(medianNanos, latency.getP99().toNanos());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nanos = switch (latency.getDistribution()) {
+            case FIXED -> medianNanos;
+            case UNIFORM -> minNanos + (long) (random.nextDouble() * Math.max(0, p99Nanos - minNanos));
+            case LOG_NORMAL -> {
+                double sigma = Math.log((double) p99Nanos / medianNanos) / Z_99;
+                yield Math.max(minNanos, (long) (medianNanos * Math.exp(sigma * random.nextGaussian())));
+            }
+        };
+        return Duration.ofNanos(nanos);
+    }
+
+    private String chunk(String id, String model, String content, ObjectNode usage) {
+        ObjectNode delta = objectMapper.createObjectNode().put("content", content);
+        ObjectNode choice = objectMapper.createObjectNode().put("index", 0);
+        choice.set("delta", delta);
+        choice.put("finish_reason", usage != null ? "stop" : null);
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("model", model)
+                .put("object", "chat.completion.chunk");
+        body.putArray("choices").add(choice);
+        if (usage != null) {
+            body.set("usage", usage);
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize stub chunk", e);
+        }
+    }
+
+    /**
+     * Приблизительный расход токенов: около четырех символов английского текста на токен.
+     */
+    private ObjectNode usage(String prompt, String content) {
+        int promptTokens = Math.max(1, prompt.length() / 4);
+        int completionTokens = Math.max(1, content.length() / 4);
+        return objectMapper.createObjectNode()
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static List<String> split(String content, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        List<String> chunks = new ArrayList<>();
+        for (int start = 0; start < content.length(); start += size) {
+            chunks.add(content.substring(start, Math.min(content.length(), start + size)));
+        }
+        return chunks;
+    }
+
+    private static String prompt(PerplexityRequest request) {
+        if (request.messages() == null || request.messages().isEmpty()) {
+            return "";
+        }
+        return request.messages().get(request.messages().size() - 1).content();
+    }
+
+    private String nextId() {
+        return "stub-" + completionIds.incrementAndGet();
+    }
+}
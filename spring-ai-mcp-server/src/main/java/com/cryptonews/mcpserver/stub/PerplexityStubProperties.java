@@ -0,0 +1,40 @@
+package com.cryptonews.mcpserver.stub;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки встроенной замены Perplexity API: задержки, доля ошибок и 429, параметры потоковой выдачи.
+ */
+@Component
+@ConfigurationProperties(prefix = "perplexity.stub")
+@Data
+public class PerplexityStubProperties {
+
+    public enum Distribution { FIXED, UNIFORM, LOG_NORMAL }
+
+    private boolean enabled;
+    private final Latency latency = new Latency();
+    // Доли запросов, на которые отвечаем 5xx и 429
+    private double errorRate = 0.0;
+    private double rateLimitRate = 0.0;
+    private int retryAfterSeconds = 1;
+    private int streamChunkSize = 24;
+    private Duration streamChunkInterval = Duration.ofMillis(40);
+
+    /**
+     * Задержка до ответа (для потоковых запросов - до первого фрагмента).
+     * FIXED всегда отвечает за {@code median}, UNIFORM - равномерно от {@code min} до {@code p99},
+     * LOG_NORMAL - логнормально с заданными медианой и 99-м перцентилем, но не быстрее {@code min}.
+     */
+    @Data
+    public static class Latency {
+        private Distribution distribution = Distribution.LOG_NORMAL;
+        private Duration min = Duration.ofMillis(50);
+        private Duration median = Duration.ofMillis(400);
+        private Duration p99 = Duration.ofMillis(2500);
+    }
+}
@@ -0,0 +1,61 @@
+package com.cryptonews.mcpserver.stub;
+
+import com.cryptonews.mcpserver.config.NewsSourceProperties;
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.source.NewsSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Локальный источник заготовленных новостей: работает без сети и без заглушки Perplexity.
+ * Включается свойством {@code news.sources.stub.enabled}.
+ */
+@Component
+@Order(20)
+@ConditionalOnProperty(prefix = "news.sources.stub", name = "enabled", havingValue = "true")
+public class StubNewsSource implements NewsSource {
+
+    private final Duration timeout;
+
+    public StubNewsSource(NewsSourceProperties properties) {
+        this.timeout = properties.getStub().getTimeout();
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    public Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles) {
+        return Mono.fromSupplier(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> headlines = CannedCompletions.headlineList(cryptocurrency, maxArticles);
+            List<NewsItem> news = new ArrayList<>(headlines.size());
+            for (int i = 0; i < headlines.size(); i++) {
+                NewsItem newsItem = new NewsItem();
+                newsItem.setCryptocurrency(cryptocurrency);
+                newsItem.setTitle(headlines.get(i));
+                newsItem.setDescription(headlines.get(i));
+                newsItem.setSource("Crypto Stub Wire");
+                newsItem.setUrl("https://stub.local/news/" + cryptocurrency.toLowerCase(Locale.ROOT) + "/" + (i + 1));
+                newsItem.setPublishedDate(now.minusHours(i));
+                news.add(newsItem);
+            }
+            return news;
+        });
+    }
+}
@@ -1,7 +1,6 @@
 package com.cryptonews.mcpserver.tools;
 
-import com.cryptonews.mcpserver.model.CryptoAnalytics;
-import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.client.UpstreamContext;
 import com.cryptonews.mcpserver.service.NewsAnalyticsService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,12 +8,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 /**
  * MCP инструменты для анализа криптовалютных новостей.
  * Предоставляет набор функций для Claude Desktop и других MCP клиентов.
+ * <p>
+ * Каждый инструмент имеет неблокирующий вариант с суффиксом {@code Async}, который используют
+ * HTTP транспорт и другие реактивные вызывающие стороны; методы с {@link Tool} блокируются на нем.
  */
 @Component
 @Slf4j
@@ -24,9 +28,10 @@ public class CryptoNewsTools {
     private final ObjectMapper objectMapper;
 
     @Autowired
-    public CryptoNewsTools(NewsAnalyticsService analyticsService) {
+    public CryptoNewsTools(NewsAnalyticsService analyticsService, ObjectMapper objectMapper) {
         this.analyticsService = analyticsService;
-        this.objectMapper = new ObjectMapper();
+        // Общий ObjectMapper из JacksonConfig: новости содержат LocalDateTime
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -34,17 +39,21 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getLatestCryptoNews", description = "Retrieves the latest news articles for a specified cryptocurrency with sentiment analysis")
     public String getLatestCryptoNews(String cryptocurrency, Integer maxArticles) {
-        try {
-            log.info("Getting latest news for: {} (max: {})", cryptocurrency, maxArticles);
-            List<NewsItem> news = analyticsService.getLatestCryptoNews(cryptocurrency, maxArticles != null ? maxArticles : 10);
-            return objectMapper.writeValueAsString(news);
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing latest news response", e);
-            return "{\"error\": \"Failed to retrieve latest news\"}";
-        } catch (Exception e) {
-            log.error("Error getting latest news", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getLatestCryptoNewsAsync(cryptocurrency, maxArticles).block();
+    }
+
+    public Mono<String> getLatestCryptoNewsAsync(String cryptocurrency, Integer maxArticles) {
+        log.info("Getting latest news for: {} (max: {})", cryptocurrency, maxArticles);
+        int articles = maxArticles != null ? maxArticles : 10;
+        // Дедлайн оборачивает кэшируемый метод снаружи, поэтому распространяется и на ответ из кэша;
+        // отмена по дедлайну доходит до запроса к Perplexity
+        return UpstreamContext.withinDeadline(analyticsService.getLatestCryptoNewsAsync(cryptocurrency, articles),
+                        () -> analyticsService.getStoredNewsAsync(cryptocurrency, articles))
+                .map(news -> toJson(news, "Failed to retrieve latest news"))
+                .onErrorResume(e -> {
+                    log.error("Error getting latest news", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -52,17 +61,19 @@ public class CryptoNewsTools {
      */
     @Tool(name = "analyzeCryptocurrency", description = "Performs comprehensive analysis of cryptocurrency including sentiment analysis, trends, and market insights over a specified time period")
     public String analyzeCryptocurrency(String cryptocurrency, String timeRange) {
-        try {
-            log.info("Analyzing cryptocurrency: {} over {}", cryptocurrency, timeRange);
-            CryptoAnalytics analytics = analyticsService.analyzeCryptocurrency(cryptocurrency, timeRange != null ? timeRange : "24 hours");
-            return objectMapper.writeValueAsString(analytics);
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing cryptocurrency analysis response", e);
-            return "{\"error\": \"Failed to analyze cryptocurrency\"}";
-        } catch (Exception e) {
-            log.error("Error analyzing cryptocurrency", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return analyzeCryptocurrencyAsync(cryptocurrency, timeRange).block();
+    }
+
+    public Mono<String> analyzeCryptocurrencyAsync(String cryptocurrency, String timeRange) {
+        log.info("Analyzing cryptocurrency: {} over {}", cryptocurrency, timeRange);
+        String range = timeRange != null ? timeRange : "24 hours";
+        return UpstreamContext.withinDeadline(analyticsService.analyzeCryptocurrencyAsync(cryptocurrency, range),
+                        () -> analyticsService.analyzeStoredNewsAsync(cryptocurrency, range))
+                .map(analytics -> toJson(analytics, "Failed to analyze cryptocurrency"))
+                .onErrorResume(e -> {
+                    log.error("Error analyzing cryptocurrency", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -70,13 +81,16 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getMarketSentiment", description = "Analyzes overall market sentiment for a cryptocurrency over a specified time range")
     public String getMarketSentiment(String cryptocurrency, String timeRange) {
-        try {
-            log.info("Getting market sentiment for: {} over {}", cryptocurrency, timeRange);
-            return analyticsService.getMarketSentiment(cryptocurrency, timeRange != null ? timeRange : "24 hours");
-        } catch (Exception e) {
-            log.error("Error getting market sentiment", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getMarketSentimentAsync(cryptocurrency, timeRange).block();
+    }
+
+    public Mono<String> getMarketSentimentAsync(String cryptocurrency, String timeRange) {
+        log.info("Getting market sentiment for: {} over {}", cryptocurrency, timeRange);
+        return analyticsService.getMarketSentimentAsync(cryptocurrency, timeRange != null ? timeRange : "24 hours")
+                .onErrorResume(e -> {
+                    log.error("Error getting market sentiment", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -84,14 +98,30 @@ public class CryptoNewsTools {
      */
     @Tool(name = "compareCryptocurrencies", description = "Compares multiple cryptocurrencies based on recent market performance, news sentiment, and key developments")
     public String compareCryptocurrencies(String cryptocurrencies) {
-        try {
-            log.info("Comparing cryptocurrencies: {}", cryptocurrencies);
-            List<String> cryptoList = List.of(cryptocurrencies.split(","));
-            return analyticsService.compareCryptocurrencies(cryptoList);
-        } catch (Exception e) {
-            log.error("Error comparing cryptocurrencies", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return compareCryptocurrenciesAsync(cryptocurrencies).block();
+    }
+
+    public Mono<String> compareCryptocurrenciesAsync(String cryptocurrencies) {
+        log.info("Comparing cryptocurrencies: {}", cryptocurrencies);
+        return Mono.fromSupplier(() -> List.of(cryptocurrencies.split(",")))
+                .flatMap(analyticsService::compareCryptocurrenciesAsync)
+                .onErrorResume(e -> {
+                    log.error("Error comparing cryptocurrencies", e);
+                    return Mono.just(errorJson(e));
+                });
+    }
+
+    /**
+     * Потоковый вариант сравнения: фрагменты текста по мере их генерации моделью.
+     */
+    public Flux<String> streamComparison(String cryptocurrencies) {
+        log.info("Streaming comparison of cryptocurrencies: {}", cryptocurrencies);
+        return Mono.fromSupplier(() -> List.of(cryptocurrencies.split(",")))
+                .flatMapMany(analyticsService::streamComparison)
+                .onErrorResume(e -> {
+                    log.error("Error streaming cryptocurrency comparison", e);
+                    return Flux.just(errorJson(e));
+                });
     }
 
     /**
@@ -99,17 +129,17 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getPositiveNews", description = "Retrieves news articles with positive sentiment for a specified cryptocurrency")
     public String getPositiveNews(String cryptocurrency, Integer limit) {
-        try {
-            log.info("Getting positive news for: {} (limit: {})", cryptocurrency, limit);
-            List<NewsItem> news = analyticsService.getPositiveNews(cryptocurrency, limit != null ? limit : 10);
-            return objectMapper.writeValueAsString(news);
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing positive news response", e);
-            return "{\"error\": \"Failed to retrieve positive news\"}";
-        } catch (Exception e) {
-            log.error("Error getting positive news", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getPositiveNewsAsync(cryptocurrency, limit).block();
+    }
+
+    public Mono<String> getPositiveNewsAsync(String cryptocurrency, Integer limit) {
+        log.info("Getting positive news for: {} (limit: {})", cryptocurrency, limit);
+        return analyticsService.getPositiveNewsAsync(cryptocurrency, limit != null ? limit : 10)
+                .map(news -> toJson(news, "Failed to retrieve positive news"))
+                .onErrorResume(e -> {
+                    log.error("Error getting positive news", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -117,17 +147,17 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getNegativeNews", description = "Retrieves news articles with negative sentiment for a specified cryptocurrency")
     public String getNegativeNews(String cryptocurrency, Integer limit) {
-        try {
-            log.info("Getting negative news for: {} (limit: {})", cryptocurrency, limit);
-            List<NewsItem> news = analyticsService.getNegativeNews(cryptocurrency, limit != null ? limit : 10);
-            return objectMapper.writeValueAsString(news);
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing negative news response", e);
-            return "{\"error\": \"Failed to retrieve negative news\"}";
-        } catch (Exception e) {
-            log.error("Error getting negative news", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getNegativeNewsAsync(cryptocurrency, limit).block();
+    }
+
+    public Mono<String> getNegativeNewsAsync(String cryptocurrency, Integer limit) {
+        log.info("Getting negative news for: {} (limit: {})", cryptocurrency, limit);
+        return analyticsService.getNegativeNewsAsync(cryptocurrency, limit != null ? limit : 10)
+                .map(news -> toJson(news, "Failed to retrieve negative news"))
+                .onErrorResume(e -> {
+                    log.error("Error getting negative news", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -135,13 +165,28 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getTrendForecast", description = "Provides short-term trend forecast for a cryptocurrency based on recent news and market analysis")
     public String getTrendForecast(String cryptocurrency) {
-        try {
-            log.info("Getting trend forecast for: {}", cryptocurrency);
-            return analyticsService.getTrendForecast(cryptocurrency);
-        } catch (Exception e) {
-            log.error("Error getting trend forecast", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getTrendForecastAsync(cryptocurrency).block();
+    }
+
+    public Mono<String> getTrendForecastAsync(String cryptocurrency) {
+        log.info("Getting trend forecast for: {}", cryptocurrency);
+        return analyticsService.getTrendForecastAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error getting trend forecast", e);
+                    return Mono.just(errorJson(e));
+                });
+    }
+
+    /**
+     * Потоковый вариант прогноза трендов: фрагменты текста по мере их генерации моделью.
+     */
+    public Flux<String> streamTrendForecast(String cryptocurrency) {
+        log.info("Streaming trend forecast for: {}", cryptocurrency);
+        return analyticsService.streamTrendForecast(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error streaming trend forecast", e);
+                    return Flux.just(errorJson(e));
+                });
     }
 
     /**
@@ -149,17 +194,17 @@ public class CryptoNewsTools {
      */
     @Tool(name = "searchCryptoNews", description = "Searches for cryptocurrency news articles containing specific keywords or topics")
     public String searchCryptoNews(String cryptocurrency, String keywords) {
-        try {
-            log.info("Searching crypto news for: {} with keywords: {}", cryptocurrency, keywords);
-            List<NewsItem> news = analyticsService.searchCryptoNews(cryptocurrency, keywords);
-            return objectMapper.writeValueAsString(news);
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing search news response", e);
-            return "{\"error\": \"Failed to search crypto news\"}";
-        } catch (Exception e) {
-            log.error("Error searching crypto news", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return searchCryptoNewsAsync(cryptocurrency, keywords).block();
+    }
+
+    public Mono<String> searchCryptoNewsAsync(String cryptocurrency, String keywords) {
+        log.info("Searching crypto news for: {} with keywords: {}", cryptocurrency, keywords);
+        return analyticsService.searchCryptoNewsAsync(cryptocurrency, keywords)
+                .map(news -> toJson(news, "Failed to search crypto news"))
+                .onErrorResume(e -> {
+                    log.error("Error searching crypto news", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -167,13 +212,16 @@ public class CryptoNewsTools {
      */
     @Tool(name = "getMarketMovingEvents", description = "Identifies recent significant events and news that have impacted or are likely to impact the cryptocurrency market")
     public String getMarketMovingEvents(String cryptocurrency) {
-        try {
-            log.info("Getting market moving events for: {}", cryptocurrency);
-            return analyticsService.getMarketMovingEvents(cryptocurrency);
-        } catch (Exception e) {
-            log.error("Error getting market moving events", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return getMarketMovingEventsAsync(cryptocurrency).block();
+    }
+
+    public Mono<String> getMarketMovingEventsAsync(String cryptocurrency) {
+        log.info("Getting market moving events for: {}", cryptocurrency);
+        return analyticsService.getMarketMovingEventsAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error getting market moving events", e);
+                    return Mono.just(errorJson(e));
+                });
     }
 
     /**
@@ -181,12 +229,46 @@ public class CryptoNewsTools {
      */
     @Tool(name = "analyzeSentimentPriceCorrelation", description = "Analyzes the correlation between news sentiment and price movements for a cryptocurrency")
     public String analyzeSentimentPriceCorrelation(String cryptocurrency) {
+        return analyzeSentimentPriceCorrelationAsync(cryptocurrency).block();
+    }
+
+    public Mono<String> analyzeSentimentPriceCorrelationAsync(String cryptocurrency) {
+        log.info("Analyzing sentiment-price correlation for: {}", cryptocurrency);
+        return analyticsService.analyzeSentimentPriceCorrelationAsync(cryptocurrency)
+                .onErrorResume(e -> {
+                    log.error("Error analyzing sentiment-price correlation", e);
+                    return Mono.just(errorJson(e));
+                });
+    }
+
+    /**
+     * Самые обсуждаемые темы новостей по всем криптовалютам.
+     */
+    @Tool(name = "getTrendingTopics", description = "Lists the most discussed news topics across all tracked cryptocurrencies, weighted toward recent news")
+    public String getTrendingTopics(Integer limit) {
+        return getTrendingTopicsAsync(limit).block();
+    }
+
+    public Mono<String> getTrendingTopicsAsync(Integer limit) {
+        log.info("Getting trending topics (limit: {})", limit);
+        return analyticsService.getTrendingTopicsAsync(limit)
+                .map(topics -> toJson(topics, "Failed to retrieve trending topics"))
+                .onErrorResume(e -> {
+                    log.error("Error getting trending topics", e);
+                    return Mono.just(errorJson(e));
+                });
+    }
+
+    private String toJson(Object value, String errorMessage) {
         try {
-            log.info("Analyzing sentiment-price correlation for: {}", cryptocurrency);
-            return analyticsService.analyzeSentimentPriceCorrelation(cryptocurrency);
-        } catch (Exception e) {
-            log.error("Error analyzing sentiment-price correlation", e);
-            return "{\"error\": \"" + e.getMessage() + "\"}";
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing tool response", e);
+            return "{\"error\": \"" + errorMessage + "\"}";
         }
     }
+
+    private String errorJson(Throwable e) {
+        return "{\"error\": \"" + e.getMessage() + "\"}";
+    }
 }
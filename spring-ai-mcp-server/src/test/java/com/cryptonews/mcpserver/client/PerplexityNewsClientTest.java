@@ -1,22 +1,37 @@
 package com.cryptonews.mcpserver.client;
 
 import com.cryptonews.mcpserver.client.dto.PerplexitySearchResponse;
+import com.cryptonews.mcpserver.config.UpstreamHttpClientProperties;
+import com.cryptonews.mcpserver.exception.DeadlineExceededException;
 import com.cryptonews.mcpserver.model.NewsResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +62,7 @@ public class PerplexityNewsClientTest {
         // Given
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri("/chat/completions")).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(anyString(), anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.body(any(BodyInserter.class))).thenReturn(requestBodySpec);
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
         PerplexitySearchResponse mockResponse = new PerplexitySearchResponse(
@@ -66,4 +82,131 @@ public class PerplexityNewsClientTest {
                 })
                 .verifyComplete();
     }
-} 
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamCompletion() {
+        // Given
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri("/chat/completions")).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(anyString(), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any(BodyInserter.class))).thenReturn(requestBodySpec);
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToFlux(any(ParameterizedTypeReference.class))).thenReturn(Flux.just(
+                ServerSentEvent.builder("{\"choices\":[{\"delta\":{\"role\":\"assistant\",\"content\":\"BTC \"}}]}").build(),
+                ServerSentEvent.builder("{\"choices\":[{\"delta\":{\"content\":\"up\"},\"finish_reason\":\"stop\"}]}").build(),
+                ServerSentEvent.builder("[DONE]").build()
+        ));
+
+        // When
+        Flux<String> result = perplexityNewsClient.streamCompletion("test query");
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext("BTC ", "up")
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPromptMetricsAreRecordedPerTemplate() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PerplexityNewsClient client = new PerplexityNewsClient(webClient, meterRegistry);
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri("/chat/completions")).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(anyString(), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any(BodyInserter.class))).thenReturn(requestBodySpec);
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        PerplexitySearchResponse mockResponse = new PerplexitySearchResponse(
+                List.of(new PerplexitySearchResponse.Choice(new PerplexitySearchResponse.Message("assistant", "Bullish"))),
+                new PerplexitySearchResponse.Usage(40, 2, 42));
+        when(responseSpec.bodyToMono(PerplexitySearchResponse.class))
+                .thenReturn(Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null)))
+                .thenReturn(Mono.just(mockResponse));
+
+        // When
+        String result = client.analyzeMarketSentimentAsync("BTC", "24 hours").block();
+
+        // Then
+        assertThat(result).isEqualTo("Bullish");
+        assertThat(meterRegistry.get("perplexity.prompt.retries").tag("template", "market-sentiment").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("perplexity.prompt.latency")
+                .tags("template", "market-sentiment", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("perplexity.prompt.tokens")
+                .tags("template", "market-sentiment", "type", "total").summary().totalAmount()).isEqualTo(42.0);
+        assertThat(meterRegistry.get("perplexity.prompt.response.size")
+                .tag("template", "market-sentiment").summary().totalAmount()).isEqualTo(7.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpstreamRequestIsCancelledWhenDeadlineExpires() {
+        // Given
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri("/chat/completions")).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(anyString(), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any(BodyInserter.class))).thenReturn(requestBodySpec);
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(PerplexitySearchResponse.class))
+                .thenReturn(Mono.<PerplexitySearchResponse>never().doOnCancel(() -> cancelled.set(true)));
+
+        // When
+        Mono<String> result = perplexityNewsClient.getTrendForecastAsync("BTC")
+                .contextWrite(UpstreamContext.of("getTrendForecast", "client", Instant.now().plusMillis(200)));
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+        assertThat(cancelled.get()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueuedCallDoesNotHoldHalfOpenTrial() throws Exception {
+        // Given: один слот ограничителя и один пробный вызов полуоткрытого breaker
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter("perplexity", 1000, 1000, 1, registry);
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker("perplexity", 2, 2, 0.5, Duration.ofMillis(50), 1, registry);
+        PerplexityNewsClient client = new PerplexityNewsClient(webClient, "key", "model", limiter, breaker,
+                PromptResponseStore.disabled(registry), new UpstreamHttpClientProperties(), registry);
+        Sinks.One<PerplexitySearchResponse> first = Sinks.one();
+        Sinks.One<PerplexitySearchResponse> queued = Sinks.one();
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri("/chat/completions")).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(anyString(), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any(BodyInserter.class))).thenReturn(requestBodySpec);
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(PerplexitySearchResponse.class)).thenReturn(first.asMono(), queued.asMono());
+
+        // Первый запрос занимает слот, затем breaker размыкается и его пауза истекает
+        CompletableFuture<String> firstResult = client.complete("first").toFuture();
+        for (int i = 0; i < 2; i++) {
+            breaker.execute(() -> Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null)))
+                    .onErrorComplete()
+                    .block();
+        }
+        Thread.sleep(80);
+
+        // When: второй запрос ждет слот в очереди ограничителя
+        CompletableFuture<String> queuedResult = client.complete("queued").toFuture();
+        assertThat(limiter.queuedCount()).isEqualTo(1);
+        String trial = breaker.execute(() -> Mono.just("trial")).block();
+
+        // Then: пробный вызов достался запросу, который действительно дошел до API
+        assertThat(trial).isEqualTo("trial");
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+        first.tryEmitValue(response("first answer"));
+        queued.tryEmitValue(response("queued answer"));
+        assertThat(firstResult.get(5, TimeUnit.SECONDS)).isEqualTo("first answer");
+        assertThat(queuedResult.get(5, TimeUnit.SECONDS)).isEqualTo("queued answer");
+    }
+
+    private static PerplexitySearchResponse response(String content) {
+        return new PerplexitySearchResponse(
+                List.of(new PerplexitySearchResponse.Choice(new PerplexitySearchResponse.Message("assistant", content))));
+    }
+}
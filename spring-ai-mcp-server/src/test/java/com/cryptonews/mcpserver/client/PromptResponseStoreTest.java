@@ -0,0 +1,89 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromptResponseStoreTest {
+
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecordedResponsesSurviveReopen() throws IOException {
+        // Given
+        Path file = tempDir.resolve("prompts.log");
+        String key = RequestCoalescer.key("sonar", "Latest BTC news");
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.RECORD, file, Duration.ofHours(1))) {
+            store.append(key, "Bitcoin ETF inflows\nReuters\nhttps://example.com");
+            store.append(RequestCoalescer.key("sonar", "ETH"), "Ethereum upgrade");
+            // Запись после отображения файла должна находиться без переоткрытия
+            assertThat(store.lookup(key)).contains("Bitcoin ETF inflows\nReuters\nhttps://example.com");
+        }
+
+        // When
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.REPLAY, file, Duration.ofHours(1))) {
+            // Then
+            assertThat(store.lookup(RequestCoalescer.key("sonar", "  latest btc NEWS"))).contains(
+                    "Bitcoin ETF inflows\nReuters\nhttps://example.com");
+            assertThat(store.lookup(RequestCoalescer.key("sonar", "ETH"))).contains("Ethereum upgrade");
+            assertThat(store.lookup(RequestCoalescer.key("other-model", "ETH"))).isEmpty();
+        }
+    }
+
+    @Test
+    public void testTruncatedTailIsDiscarded() throws IOException {
+        // Given
+        Path file = tempDir.resolve("prompts.log");
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.RECORD, file, Duration.ofHours(1))) {
+            store.append("first", "kept");
+            store.append("second", "torn");
+        }
+        long size = Files.size(file);
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        // When
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.RECORD, file, Duration.ofHours(1))) {
+            store.append("third", "appended after recovery");
+
+            // Then
+            assertThat(store.lookup("first")).contains("kept");
+            assertThat(store.lookup("second")).isEmpty();
+            assertThat(store.lookup("third")).contains("appended after recovery");
+        }
+    }
+
+    @Test
+    public void testExpiredResponsesAreIgnoredOnlyInRecordMode() throws IOException, InterruptedException {
+        // Given
+        Path file = tempDir.resolve("prompts.log");
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.RECORD, file, Duration.ofMillis(1))) {
+            store.append("query", "old answer");
+            Thread.sleep(5);
+
+            // When / Then
+            assertThat(store.lookup("query")).isEmpty();
+        }
+        try (PromptResponseStore store = open(PromptResponseStore.Mode.REPLAY, file, Duration.ofMillis(1))) {
+            assertThat(store.lookup("query")).contains("old answer");
+            store.append("query", "ignored in replay");
+            assertThat(store.lookup("query")).contains("old answer");
+        }
+    }
+
+    private PromptResponseStore open(PromptResponseStore.Mode mode, Path file, Duration ttl) {
+        return PromptResponseStore.open(mode, file, ttl, MAX_FILE_SIZE, new SimpleMeterRegistry());
+    }
+}
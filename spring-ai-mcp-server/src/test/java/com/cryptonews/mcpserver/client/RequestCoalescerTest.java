@@ -0,0 +1,108 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer<String> coalescer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer<>("test", meterRegistry);
+    }
+
+    @Test
+    public void testConcurrentIdenticalCallsShareOneUpstreamRequest() {
+        // Given
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        String key = RequestCoalescer.key("sonar", "Latest BTC news");
+
+        Mono<String> first = coalescer.coalesce(key, () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<String> second = coalescer.coalesce(RequestCoalescer.key("sonar", "  latest   btc NEWS "), () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        // When
+        CompletableFuture<String> firstResult = first.toFuture();
+        CompletableFuture<String> secondResult = second.toFuture();
+        upstream.tryEmitValue("answer");
+
+        // Then
+        assertThat(firstResult.join()).isEqualTo("answer");
+        assertThat(secondResult.join()).isEqualTo("answer");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(meterRegistry.get("test.coalescer.calls").tag("result", "coalesced").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("test.coalescer.calls").tag("result", "leader").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCompletedRequestIsNotReused() {
+        // Given
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        String key = RequestCoalescer.key("sonar", "query");
+
+        // When
+        coalescer.coalesce(key, () -> Mono.just("answer-" + upstreamCalls.incrementAndGet())).block();
+        String second = coalescer.coalesce(key, () -> Mono.just("answer-" + upstreamCalls.incrementAndGet())).block();
+
+        // Then
+        assertThat(second).isEqualTo("answer-2");
+    }
+
+    @Test
+    public void testUpstreamIsCancelledWhenAllCallersLeave() {
+        // Given
+        AtomicBoolean cancelled = new AtomicBoolean();
+        String key = RequestCoalescer.key("sonar", "slow query");
+        Mono<String> slowUpstream = Mono.<String>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = coalescer.coalesce(key, () -> slowUpstream).subscribe();
+        Disposable second = coalescer.coalesce(key, () -> slowUpstream).subscribe();
+
+        // When
+        first.dispose();
+        assertThat(cancelled.get()).isFalse();
+        second.dispose();
+
+        // Then
+        assertThat(cancelled.get()).isTrue();
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    public void testErrorIsDeliveredToAllCallers() {
+        // Given
+        Sinks.One<String> upstream = Sinks.one();
+        String key = RequestCoalescer.key("sonar", "failing query");
+
+        Mono<String> first = coalescer.coalesce(key, upstream::asMono);
+        Mono<String> second = coalescer.coalesce(key, upstream::asMono);
+
+        // When / Then
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitError(new IllegalStateException("boom")))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+}
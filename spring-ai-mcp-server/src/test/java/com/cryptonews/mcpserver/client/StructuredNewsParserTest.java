@@ -0,0 +1,84 @@
+package com.cryptonews.mcpserver.client;
+
+import com.cryptonews.mcpserver.exception.PerplexityApiException;
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StructuredNewsParserTest {
+
+    private final StructuredNewsParser parser = new StructuredNewsParser(new JsonFactory());
+
+    @Test
+    public void testParsesArticlesWrappedInMarkdown() {
+        // Given
+        String content = """
+                Here are the latest articles:
+                ```json
+                [
+                  {"title": "Bitcoin ETF inflows hit a record. Analysts expect more", "summary": "Spot ETFs took in $1B.",
+                   "source": "CoinDesk", "url": "https://example.com/1", "published": "2024-05-01T10:15:00Z",
+                   "tags": ["etf", {"nested": true}], "score": 0.9},
+                  {"title": "BTC miners sell less after the halving", "published": "2024-05-02"}
+                ]
+                ```""";
+
+        // When
+        List<NewsItem> articles = parser.parse(content, "BTC", 5);
+
+        // Then
+        assertThat(articles).hasSize(2);
+        NewsItem first = articles.get(0);
+        assertThat(first.getTitle()).isEqualTo("Bitcoin ETF inflows hit a record. Analysts expect more");
+        assertThat(first.getDescription()).isEqualTo("Spot ETFs took in $1B.");
+        assertThat(first.getSource()).isEqualTo("CoinDesk");
+        assertThat(first.getCryptocurrency()).isEqualTo("BTC");
+        assertThat(first.getPublishedDate()).isEqualTo(LocalDateTime.of(2024, 5, 1, 10, 15));
+        NewsItem second = articles.get(1);
+        assertThat(second.getDescription()).isEqualTo(second.getTitle());
+        assertThat(second.getSource()).isNull();
+        assertThat(second.getPublishedDate()).isEqualTo(LocalDateTime.of(2024, 5, 2, 0, 0));
+    }
+
+    @Test
+    public void testStopsAfterMaxArticlesAndSkipsUntitled() {
+        // Given
+        String content = "[{\"summary\": \"no title\"}, {\"title\": \"one\"}, {\"title\": \"two\"}, {\"title\": \"three\"";
+
+        // When
+        List<NewsItem> articles = parser.parse(content, "ETH", 2);
+
+        // Then
+        assertThat(articles).extracting(NewsItem::getTitle).containsExactly("one", "two");
+    }
+
+    @Test
+    public void testSkipsCitationMarkersBeforeArray() {
+        // Given
+        String content = """
+                [1] CoinDesk and [2] The Block report on ETH staking:
+                [
+                  {"title": "Ethereum staking deposits reach a new high"}
+                ]""";
+
+        // When
+        List<NewsItem> articles = parser.parse(content, "ETH", 3);
+
+        // Then
+        assertThat(articles).extracting(NewsItem::getTitle).containsExactly("Ethereum staking deposits reach a new high");
+    }
+
+    @Test
+    public void testRejectsAnswerWithoutArticles() {
+        assertThatThrownBy(() -> parser.parse("No news today.", "ETH", 3))
+                .isInstanceOf(PerplexityApiException.class);
+        assertThatThrownBy(() -> parser.parse("[{\"title\": \"cut", "ETH", 3))
+                .isInstanceOf(PerplexityApiException.class);
+    }
+}
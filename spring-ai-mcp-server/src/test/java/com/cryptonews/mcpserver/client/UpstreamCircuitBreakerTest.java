@@ -0,0 +1,91 @@
+package com.cryptonews.mcpserver.client;
+
+import com.cryptonews.mcpserver.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpstreamCircuitBreakerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testOpensAfterFailuresAndRejectsWithoutCallingUpstream() {
+        // Given
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(() -> failing(upstreamCalls, HttpStatus.SERVICE_UNAVAILABLE)).onErrorComplete().block();
+        }
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        StepVerifier.create(breaker.execute(() -> failing(upstreamCalls, HttpStatus.SERVICE_UNAVAILABLE)))
+                .expectError(UpstreamUnavailableException.class)
+                .verify();
+        assertThat(upstreamCalls.get()).isEqualTo(4);
+        assertThat(meterRegistry.get("test.circuitbreaker.calls").tag("result", "rejected").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void testClientErrorsDoNotOpenBreaker() {
+        // Given
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            breaker.execute(() -> failing(upstreamCalls, HttpStatus.BAD_REQUEST)).onErrorComplete().block();
+        }
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulTrialCalls() throws InterruptedException {
+        // Given
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(() -> failing(upstreamCalls, HttpStatus.BAD_GATEWAY)).onErrorComplete().block();
+        }
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+
+        // When
+        Thread.sleep(80);
+        assertThat(breaker.execute(() -> Mono.just("ok")).block()).isEqualTo("ok");
+        assertThat(breaker.execute(() -> Mono.just("ok")).block()).isEqualTo("ok");
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+    }
+
+    private UpstreamCircuitBreaker breaker(Duration openDuration) {
+        return new UpstreamCircuitBreaker("test", 10, 4, 0.5, openDuration, 2, meterRegistry);
+    }
+
+    private Mono<String> failing(AtomicInteger upstreamCalls, HttpStatus status) {
+        return Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null));
+        });
+    }
+}
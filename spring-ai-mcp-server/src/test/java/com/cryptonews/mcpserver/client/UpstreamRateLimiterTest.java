@@ -0,0 +1,102 @@
+package com.cryptonews.mcpserver.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpstreamRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testWaitingRequestsAreServedRoundRobinAcrossFlows() {
+        // Given
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter("test", 1000, 1000, 1, meterRegistry);
+        Sinks.One<String> blocker = Sinks.one();
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> first = limiter.execute(blocker::asMono)
+                .contextWrite(UpstreamContext.of("getCryptoNews", "busy-client"))
+                .toFuture();
+        List<CompletableFuture<String>> waiting = List.of(
+                call(limiter, order, "getCryptoNews", "busy-client", "busy-1"),
+                call(limiter, order, "getCryptoNews", "busy-client", "busy-2"),
+                call(limiter, order, "getCryptoNews", "busy-client", "busy-3"),
+                call(limiter, order, "getTrendForecast", "other-client", "other-1"));
+        assertThat(limiter.queuedCount()).isEqualTo(4);
+
+        // When
+        blocker.tryEmitValue("done");
+
+        // Then
+        assertThat(first.join()).isEqualTo("done");
+        waiting.forEach(CompletableFuture::join);
+        assertThat(order).containsExactly("busy-1", "other-1", "busy-2", "busy-3");
+        assertThat(limiter.activeCount()).isZero();
+        assertThat(meterRegistry.get("test.ratelimiter.queue.time").tag("tool", "getTrendForecast").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testRequestsWaitForTokensInsteadOfFailing() {
+        // Given
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter("test", 20, 1, 10, meterRegistry);
+        long started = System.nanoTime();
+
+        // When
+        List<String> results = Mono.zip(
+                        limiter.execute(() -> Mono.just("a")),
+                        limiter.execute(() -> Mono.just("b")),
+                        limiter.execute(() -> Mono.just("c")))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .block();
+
+        // Then
+        assertThat(results).containsExactly("a", "b", "c");
+        // Первый запрос берет единственный токен сразу, остальные ждут по 50 мс на токен
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    public void testCancelledRequestsReleaseTheirPlace() {
+        // Given
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter("test", 1000, 1000, 1, meterRegistry);
+        Disposable running = limiter.execute(Mono::<String>never).subscribe();
+        Disposable queued = limiter.execute(() -> Mono.just("never")).subscribe();
+        assertThat(limiter.queuedCount()).isEqualTo(1);
+
+        // When
+        queued.dispose();
+        running.dispose();
+
+        // Then
+        assertThat(limiter.queuedCount()).isZero();
+        assertThat(limiter.activeCount()).isZero();
+        assertThat(limiter.execute(() -> Mono.just("next")).block()).isEqualTo("next");
+    }
+
+    private CompletableFuture<String> call(UpstreamRateLimiter limiter, List<String> order,
+                                           String tool, String client, String value) {
+        return limiter.execute(() -> Mono.fromCallable(() -> {
+                    order.add(value);
+                    return value;
+                }))
+                .contextWrite(UpstreamContext.of(tool, client))
+                .toFuture();
+    }
+}
@@ -0,0 +1,137 @@
+package com.cryptonews.mcpserver.controller;
+
+import com.cryptonews.mcpserver.model.CryptoAnalytics;
+import com.cryptonews.mcpserver.service.NewsAnalyticsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Настоящий Tomcat: тайм-аут асинхронного запроса применяет контейнер, MockMvc его не воспроизводит
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "mcp.deadline.tools.analyzeCryptocurrency=32s")
+public class AsyncRequestTimeoutTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private NewsAnalyticsService analyticsService;
+
+    @BeforeEach
+    public void setup() {
+        webTestClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(60)).build();
+    }
+
+    @Test
+    public void testDeadlineLongerThanContainerDefaultFallsBackToStoredData() throws Exception {
+        // Given: Perplexity не отвечает, дедлайн инструмента длиннее 30 секунд Tomcat по умолчанию
+        when(analyticsService.analyzeCryptocurrencyAsync(anyString(), anyString())).thenReturn(Mono.never());
+        when(analyticsService.analyzeStoredNewsAsync(anyString(), anyString()))
+                .thenReturn(Mono.just(CryptoAnalytics.builder().cryptocurrency("BTC").totalArticles(7).build()));
+
+        // When
+        long started = System.nanoTime();
+        String body = webTestClient.post().uri("/mcp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"jsonrpc":"2.0","id":1,"method":"tools/call",
+                         "params":{"name":"analyzeCryptocurrency","arguments":{"cryptocurrency":"BTC"}}}""")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then: ответ сохраненными данными после истечения дедлайна, а не 503 контейнера
+        JsonNode analytics = new ObjectMapper().readTree(
+                new ObjectMapper().readTree(body).at("/result/content/0/text").asText());
+        assertThat(analytics.get("totalArticles").asInt()).isEqualTo(7);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThan(Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void testToolStreamRunsPastContainerDefaultTimeout() {
+        // Given: второй фрагмент сравнения приходит через 31 секунду
+        when(analyticsService.streamComparison(anyList())).thenReturn(slowComparison());
+
+        // When
+        List<ServerSentEvent<String>> events = webTestClient.get()
+                .uri("/sse/tools/compareCryptocurrencies?cryptocurrencies=BTC,ETH&timeoutMs=40000")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        // Then: поток не оборван контейнером и заканчивается событием done
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("delta", "delta", "done");
+        assertThat(events.get(1).data()).isEqualTo("ETH lags");
+    }
+
+    @Test
+    public void testProgressStreamRunsPastContainerDefaultTimeout() throws Exception {
+        // Given: клиент подписан на уведомления вызова, который длится дольше 30 секунд
+        when(analyticsService.streamComparison(anyList())).thenReturn(slowComparison());
+        // Заголовки SSE ответа уходят с первым уведомлением, поэтому подписка без ожидания ответа
+        Mono<List<ServerSentEvent<String>>> notifications = WebClient.create("http://localhost:" + port)
+                .get()
+                .uri("/mcp/progress/compare-1")
+                .header(McpController.CLIENT_ID_HEADER, "alice")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .collectList()
+                .cache();
+        notifications.subscribe();
+
+        // When
+        webTestClient.post().uri("/mcp")
+                .header(McpController.CLIENT_ID_HEADER, "alice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"jsonrpc":"2.0","id":2,"method":"tools/call",
+                         "params":{"name":"compareCryptocurrencies","arguments":{"cryptocurrencies":"BTC,ETH"},
+                                   "_meta":{"progressToken":"compare-1","timeoutMs":40000}}}""")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.result.content[0].text").isEqualTo("BTC leadsETH lags");
+
+        // Then: оба уведомления дошли, поток завершился вместе с вызовом
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ServerSentEvent<String>> events = notifications.block(Duration.ofSeconds(10));
+        assertThat(events).hasSize(2);
+        assertThat(objectMapper.readTree(events.get(1).data()).at("/params/message").asText()).isEqualTo("ETH lags");
+    }
+
+    private static Flux<String> slowComparison() {
+        return Flux.concat(Mono.just("BTC leads").delayElement(Duration.ofSeconds(2)),
+                Mono.just("ETH lags").delayElement(Duration.ofSeconds(31)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.cryptonews.mcpserver.controller;
+
+import com.cryptonews.mcpserver.config.ToolDeadlineProperties;
+import com.cryptonews.mcpserver.service.ProgressNotifications;
+import com.cryptonews.mcpserver.tools.CryptoNewsTools;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.mock.web.MockHttpServletRequest;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class McpControllerProgressTest {
+
+    private final CryptoNewsTools cryptoNewsTools = mock(CryptoNewsTools.class);
+    private final McpController controller = new McpController(cryptoNewsTools, new ProgressNotifications(),
+            new ToolDeadlineProperties());
+
+    @Test
+    public void testProgressGoesOnlyToCallingClient() throws Exception {
+        // Given: два клиента подписаны на один и тот же токен
+        when(cryptoNewsTools.streamTrendForecast("BTC")).thenReturn(Flux.just("Bull", "ish"));
+        List<ServerSentEvent<String>> caller = new CopyOnWriteArrayList<>();
+        List<ServerSentEvent<String>> other = new CopyOnWriteArrayList<>();
+        Disposable callerSubscription = controller.progress("token-1", client("alice")).subscribe(caller::add);
+        Disposable otherSubscription = controller.progress("token-1", client("bob")).subscribe(other::add);
+        JsonNode request = new ObjectMapper().readTree("""
+                {"jsonrpc":"2.0","id":1,"method":"tools/call","params":{"name":"getTrendForecast",
+                 "arguments":{"cryptocurrency":"BTC"},"_meta":{"progressToken":"token-1"}}}""");
+
+        // When
+        JsonNode response = controller.handleMcpRequest(request, client("alice")).block().getBody();
+
+        // Then
+        assertThat(response.at("/result/content/0/text").asText()).isEqualTo("Bullish");
+        assertThat(caller).extracting(event -> new ObjectMapper().readTree(event.data()).at("/params/message").asText())
+                .containsExactly("Bull", "ish");
+        assertThat(other).isEmpty();
+        assertThat(callerSubscription.isDisposed()).isTrue();
+        otherSubscription.dispose();
+    }
+
+    @Test
+    public void testProgressWithoutSubscriberIsNotReplayed() throws Exception {
+        // Given
+        when(cryptoNewsTools.streamTrendForecast("ETH")).thenReturn(Flux.just("Bearish"));
+        JsonNode request = new ObjectMapper().readTree("""
+                {"jsonrpc":"2.0","id":2,"method":"tools/call","params":{"name":"getTrendForecast",
+                 "arguments":{"cryptocurrency":"ETH"},"_meta":{"progressToken":"token-2"}}}""");
+        controller.handleMcpRequest(request, client("alice")).block();
+
+        // When: подписка после вызова
+        List<ServerSentEvent<String>> late = new CopyOnWriteArrayList<>();
+        Disposable subscription = controller.progress("token-2", client("alice")).subscribe(late::add);
+
+        // Then
+        assertThat(late).isEmpty();
+        subscription.dispose();
+    }
+
+    @Test
+    public void testProgressStreamEndsAfterLongestCall() {
+        // Given: вызова с этим токеном так и не было
+        ToolDeadlineProperties deadlines = new ToolDeadlineProperties();
+        deadlines.setMax(Duration.ofMillis(200));
+        deadlines.setResponseMargin(Duration.ofMillis(100));
+        McpController shortLived = new McpController(cryptoNewsTools, new ProgressNotifications(), deadlines);
+
+        // When / Then
+        StepVerifier.create(shortLived.progress("token-3", client("alice")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static MockHttpServletRequest client(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(McpController.CLIENT_ID_HEADER, clientId);
+        return request;
+    }
+}
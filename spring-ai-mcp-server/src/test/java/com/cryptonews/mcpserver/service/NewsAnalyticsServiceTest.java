@@ -1,23 +1,46 @@
 package com.cryptonews.mcpserver.service;
 
 import com.cryptonews.mcpserver.client.PerplexityNewsClient;
+import com.cryptonews.mcpserver.client.dto.CoinNewsDigest;
+import com.cryptonews.mcpserver.model.CryptoAnalytics;
 import com.cryptonews.mcpserver.model.NewsItem;
 import com.cryptonews.mcpserver.model.NewsItemRepository;
 import com.cryptonews.mcpserver.model.SentimentScore;
+import com.cryptonews.mcpserver.source.NewsSourceAggregator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,12 +49,31 @@ public class NewsAnalyticsServiceTest {
     @Mock
     private PerplexityNewsClient perplexityNewsClient;
 
+    @Mock
+    private NewsSourceAggregator newsSources;
+
     @Mock
     private NewsItemRepository newsRepository;
 
     @Mock
     private SentimentAnalyzer sentimentAnalyzer;
 
+    @Spy
+    private SentimentAggregates sentimentAggregates = new SentimentAggregates(
+            Duration.ofHours(1), Duration.ofDays(31), Duration.ofHours(6), 24);
+
+    @Spy
+    private TrendingTopics trendingTopics = new TrendingTopics(64, 256, Duration.ofHours(6));
+
+    @Spy
+    private NewsIngestListener newsIngestListener = new NewsIngestListener(sentimentAggregates, trendingTopics);
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache newsCache;
+
     @InjectMocks
     private NewsAnalyticsService newsAnalyticsService;
 
@@ -39,16 +81,14 @@ public class NewsAnalyticsServiceTest {
     public void testGetLatestCryptoNews() {
         // Given
         String cryptocurrency = "BTC";
-        List<String> mockNewsTexts = Arrays.asList(
-                "Bitcoin reaches new highs", 
-                "BTC shows positive momentum"
+        List<NewsItem> mockArticles = Arrays.asList(
+                createMockNewsItem("Bitcoin reaches new highs", cryptocurrency), 
+                createMockNewsItem("BTC shows positive momentum", cryptocurrency)
         );
         
-        NewsItem mockNewsItem = createMockNewsItem("Bitcoin reaches new highs", cryptocurrency);
-        
-        when(perplexityNewsClient.getCryptoNews(anyString(), anyInt())).thenReturn(mockNewsTexts);
-        when(sentimentAnalyzer.analyzeSentiment(anyString())).thenReturn(new SentimentScore(0.7, 0.1, 0.2, 0.6));
-        when(newsRepository.save(any(NewsItem.class))).thenReturn(mockNewsItem);
+        when(newsSources.latestNews(anyString(), anyInt())).thenReturn(Mono.just(mockArticles));
+        when(sentimentAnalyzer.analyzeBatch(anyList())).thenAnswer(invocation -> scores(invocation.getArgument(0), new SentimentScore(0.7, 0.1, 0.2, 0.6)));
+        when(newsRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         List<NewsItem> result = newsAnalyticsService.getLatestCryptoNews(cryptocurrency, 5);
@@ -56,6 +96,9 @@ public class NewsAnalyticsServiceTest {
         // Then
         assertThat(result).isNotEmpty();
         assertThat(result.size()).isEqualTo(2);
+        // Новости одного запроса сохраняются одним пакетом
+        verify(newsRepository).saveAll(result);
+        verify(newsRepository, never()).save(any(NewsItem.class));
     }
 
     @Test
@@ -65,8 +108,8 @@ public class NewsAnalyticsServiceTest {
         String timeRange = "24h";
         String expectedSentiment = "Market shows positive sentiment for Bitcoin";
         
-        when(perplexityNewsClient.analyzeMarketSentiment(cryptocurrency, timeRange))
-                .thenReturn(expectedSentiment);
+        when(perplexityNewsClient.analyzeMarketSentimentAsync(cryptocurrency, timeRange))
+                .thenReturn(Mono.just(expectedSentiment));
 
         // When
         String result = newsAnalyticsService.getMarketSentiment(cryptocurrency, timeRange);
@@ -82,8 +125,9 @@ public class NewsAnalyticsServiceTest {
         NewsItem positiveNews = createMockNewsItem("Ethereum shows great progress", cryptocurrency);
         positiveNews.setSentimentScore(new SentimentScore(0.8, 0.1, 0.1, 0.7));
         
-        when(newsRepository.findPositiveNewsByCryptocurrency(cryptocurrency))
+        when(newsRepository.findPositiveNewsByCryptocurrency(cryptocurrency, PageRequest.of(0, 10)))
                 .thenReturn(Arrays.asList(positiveNews));
+        when(newsSources.latestNews(anyString(), anyInt())).thenReturn(Mono.just(List.of()));
 
         // When
         List<NewsItem> result = newsAnalyticsService.getPositiveNews(cryptocurrency, 10);
@@ -100,8 +144,9 @@ public class NewsAnalyticsServiceTest {
         NewsItem negativeNews = createMockNewsItem("Ethereum faces challenges", cryptocurrency);
         negativeNews.setSentimentScore(new SentimentScore(0.1, 0.8, 0.1, -0.7));
         
-        when(newsRepository.findNegativeNewsByCryptocurrency(cryptocurrency))
+        when(newsRepository.findNegativeNewsByCryptocurrency(cryptocurrency, PageRequest.of(0, 10)))
                 .thenReturn(Arrays.asList(negativeNews));
+        when(newsSources.latestNews(anyString(), anyInt())).thenReturn(Mono.just(List.of()));
 
         // When
         List<NewsItem> result = newsAnalyticsService.getNegativeNews(cryptocurrency, 10);
@@ -111,6 +156,135 @@ public class NewsAnalyticsServiceTest {
         assertThat(result.get(0).getTitle()).contains("challenges");
     }
 
+    @Test
+    public void testGetPositiveNewsTopsUpWithStrongestFreshNews() {
+        // Given: в базе одна позитивная новость, среди свежих - три позитивные разной силы и одна негативная
+        String cryptocurrency = "SOL";
+        NewsItem storedNews = createMockNewsItem("Solana stored news", cryptocurrency);
+        storedNews.setSentimentScore(new SentimentScore(0.8, 0.1, 0.1, 0.7));
+        
+        when(newsRepository.findPositiveNewsByCryptocurrency(cryptocurrency, PageRequest.of(0, 3)))
+                .thenReturn(List.of(storedNews));
+        when(newsSources.latestNews(anyString(), anyInt())).thenReturn(Mono.just(List.of(
+                createMockNewsItem("Solana mild gain", cryptocurrency),
+                createMockNewsItem("Solana strong rally", cryptocurrency),
+                createMockNewsItem("Solana sharp drop", cryptocurrency),
+                createMockNewsItem("Solana record rally", cryptocurrency))));
+        when(sentimentAnalyzer.analyzeBatch(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .map(text -> text.contains("drop") ? new SentimentScore(0.1, 0.7, 0.2, -0.6)
+                        : text.contains("record") ? new SentimentScore(0.8, 0.0, 0.2, 0.9)
+                        : text.contains("strong") ? new SentimentScore(0.6, 0.1, 0.3, 0.5)
+                        : new SentimentScore(0.3, 0.1, 0.6, 0.1))
+                .toList());
+        when(newsRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<NewsItem> result = newsAnalyticsService.getPositiveNews(cryptocurrency, 3);
+
+        // Then
+        assertThat(result).extracting(NewsItem::getTitle)
+                .containsExactly("Solana stored news", "Solana record rally", "Solana strong rally");
+    }
+
+    @Test
+    public void testAnalyzeCryptocurrencyKeepsPartialInsights() {
+        // Given
+        String cryptocurrency = "BTC";
+        ReflectionTestUtils.setField(newsAnalyticsService, "upstreamDeadline", Duration.ofMillis(200));
+        
+        when(newsSources.latestNews(anyString(), anyInt())).thenReturn(Mono.just(List.of(createMockNewsItem("Bitcoin rally continues", cryptocurrency))));
+        when(sentimentAnalyzer.analyzeBatch(anyList())).thenAnswer(invocation -> scores(invocation.getArgument(0), new SentimentScore(0.7, 0.1, 0.2, 0.6)));
+        // Сохранение в базе вызывает слушатель сущности, который учитывает новость в агрегатах
+        when(newsRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            invocation.<List<NewsItem>>getArgument(0).forEach(newsIngestListener::record);
+            return invocation.getArgument(0);
+        });
+        when(perplexityNewsClient.analyzeMarketSentimentAsync(cryptocurrency, "24 hours"))
+                .thenReturn(Mono.just("Bullish"));
+        when(perplexityNewsClient.getTrendForecastAsync(cryptocurrency))
+                .thenReturn(Mono.error(new IllegalStateException("upstream failure")));
+        when(perplexityNewsClient.getMarketMovingEventsAsync(cryptocurrency))
+                .thenReturn(Mono.never());
+
+        // When
+        CryptoAnalytics result = newsAnalyticsService.analyzeCryptocurrency(cryptocurrency, "24 hours");
+
+        // Then
+        assertThat(result.getTotalArticles()).isEqualTo(1);
+        assertThat(result.getSentimentCounts()).containsEntry("positive", 1);
+        assertThat(result.getAverageSentiment()).isEqualTo(0.6);
+        assertThat(result.getKeyTopics()).contains("bitcoin", "rally", "continues", "detailed", "description");
+        assertThat(result.getTrendForecast()).isEqualTo("Unable to retrieve trend forecast at this time.");
+        assertThat(result.getMarketMovingEvents()).isEqualTo("Unable to retrieve market moving events at this time.");
+    }
+
+    @Test
+    public void testBatchFetchFillsCacheAndFallsBackForMissingCoins() {
+        // Given
+        List<String> cryptocurrencies = List.of("BTC", "ETH");
+        CoinNewsDigest btcDigest = new CoinNewsDigest("Bitcoin is up", List.of("Bitcoin ETF inflows grow", "BTC hash rate hits record"));
+        
+        when(perplexityNewsClient.getNewsDigestsAsync(cryptocurrencies, 5)).thenReturn(Mono.just(Map.of("BTC", btcDigest)));
+        when(newsSources.latestNews("ETH", 5)).thenReturn(Mono.just(List.of(createMockNewsItem("Ethereum upgrade scheduled", "ETH"))));
+        when(sentimentAnalyzer.analyzeBatch(anyList())).thenAnswer(invocation -> scores(invocation.getArgument(0), new SentimentScore(0.6, 0.2, 0.2, 0.4)));
+        when(cacheManager.getCache("news-cache")).thenReturn(newsCache);
+
+        // When
+        Map<String, List<NewsItem>> result = newsAnalyticsService.getLatestCryptoNewsBatch(cryptocurrencies, 5);
+
+        // Then
+        assertThat(result).containsOnlyKeys("BTC", "ETH");
+        assertThat(result.get("BTC")).hasSize(2);
+        assertThat(result.get("ETH")).hasSize(1);
+        verify(newsCache).put(eq("btc-5"), any());
+        verify(newsCache).put(eq("eth-5"), any());
+        verify(newsSources, never()).latestNews("BTC", 5);
+    }
+
+    @Test
+    public void testBatchFetchSkipsCoinsFoundInCache() {
+        // Given: новости BTC уже в кэше, ETH нет
+        List<NewsItem> cachedBtc = List.of(createMockNewsItem("Bitcoin ETF inflows grow", "BTC"));
+        CoinNewsDigest ethDigest = new CoinNewsDigest("Ethereum is flat", List.of("Ethereum upgrade scheduled"));
+        
+        when(cacheManager.getCache("news-cache")).thenReturn(newsCache);
+        when(newsCache.get("btc-5")).thenReturn(new SimpleValueWrapper(cachedBtc));
+        when(perplexityNewsClient.getNewsDigestsAsync(List.of("ETH"), 5)).thenReturn(Mono.just(Map.of("ETH", ethDigest)));
+        when(sentimentAnalyzer.analyzeBatch(anyList())).thenAnswer(invocation -> scores(invocation.getArgument(0), new SentimentScore(0.6, 0.2, 0.2, 0.4)));
+
+        // When
+        Map<String, List<NewsItem>> result = newsAnalyticsService.getLatestCryptoNewsBatch(List.of("BTC", "ETH"), 5);
+
+        // Then
+        assertThat(result.get("BTC")).isSameAs(cachedBtc);
+        assertThat(result.get("ETH")).hasSize(1);
+        verify(perplexityNewsClient, never()).getNewsDigestsAsync(eq(List.of("BTC", "ETH")), anyInt());
+        verify(newsSources, never()).latestNews(anyString(), anyInt());
+        verify(newsCache, never()).put(eq("btc-5"), any());
+    }
+
+    @Test
+    public void testRebuildReadsOnlyAggregateWindowOffStartupThread() {
+        // Given
+        NewsItem stored = createMockNewsItem("Bitcoin hashrate hits record", "BTC");
+        AtomicReference<String> queryThread = new AtomicReference<>();
+        when(newsRepository.findByPublishedDateGreaterThanEqual(any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    queryThread.set(Thread.currentThread().getName());
+                    return new PageImpl<>(List.of(stored));
+                });
+
+        // When
+        newsAnalyticsService.rebuildSentimentAggregates();
+
+        // Then: база читается в фоне и только с начала окна агрегатов
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(newsIngestListener, timeout(5000)).record(stored);
+        verify(newsRepository).findByPublishedDateGreaterThanEqual(since.capture(), any(Pageable.class));
+        assertThat(queryThread.get()).startsWith("boundedElastic").isNotEqualTo(Thread.currentThread().getName());
+        assertThat(since.getValue()).isCloseTo(LocalDateTime.now().minusDays(31), within(1, ChronoUnit.MINUTES));
+    }
+
     private NewsItem createMockNewsItem(String title, String cryptocurrency) {
         NewsItem newsItem = new NewsItem();
         newsItem.setTitle(title);
@@ -121,4 +295,8 @@ public class NewsAnalyticsServiceTest {
         newsItem.setUrl("https://test.com/news");
         return newsItem;
     }
-} 
\ No newline at end of file
+
+    private static List<SentimentScore> scores(List<String> texts, SentimentScore score) {
+        return texts.stream().map(text -> score).toList();
+    }
+}
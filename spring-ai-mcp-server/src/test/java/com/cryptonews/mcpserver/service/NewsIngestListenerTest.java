@@ -0,0 +1,111 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.NewsItemRepository;
+import com.cryptonews.mcpserver.model.SentimentScore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Без тестовой транзакции: агрегаты обновляются только после фиксации
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NewsIngestListenerTest {
+
+    // SpringAiMcpApplication объявляет бины инструментов, которых нет в JPA-срезе
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = NewsItem.class)
+    @Import({SentimentAggregates.class, TrendingTopics.class, NewsIngestListener.class})
+    static class JpaSliceConfiguration {
+    }
+
+    @Autowired
+    private NewsItemRepository newsRepository;
+
+    @Autowired
+    private SentimentAggregates sentimentAggregates;
+
+    @Autowired
+    private TrendingTopics trendingTopics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testSavedNewsIsRecordedAfterCommitOnly() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        newsRepository.save(newsItem("Solana ETF approved", now, 0.8));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            newsRepository.save(newsItem("Solana validators halt the chain", now, -0.6));
+            status.setRollbackOnly();
+        });
+
+        // Then
+        SentimentAggregates.Summary summary = sentimentAggregates.summarize("sol", now.minusHours(1), now);
+        assertThat(summary.totalArticles()).isEqualTo(1);
+        assertThat(summary.positive()).isEqualTo(1);
+        assertThat(summary.negative()).isZero();
+        assertThat(trendingTopics.keyTopics("SOL", 10)).contains("solana", "approved").doesNotContain("validators");
+    }
+
+    @Test
+    public void testSaveAllInsertsInJdbcBatches() {
+        // Given: идентификаторы в обоих случаях выдает одна и та же последовательность блоками по 50
+        LocalDateTime now = LocalDateTime.now();
+        List<NewsItem> separately = IntStream.range(0, 120)
+                .mapToObj(i -> newsItem("Avalanche subnet launch " + i, now, 0.3))
+                .peek(newsItem -> newsItem.setCryptocurrency("AVAX"))
+                .toList();
+        List<NewsItem> batched = IntStream.range(0, 120)
+                .mapToObj(i -> newsItem("Avalanche bridge upgrade " + i, now, 0.3))
+                .peek(newsItem -> newsItem.setCryptocurrency("AVAX"))
+                .toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        separately.forEach(newsRepository::save);
+        long separateStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        newsRepository.saveAll(batched);
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        // Then: по одной - отдельный INSERT на каждую новость, saveAll с batch_size 50 - три пакета
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(separateStatements).isGreaterThanOrEqualTo(120);
+        assertThat(batchedStatements).isLessThan(12);
+        assertThat(batched).extracting(NewsItem::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(sentimentAggregates.summarize("avax", now.minusHours(1), now).totalArticles()).isEqualTo(240);
+    }
+
+    private static NewsItem newsItem(String title, LocalDateTime publishedDate, double compound) {
+        NewsItem newsItem = new NewsItem();
+        newsItem.setTitle(title);
+        newsItem.setCryptocurrency("SOL");
+        newsItem.setPublishedDate(publishedDate);
+        newsItem.setSentimentScore(new SentimentScore(Math.max(compound, 0), Math.max(-compound, 0), 0.0, compound));
+        return newsItem;
+    }
+}
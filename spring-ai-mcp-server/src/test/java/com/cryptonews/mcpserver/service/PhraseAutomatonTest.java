@@ -0,0 +1,51 @@
+package com.cryptonews.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PhraseAutomatonTest {
+
+    private static final int A = 0;
+    private static final int B = 1;
+    private static final int C = 2;
+    private static final int D = 3;
+
+    @Test
+    public void testMatchesAreFoundThroughFailureLinks() {
+        // Given
+        PhraseAutomaton automaton = new PhraseAutomaton(
+                List.of(new int[]{A, B, D}, new int[]{B, C}, new int[]{C}),
+                new double[]{0.1, 0.2, 0.3});
+
+        // When
+        List<Double> matches = new ArrayList<>();
+        int state = PhraseAutomaton.ROOT;
+        for (int word : new int[]{A, B, C, -1, A, B, D}) {
+            state = automaton.next(state, word);
+            for (int match = automaton.longestMatch(state); match != PhraseAutomaton.NO_MATCH;
+                 match = automaton.shorterMatch(match)) {
+                matches.add(automaton.weight(match) * 10 + automaton.length(match) / 100.0);
+            }
+        }
+
+        // Then: "b c" и вложенная "c" после неудачи на "a b c", затем "a b d"
+        assertThat(matches).containsExactly(2.02, 3.01, 1.03);
+        assertThat(automaton.maxLength()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUnknownWordResetsToRoot() {
+        // Given
+        PhraseAutomaton automaton = new PhraseAutomaton(List.of(new int[]{A, B}), new double[]{0.5});
+
+        // When
+        int state = automaton.next(automaton.next(PhraseAutomaton.ROOT, A), -1);
+
+        // Then
+        assertThat(automaton.longestMatch(automaton.next(state, B))).isEqualTo(PhraseAutomaton.NO_MATCH);
+    }
+}
@@ -0,0 +1,151 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.SentimentScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class SentimentAggregatesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private SentimentAggregates aggregates;
+
+    @BeforeEach
+    public void setup() {
+        aggregates = new SentimentAggregates(Duration.ofHours(1), Duration.ofDays(31), Duration.ofHours(6), 24);
+    }
+
+    @Test
+    public void testSummaryMatchesPerArticleComputation() {
+        // Given: по одной новости в час, в некоторых часах по нескольку
+        Random random = new Random(42);
+        List<NewsItem> news = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            double compound = Math.round((random.nextDouble() * 2 - 1) * 100) / 100.0;
+            news.add(newsItem("Headline " + i, NOW.minusHours(i / 2), compound));
+        }
+        news.forEach(aggregates::record);
+
+        // When
+        SentimentAggregates.Summary summary = aggregates.summarize("btc", NOW.minusDays(7), NOW);
+
+        // Then
+        double average = news.stream().mapToDouble(item -> item.getSentimentScore().getCompoundScore()).average().orElseThrow();
+        double variance = news.stream().mapToDouble(item -> Math.pow(item.getSentimentScore().getCompoundScore() - average, 2))
+                .average().orElseThrow();
+        assertThat(summary.totalArticles()).isEqualTo(200);
+        assertThat(summary.positive()).isEqualTo(news.stream().filter(item -> item.getSentimentScore().isPositive()).count());
+        assertThat(summary.negative()).isEqualTo(news.stream().filter(item -> item.getSentimentScore().isNegative()).count());
+        assertThat(summary.averageSentiment()).isCloseTo(average, within(1e-9));
+        assertThat(summary.sentimentDeviation()).isCloseTo(Math.sqrt(variance), within(1e-9));
+        // Граница половин проходит между корзинами, поэтому тренд совпадает с посчитанным по новостям
+        assertThat(summary.sentimentTrend()).isCloseTo(perArticleTrend(news), within(1e-9));
+    }
+
+    @Test
+    public void testSummaryReadsOnlyBucketsOfTheRangeAndCoin() {
+        // Given
+        aggregates.record(newsItem("Fresh rally", NOW.minusMinutes(30), 0.6));
+        aggregates.record(newsItem("Old crash", NOW.minusDays(3), -0.7));
+        NewsItem otherCoin = newsItem("Ether upgrade", NOW.minusMinutes(10), 0.4);
+        otherCoin.setCryptocurrency("ETH");
+        aggregates.record(otherCoin);
+
+        // When
+        SentimentAggregates.Summary lastDay = aggregates.summarize("BTC", NOW.minusDays(1), NOW);
+        SentimentAggregates.Summary lastWeek = aggregates.summarize("BTC", NOW.minusWeeks(1), NOW);
+
+        // Then
+        assertThat(lastDay.totalArticles()).isEqualTo(1);
+        assertThat(lastDay.averageSentiment()).isEqualTo(0.6);
+        assertThat(lastWeek.totalArticles()).isEqualTo(2);
+        assertThat(lastWeek.sentimentTrend()).isCloseTo(1.3, within(1e-9));
+        assertThat(lastDay.sentimentDeltas()).hasSize(24).containsOnly(0.0);
+        assertThat(aggregates.summarize("SOL", NOW.minusDays(1), NOW)).isEqualTo(SentimentAggregates.Summary.EMPTY);
+    }
+
+    @Test
+    public void testRepeatedHeadlineIsCountedOnce() {
+        // Given
+        NewsItem first = newsItem("Bitcoin ETF inflows grow", NOW.minusHours(2), 0.5);
+        NewsItem savedAgain = newsItem("Bitcoin ETF inflows grow", NOW.minusMinutes(5), 0.5);
+        savedAgain.setCryptocurrency("btc");
+
+        // When
+        boolean firstRecorded = aggregates.record(first);
+        boolean againRecorded = aggregates.record(savedAgain);
+
+        // Then
+        assertThat(firstRecorded).isTrue();
+        assertThat(againRecorded).isFalse();
+        assertThat(aggregates.summarize("BTC", NOW.minusDays(1), NOW).totalArticles()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRepeatedSavesNeverCountTwiceWithinWindow() {
+        // Given: каждую новость сохраняют и затем заново перечитывают из базы
+        List<NewsItem> news = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            news.add(newsItem("Headline " + i, NOW.minusMinutes(i * 20L), 0.2));
+        }
+
+        // When
+        news.forEach(aggregates::record);
+        long recordedAgain = news.stream().filter(aggregates::record).count();
+
+        // Then
+        assertThat(recordedAgain).isZero();
+        assertThat(aggregates.summarize("BTC", NOW.minusDays(30), NOW).totalArticles()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testBucketsOlderThanWindowAreDropped() {
+        // Given
+        aggregates.record(newsItem("Halving anniversary", NOW.minusDays(40), 0.3));
+        aggregates.record(newsItem("Miners capitulate", NOW.minusDays(20), -0.5));
+
+        // When: окно в 31 день сдвигается вслед за самой свежей новостью
+        aggregates.record(newsItem("Spot ETF approved", NOW, 0.8));
+        boolean outdatedRecorded = aggregates.record(newsItem("Mt. Gox repayments", NOW.minusDays(35), -0.4));
+        boolean forgottenRecorded = aggregates.record(newsItem("Halving anniversary", NOW.minusDays(2), 0.3));
+
+        // Then: заголовок из выпавшей корзины снова учитывается, новость старше окна - нет
+        assertThat(outdatedRecorded).isFalse();
+        assertThat(forgottenRecorded).isTrue();
+        SentimentAggregates.Summary summary = aggregates.summarize("BTC", NOW.minusDays(60), NOW);
+        assertThat(summary.totalArticles()).isEqualTo(3);
+        assertThat(summary.negative()).isEqualTo(1);
+    }
+
+    // Тренд по отдельным новостям: вторая половина по времени против первой
+    private static double perArticleTrend(List<NewsItem> news) {
+        List<Double> scores = news.stream()
+                .sorted(Comparator.comparing(NewsItem::getPublishedDate))
+                .map(item -> item.getSentimentScore().getCompoundScore())
+                .toList();
+        int midPoint = scores.size() / 2;
+        double first = scores.subList(0, midPoint).stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        double second = scores.subList(midPoint, scores.size()).stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        return second - first;
+    }
+
+    private static NewsItem newsItem(String title, LocalDateTime publishedDate, double compound) {
+        NewsItem newsItem = new NewsItem();
+        newsItem.setTitle(title);
+        newsItem.setCryptocurrency("BTC");
+        newsItem.setPublishedDate(publishedDate);
+        newsItem.setSentimentScore(new SentimentScore(Math.max(compound, 0), Math.max(-compound, 0), 0.0, compound));
+        return newsItem;
+    }
+}
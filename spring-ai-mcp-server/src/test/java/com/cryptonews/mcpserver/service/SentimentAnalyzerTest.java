@@ -0,0 +1,134 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.SentimentScore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SentimentAnalyzerTest {
+
+    private final SentimentAnalyzer sentimentAnalyzer = new SentimentAnalyzer();
+
+    @Test
+    public void testScoresMatchRegexBasedAnalyzer() {
+        // Оценки получены прежней реализацией на replaceAll и split
+        assertScore("Bitcoin ETF inflows surge as BTC rallies to a new ATH",
+                0.14545454545454548, 0.0, 0.8545454545454545, 0.14545454545454548);
+        assertScore("Very bullish: analysts see strong growth, not a crash!",
+                0.2666666666666667, 0.1, 0.6333333333333333, 0.1666666666666667);
+        assertScore("SEC ban fears trigger panic SELL-off; traders get REKT after the rug",
+                0.0, 0.2833333333333333, 0.7166666666666667, -0.2833333333333333);
+        assertScore("@whale_alert moved 10,000 BTC to Binance https://t.co/AbC #dump #BTC not bullish",
+                0.0, 0.1, 0.9, -0.1);
+        assertScore("No FUD here: HODL, staking rewards and DeFi adoption keep rising",
+                0.35454545454545455, 0.0, 0.6454545454545455, 0.35454545454545455);
+        assertScore("Market is never volatile... extremely good news for ETH-USD",
+                0.15000000000000002, 0.0, 0.85, 0.15000000000000002);
+        assertScore("   ", 0.0, 0.0, 1.0, 0.0);
+        assertScore("https://example.com/only-a-link @mention #tag", 0.0, 0.0, 1.0, 0.0);
+    }
+
+    @Test
+    public void testPhrasesAreScoredInsteadOfTheirWords() {
+        // Слова фразы не входят в словарь, фраза дает оценку
+        assertScore("SEC lawsuit hits exchange", 0.0, 0.2, 0.8, -0.2);
+        assertScore("Bitcoin sets a new all time high", 0.9 / 7, 0.0, 1.0 - 0.9 / 7, 0.9 / 7);
+        // "rug" уже есть в словаре, но фраза не удваивает оценку
+        assertScore("rug pull", 0.0, 0.45, 0.55, -0.45);
+        // Фраза перекрывает отрицание "not bullish"
+        assertScore("analysts are not bullish at all", 0.0, 0.9 / 6, 1.0 - 0.9 / 6, -0.9 / 6);
+        // Отрицание перед фразой меняет ее знак
+        assertScore("no bear market", 0.7 / 3, 0.0, 1.0 - 0.7 / 3, 0.7 / 3);
+    }
+
+    @Test
+    public void testBatchScoresMatchSingleScoresInOrder() {
+        // Given: пакет больше порога, чтобы он делился между потоками пула
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            texts.add(switch (i % 4) {
+                case 0 -> "BTC rally " + i + " looks very bullish";
+                case 1 -> "Exchange hack " + i + " causes panic and a rug pull";
+                case 2 -> i % 8 == 2 ? null : "Sideways market " + i;
+                default -> "not bullish at all, day " + i;
+            });
+        }
+
+        // When
+        List<SentimentScore> scores = sentimentAnalyzer.analyzeBatch(texts);
+
+        // Then
+        assertThat(scores).hasSize(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(scores.get(i)).as("score of \"%s\"", texts.get(i)).isEqualTo(sentimentAnalyzer.analyzeSentiment(texts.get(i)));
+        }
+    }
+
+    @Test
+    public void testTokensMatchRegexPreprocessing() {
+        // Given
+        List<String> texts = new ArrayList<>(List.of(
+                "HTTP://Example.com/Path?q=1 next",
+                "prefixhttps://a.b/c suffix",
+                "http:// not-a-link",
+                "@http://x.y after",
+                "@user-name_1@other#tag#second word",
+                "#@mention-first",
+                "x@yhttp://z.w tail",
+                "WBTC_pool -- a-b --c",
+                "İstanbul KELVİN \u212Aelvin",
+                "tabs\tand\u000Bvertical\fform\rfeeds\nnewlines",
+                "non\u00A0breaking http://a\u00A0b c",
+                "ÜBER bullish émoji 🚀 moon",
+                ""));
+        Random random = new Random(42);
+        String[] fragments = {"http://", "https://", "HTTPS://", "@", "#", "-", "_", " ", "\t", "\u00A0", "İ", "\u212A",
+                ".", ":", "/", "é", "🚀", "BTC", "moon", "not", "very", "rug", "a", "Z", "9", "ht", "tp", "s:", "//"};
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int parts = random.nextInt(12);
+            for (int j = 0; j < parts; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+            }
+            texts.add(text.toString());
+        }
+
+        // When / Then
+        SentimentTokenizer tokenizer = new SentimentTokenizer();
+        for (String text : texts) {
+            List<String> tokens = new ArrayList<>();
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                String token = new String(tokenizer.buffer(), 0, tokenizer.length());
+                tokens.add(token);
+                assertThat(tokenizer.hash()).isEqualTo(token.hashCode());
+            }
+            assertThat(tokens).as("tokens of \"%s\"", text).isEqualTo(regexTokens(text));
+        }
+    }
+
+    private void assertScore(String text, double positive, double negative, double neutral, double compound) {
+        SentimentScore score = sentimentAnalyzer.analyzeSentiment(text);
+        assertThat(score.getPositiveScore()).as("positive score of \"%s\"", text).isEqualTo(positive);
+        assertThat(score.getNegativeScore()).as("negative score of \"%s\"", text).isEqualTo(negative);
+        assertThat(score.getNeutralScore()).as("neutral score of \"%s\"", text).isEqualTo(neutral);
+        assertThat(score.getCompoundScore()).as("compound score of \"%s\"", text).isEqualTo(compound);
+    }
+
+    // Прежняя предобработка текста анализатором
+    private static List<String> regexTokens(String text) {
+        text = text.toLowerCase();
+        text = text.replaceAll("https?://\\S+", "");
+        text = text.replaceAll("@[\\w-]+", "");
+        text = text.replaceAll("#[\\w-]+", "");
+        text = text.replaceAll("[^a-zA-Z0-9\\s\\-]", " ");
+        text = text.replaceAll("\\s+", " ");
+        text = text.trim();
+        return text.isEmpty() ? List.of() : Arrays.asList(text.split("\\s+"));
+    }
+}
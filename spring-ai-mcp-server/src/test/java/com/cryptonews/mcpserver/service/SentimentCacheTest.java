@@ -0,0 +1,95 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.SentimentScore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SentimentCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SentimentCache cache;
+    private SentimentAnalyzer sentimentAnalyzer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SentimentCache(DataSize.ofMegabytes(1), Duration.ofMinutes(5), meterRegistry);
+        sentimentAnalyzer = new SentimentAnalyzer(1, cache);
+    }
+
+    @Test
+    public void testTextsWithSameStringHashCodeAreCachedSeparately() {
+        // Given
+        String negative = "market dip";
+        String neutral = "market eJp";
+        assertThat(negative.hashCode()).isEqualTo(neutral.hashCode());
+
+        // When
+        SentimentScore first = sentimentAnalyzer.analyzeSentiment(negative);
+        SentimentScore second = sentimentAnalyzer.analyzeSentiment(neutral);
+
+        // Then
+        assertThat(first.getNegativeScore()).isEqualTo(0.25);
+        assertThat(second.getNegativeScore()).isZero();
+        assertThat(ContentHash.of(negative)).isNotEqualTo(ContentHash.of(neutral));
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRepeatedTextIsServedFromCache() {
+        // Given
+        String text = "Analysts turn bullish after the ETF approval";
+        SentimentScore computed = sentimentAnalyzer.analyzeSentiment(text);
+
+        // When
+        SentimentScore cached = sentimentAnalyzer.analyzeSentiment(text);
+
+        // Then: из кэша восстанавливается такая же оценка, но новым объектом
+        assertThat(cached).isEqualTo(computed).isNotSameAs(computed);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "sentiment-cache").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCapacityIsBoundedByMemoryWeight() {
+        // Given
+        long capacity = DataSize.ofMegabytes(1).toBytes() / SentimentCache.ENTRY_WEIGHT;
+
+        // When
+        for (int i = 0; i < capacity * 2; i++) {
+            sentimentAnalyzer.analyzeSentiment("headline number " + i);
+        }
+
+        cache.cleanUp();
+
+        // Then
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(capacity);
+        assertThat(cache.stats().evictionCount()).isGreaterThanOrEqualTo(capacity);
+    }
+
+    @Test
+    public void testZeroMemoryDisablesCache() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SentimentCache disabled = new SentimentCache(DataSize.ofBytes(0), Duration.ofMinutes(5), registry);
+        SentimentAnalyzer analyzer = new SentimentAnalyzer(1, disabled);
+        String text = "Analysts turn bullish after the ETF approval";
+
+        // When
+        SentimentScore first = analyzer.analyzeSentiment(text);
+        SentimentScore second = analyzer.analyzeSentiment(text);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(disabled.estimatedSize()).isZero();
+        assertThat(registry.find("cache.gets").meters()).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.cryptonews.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SentimentLexiconTest {
+
+    @Test
+    public void testFirstScoreWinsAndFlagsAreCombined() {
+        // Given
+        SentimentLexicon lexicon = SentimentLexicon.builder()
+                .scores(Map.of("pump", 0.8), 1.0)
+                .scores(Map.of("pump", 0.3, "dump", 0.8), -1.0)
+                .flags(Set.of("not", "dump"), SentimentLexicon.NEGATOR)
+                .flags(Set.of("very"), SentimentLexicon.INTENSIFIER)
+                .build();
+
+        // When / Then
+        int pump = find(lexicon, "pump");
+        assertThat(lexicon.weight(pump)).isEqualTo(0.8);
+        assertThat(lexicon.flags(pump)).isEqualTo(SentimentLexicon.SCORED);
+
+        int dump = find(lexicon, "dump");
+        assertThat(lexicon.weight(dump)).isEqualTo(-0.8);
+        assertThat(lexicon.flags(dump)).isEqualTo(SentimentLexicon.SCORED | SentimentLexicon.NEGATOR);
+
+        assertThat(lexicon.flags(find(lexicon, "not"))).isEqualTo(SentimentLexicon.NEGATOR);
+        assertThat(lexicon.flags(find(lexicon, "very"))).isEqualTo(SentimentLexicon.INTENSIFIER);
+        assertThat(find(lexicon, "moon")).isEqualTo(SentimentLexicon.NOT_FOUND);
+        assertThat(find(lexicon, "pum")).isEqualTo(SentimentLexicon.NOT_FOUND);
+        assertThat(lexicon.flags(SentimentLexicon.NOT_FOUND)).isZero();
+    }
+
+    @Test
+    public void testEveryWordIsFoundInLargeLexicon() {
+        // Given
+        Map<String, Double> words = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            words.put("w" + i, i / 10_000.0);
+        }
+        // "Aa" и "BB" имеют одинаковый String.hashCode
+        words.put("Aa", 0.25);
+        words.put("BB", 0.75);
+        SentimentLexicon lexicon = SentimentLexicon.builder().scores(words, 1.0).build();
+
+        // When / Then
+        words.forEach((word, weight) -> assertThat(lexicon.weight(find(lexicon, word))).as(word).isEqualTo(weight));
+        assertThat(find(lexicon, "w5000")).isEqualTo(SentimentLexicon.NOT_FOUND);
+    }
+
+    private static int find(SentimentLexicon lexicon, String word) {
+        return lexicon.find(word.toCharArray(), word.length(), word.hashCode());
+    }
+}
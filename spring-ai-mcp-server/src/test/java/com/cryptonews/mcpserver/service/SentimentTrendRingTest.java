@@ -0,0 +1,104 @@
+package com.cryptonews.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class SentimentTrendRingTest {
+
+    @Test
+    public void testLinearSeriesGivesSlopeMomentumAndDeltas() {
+        // Given: средняя оценка растет на 0.01 за корзину
+        SentimentTrendRing ring = new SentimentTrendRing(48);
+        for (int bucket = 1000; bucket < 1024; bucket++) {
+            double score = -0.12 + 0.01 * (bucket - 1000);
+            ring.add(bucket, score - 0.05);
+            ring.add(bucket, score + 0.05);
+        }
+
+        // When
+        SentimentTrendRing.Trend trend = ring.trend(1000, 1023, 6, 4);
+
+        // Then
+        assertThat(trend.slope()).isCloseTo(0.01, within(1e-9));
+        assertThat(trend.momentum()).isCloseTo(0.06, within(1e-9));
+        assertThat(trend.trend()).isCloseTo(0.12, within(1e-9));
+        assertThat(trend.deltas()).hasSize(4).allSatisfy(delta -> assertThat(delta).isCloseTo(0.01, within(1e-9)));
+    }
+
+    @Test
+    public void testEmptyRingAcceptsEpochHourBuckets() {
+        // Given: часовые корзины от эпохи Unix; у окна в 7 дней номер круга сейчас больше половины 12-битного
+        long now = LocalDateTime.of(2026, 10, 17, 12, 0).toEpochSecond(ZoneOffset.UTC) / 3600;
+        SentimentTrendRing ring = new SentimentTrendRing(7 * 24);
+        assertThat(Math.floorDiv(now, 7 * 24L) & 0xFFF).isGreaterThan(2048);
+
+        // When
+        boolean accepted = ring.add(now - 1, 0.2);
+        ring.add(now, 0.5);
+
+        // Then
+        assertThat(accepted).isTrue();
+        SentimentTrendRing.Trend trend = ring.trend(now - 7 * 24 + 1, now, 1, 2);
+        assertThat(trend.trend()).isCloseTo(0.3, within(1e-9));
+        assertThat(trend.deltas()).containsExactly(0.0, 0.3);
+    }
+
+    @Test
+    public void testBucketsOfPreviousLapAreReplacedAndLateWritesRejected() {
+        // Given
+        SentimentTrendRing ring = new SentimentTrendRing(24);
+        ring.add(5, -0.8);
+
+        // When: корзина 29 занимает ту же ячейку на следующем круге
+        boolean newLap = ring.add(29, 0.4);
+        boolean late = ring.add(5, -0.8);
+
+        // Then
+        assertThat(newLap).isTrue();
+        assertThat(late).isFalse();
+        assertThat(ring.trend(0, 29, 1, 1).momentum()).isZero();
+        assertThat(ring.trend(29, 29, 1, 1).deltas()).containsExactly(0.0);
+        assertThat(ring.trend(0, 10, 1, 1)).isEqualTo(SentimentTrendRing.Trend.EMPTY);
+    }
+
+    @Test
+    public void testConcurrentAddsAreNotLost() throws Exception {
+        // Given
+        SentimentTrendRing ring = new SentimentTrendRing(8);
+        int threads = 8;
+        int addsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When: все потоки пишут в две соседние корзины
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < addsPerThread; i++) {
+                    ring.add(100 + (i & 1), (i & 1) == 0 ? 0.25 : 0.75);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        // Then: каждая корзина получила ровно свою половину оценок
+        SentimentTrendRing.Trend trend = ring.trend(100, 101, 1, 2);
+        assertThat(trend.momentum()).isCloseTo(0.5, within(1e-9));
+        assertThat(trend.trend()).isCloseTo(0.5, within(1e-9));
+        assertThat(trend.deltas()).containsExactly(0.0, 0.5);
+    }
+}
@@ -0,0 +1,40 @@
+package com.cryptonews.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TopKTest {
+
+    @Test
+    public void testSelectMatchesFullSort() {
+        // Given
+        Random random = new Random(7);
+        List<Integer> values = IntStream.range(0, 10_000).mapToObj(i -> random.nextInt(1_000_000)).toList();
+
+        // When
+        List<Integer> top = TopK.select(values, 25, Comparator.naturalOrder());
+
+        // Then
+        assertThat(top).containsExactlyElementsOf(
+                values.stream().sorted(Comparator.reverseOrder()).limit(25).toList());
+    }
+
+    @Test
+    public void testSelectReturnsEverythingWhenFewerThanK() {
+        // Given
+        List<String> values = List.of("etf", "halving", "airdrop");
+
+        // When
+        List<String> top = TopK.select(values, 10, Comparator.comparing(String::length));
+
+        // Then
+        assertThat(top).containsExactly("halving", "airdrop", "etf");
+        assertThat(TopK.select(values, 0, Comparator.comparing(String::length))).isEmpty();
+    }
+}
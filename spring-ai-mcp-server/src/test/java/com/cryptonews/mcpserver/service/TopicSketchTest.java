@@ -0,0 +1,73 @@
+package com.cryptonews.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TopicSketchTest {
+
+    private static final long HOUR = 3600;
+
+    @Test
+    public void testFrequentTopicsSurviveLongTailWithinBoundedCounters() {
+        // Given: три частые темы в потоке из тысяч редких слов
+        TopicSketch sketch = new TopicSketch(32, 24 * HOUR);
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int roll = random.nextInt(100);
+            String topic = roll < 10 ? "bitcoin" : roll < 17 ? "etf" : roll < 22 ? "halving" : "rare" + random.nextInt(5000);
+            sketch.add(topic, 1_000_000);
+        }
+
+        // When
+        var top = sketch.top(3, 1_000_000);
+
+        // Then
+        assertThat(sketch.size()).isEqualTo(32);
+        assertThat(top).extracting(TopicSketch.Topic::topic).containsExactly("bitcoin", "etf", "halving");
+        // Space-Saving не занижает: вес без ошибки не больше истинного числа упоминаний, с ошибкой - не меньше
+        assertThat(top.get(0).weight() - top.get(0).error()).isLessThanOrEqualTo(2_100);
+        assertThat(top.get(0).weight()).isGreaterThanOrEqualTo(1_900);
+    }
+
+    @Test
+    public void testOlderMentionsDecayByHalfLife() {
+        // Given: старая тема упоминалась вдвое чаще, но два периода полураспада назад
+        TopicSketch sketch = new TopicSketch(8, HOUR);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("merge", 0);
+        }
+        for (int i = 0; i < 50; i++) {
+            sketch.add("airdrop", 2 * HOUR);
+        }
+
+        // When
+        var top = sketch.top(2, 2 * HOUR);
+
+        // Then
+        assertThat(top).extracting(TopicSketch.Topic::topic).containsExactly("airdrop", "merge");
+        assertThat(top.get(0).weight()).isCloseTo(50.0, within(1e-9));
+        assertThat(top.get(1).weight()).isCloseTo(25.0, within(1e-9));
+    }
+
+    @Test
+    public void testWeightsAreRescaledWithoutChangingRanking() {
+        // Given: упоминания на протяжении сотни периодов полураспада
+        TopicSketch sketch = new TopicSketch(8, HOUR);
+        for (int hour = 0; hour <= 100; hour++) {
+            sketch.add("staking", hour * HOUR);
+            sketch.add("staking", hour * HOUR);
+            sketch.add("bridge", hour * HOUR);
+        }
+
+        // When
+        var top = sketch.top(2, 100 * HOUR);
+
+        // Then: сумма геометрического ряда 2 + 1 + 1/2 + ... и вдвое меньше
+        assertThat(top.get(0).weight()).isCloseTo(4.0, within(1e-9));
+        assertThat(top.get(1).weight()).isCloseTo(2.0, within(1e-9));
+    }
+}
@@ -0,0 +1,79 @@
+package com.cryptonews.mcpserver.service;
+
+import com.cryptonews.mcpserver.model.NewsItem;
+import com.cryptonews.mcpserver.model.TrendingTopic;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrendingTopicsTest {
+
+    private static final Set<String> STOP_WORDS = Set.of("this", "that", "with", "have", "will", "from", "they",
+            "been", "their", "said", "each", "which", "would", "there", "what", "about");
+
+    @Test
+    public void testTopicsMatchRegexSplitting() {
+        // Given
+        Random random = new Random(42);
+        String alphabet = "abcXYZ019_ -.,!?'\u00e9\n#@$";
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            text.append(random.nextBoolean() ? " With Bitcoin" : " which ETHEREUM_2");
+
+            // When
+            List<String> topics = new ArrayList<>();
+            TrendingTopics.forEachTopic(text.toString(), topics::add);
+
+            // Then
+            assertThat(topics).as(text.toString()).isEqualTo(regexTopics(text.toString()));
+        }
+    }
+
+    @Test
+    public void testTrendingTopicsSpanCoins() {
+        // Given
+        TrendingTopics trendingTopics = new TrendingTopics(16, 64, Duration.ofHours(6));
+        LocalDateTime now = LocalDateTime.now();
+        trendingTopics.record(newsItem("BTC", "Staking inflows hit record", now));
+        trendingTopics.record(newsItem("ETH", "Staking ETF approved by regulators", now));
+        trendingTopics.record(newsItem("ETH", "Staking yields fall", now.minusHours(1)));
+
+        // When
+        List<TrendingTopic> trending = trendingTopics.trending(1);
+
+        // Then
+        assertThat(trending).singleElement().satisfies(topic -> {
+            assertThat(topic.getTopic()).isEqualTo("staking");
+            assertThat(topic.getScore()).isBetween(2.8, 3.0);
+            assertThat(topic.getCryptocurrencies()).containsExactly("btc", "eth");
+        });
+        assertThat(trendingTopics.keyTopics("btc", 10)).containsExactlyInAnyOrder("staking", "inflows", "record");
+    }
+
+    // Прежнее разбиение extractKeyTopics
+    private static List<String> regexTopics(String text) {
+        return Arrays.stream(text.toLowerCase().split("\\W+"))
+                .filter(word -> word.length() > 3 && !STOP_WORDS.contains(word))
+                .toList();
+    }
+
+    private static NewsItem newsItem(String cryptocurrency, String title, LocalDateTime publishedDate) {
+        NewsItem newsItem = new NewsItem();
+        newsItem.setCryptocurrency(cryptocurrency);
+        newsItem.setTitle(title);
+        newsItem.setPublishedDate(publishedDate);
+        return newsItem;
+    }
+}
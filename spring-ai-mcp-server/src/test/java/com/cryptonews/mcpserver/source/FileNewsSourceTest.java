@@ -0,0 +1,86 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.config.NewsSourceProperties;
+import com.cryptonews.mcpserver.model.NewsItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileNewsSourceTest {
+
+    @TempDir
+    Path feeds;
+
+    @Test
+    public void testRssAndAtomEntriesAreMatchedByTickerAndAlias() throws IOException {
+        // Given
+        Files.writeString(feeds.resolve("coindesk.rss"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <rss version="2.0"><channel><title>Desk</title>
+                  <item>
+                    <title>Bitcoin miners expand capacity</title>
+                    <description>Hashrate climbs to a new high.</description>
+                    <link>https://desk.example/1</link>
+                    <pubDate>Tue, 10 Jun 2025 08:00:00 GMT</pubDate>
+                  </item>
+                  <item>
+                    <title>Solana outage resolved</title>
+                    <link>https://desk.example/2</link>
+                    <pubDate>Wed, 11 Jun 2025 08:00:00 GMT</pubDate>
+                  </item>
+                  <item>
+                    <title>Market wrap</title>
+                    <description>Traders rotate into WBTC pools</description>
+                    <category>BTC</category>
+                    <pubDate>Mon, 09 Jun 2025 08:00:00 GMT</pubDate>
+                  </item>
+                </channel></rss>
+                """);
+        Files.writeString(feeds.resolve("blog.atom"), """
+                <feed xmlns="http://www.w3.org/2005/Atom">
+                  <entry>
+                    <title>Why BTC fees fell</title>
+                    <link href="https://blog.example/fees"/>
+                    <updated>2025-06-12T10:15:00Z</updated>
+                    <summary>Mempool is quiet.</summary>
+                  </entry>
+                </feed>
+                """);
+        FileNewsSource source = new FileNewsSource(properties(Map.of("BTC", List.of("Bitcoin"))));
+
+        // When
+        List<NewsItem> news = source.latestNews("BTC", 10).block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(news).extracting(NewsItem::getTitle)
+                .containsExactly("Why BTC fees fell", "Bitcoin miners expand capacity", "Market wrap");
+        assertThat(news.get(0).getUrl()).isEqualTo("https://blog.example/fees");
+        assertThat(news.get(0).getSource()).isEqualTo("blog");
+        assertThat(news.get(1).getDescription()).isEqualTo("Hashrate climbs to a new high.");
+        assertThat(news.get(1).getPublishedDate().toLocalDate()).isEqualTo(LocalDate.of(2025, 6, 10));
+        assertThat(news).allMatch(newsItem -> "BTC".equals(newsItem.getCryptocurrency()));
+    }
+
+    @Test
+    public void testTickerMustBeAWholeWord() {
+        assertThat(FileNewsSource.containsWord("traders rotate into wbtc pools", "btc")).isFalse();
+        assertThat(FileNewsSource.containsWord("btc-usd breaks out", "btc")).isTrue();
+    }
+
+    private NewsSourceProperties properties(Map<String, List<String>> aliases) {
+        NewsSourceProperties properties = new NewsSourceProperties();
+        properties.getFile().setEnabled(true);
+        properties.getFile().setPath(feeds);
+        properties.getFile().setAliases(aliases);
+        return properties;
+    }
+}
@@ -0,0 +1,107 @@
+package com.cryptonews.mcpserver.source;
+
+import com.cryptonews.mcpserver.exception.PerplexityApiException;
+import com.cryptonews.mcpserver.model.NewsItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NewsSourceAggregatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testSlowSourceIsSkippedAndDuplicatesAreMerged() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        NewsSource primary = source("primary", Duration.ofSeconds(1), Mono.just(List.of(
+                newsItem("Bitcoin ETF inflows hit a record", "https://example.com/a", now.minusHours(2)),
+                newsItem("Miners sell BTC reserves", "https://example.com/b", now.minusHours(5)))));
+        NewsSource feed = source("feed", Duration.ofSeconds(1), Mono.just(List.of(
+                newsItem("Bitcoin ETF inflows hit a record!", "https://feed.local/1", now.minusHours(1)),
+                newsItem("Exchange lists BTC options", "https://example.com/b", now.minusHours(3)),
+                newsItem("Lightning capacity grows", "https://feed.local/3", now.minusHours(4)))));
+        NewsSource slow = source("slow", Duration.ofMillis(100),
+                Mono.just(List.of(newsItem("Late news", "https://slow.local/1", now))).delayElement(Duration.ofSeconds(5)));
+        NewsSourceAggregator aggregator = new NewsSourceAggregator(List.of(primary, feed, slow), meterRegistry);
+
+        // When
+        List<NewsItem> news = aggregator.latestNews("BTC", 10).block(Duration.ofSeconds(2));
+
+        // Then
+        assertThat(news).extracting(NewsItem::getTitle).containsExactly(
+                "Bitcoin ETF inflows hit a record",
+                "Lightning capacity grows",
+                "Miners sell BTC reserves");
+        assertThat(meterRegistry.get("news.source.fetch").tag("source", "slow").tag("outcome", "timeout").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("news.source.fetch").tag("source", "feed").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testResultIsLimitedToMaxArticles() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        NewsSource first = source("first", Duration.ofSeconds(1), Mono.just(List.of(
+                newsItem("One", null, now.minusHours(1)), newsItem("Two", null, now.minusHours(3)))));
+        NewsSource second = source("second", Duration.ofSeconds(1), Mono.just(List.of(
+                newsItem("Three", null, now.minusHours(2)))));
+        NewsSourceAggregator aggregator = new NewsSourceAggregator(List.of(first, second), meterRegistry);
+
+        // When
+        List<NewsItem> news = aggregator.latestNews("BTC", 2).block(Duration.ofSeconds(2));
+
+        // Then
+        assertThat(news).extracting(NewsItem::getTitle).containsExactly("One", "Three");
+    }
+
+    @Test
+    public void testErrorIsReturnedWhenAllSourcesFail() {
+        // Given
+        NewsSource failing = source("failing", Duration.ofSeconds(1), Mono.error(new PerplexityApiException("boom")));
+        NewsSource slow = source("slow", Duration.ofMillis(50), Mono.never());
+        NewsSourceAggregator aggregator = new NewsSourceAggregator(List.of(failing, slow), meterRegistry);
+
+        // When / Then
+        StepVerifier.create(aggregator.latestNews("BTC", 5))
+                .expectError(PerplexityApiException.class)
+                .verify(Duration.ofSeconds(2));
+    }
+
+    private static NewsSource source(String name, Duration timeout, Mono<List<NewsItem>> news) {
+        return new NewsSource() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Duration timeout() {
+                return timeout;
+            }
+
+            @Override
+            public Mono<List<NewsItem>> latestNews(String cryptocurrency, int maxArticles) {
+                return news;
+            }
+        };
+    }
+
+    private static NewsItem newsItem(String title, String url, LocalDateTime publishedDate) {
+        NewsItem newsItem = new NewsItem();
+        newsItem.setCryptocurrency("BTC");
+        newsItem.setTitle(title);
+        newsItem.setDescription(title);
+        newsItem.setUrl(url);
+        newsItem.setPublishedDate(publishedDate);
+        return newsItem;
+    }
+}
@@ -0,0 +1,97 @@
+package com.cryptonews.mcpserver.stub;
+
+import com.cryptonews.mcpserver.model.PerplexityRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PerplexityStubControllerTest {
+
+    private PerplexityStubProperties properties;
+    private PerplexityStubController controller;
+
+    @BeforeEach
+    public void setup() {
+        properties = new PerplexityStubProperties();
+        properties.getLatency().setDistribution(PerplexityStubProperties.Distribution.FIXED);
+        properties.getLatency().setMedian(Duration.ofMillis(1));
+        properties.setStreamChunkInterval(Duration.ofMillis(1));
+        controller = new PerplexityStubController(properties, new ObjectMapper());
+    }
+
+    @Test
+    public void testCompletionReturnsCannedNewsInClientFormat() throws Exception {
+        // When
+        ResponseEntity<?> response = controller.completion(request("Get the latest 3 news articles about eth cryptocurrency."))
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String content = ((JsonNode) response.getBody())
+                .at("/choices/0/message/content").asText();
+        JsonNode articles = new ObjectMapper().readTree(content);
+        assertThat(articles.isArray()).isTrue();
+        assertThat(articles).hasSize(3).allMatch(article -> article.path("title").asText().contains("ETH"));
+    }
+
+    @Test
+    public void testRateLimitIsInjected() {
+        // Given
+        properties.setRateLimitRate(1.0);
+
+        // When
+        ResponseEntity<?> response = controller.completion(request("Provide a short-term trend forecast for BTC cryptocurrency."))
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    public void testStreamingEndsWithDoneMarker() {
+        // When
+        Flux<ServerSentEvent<String>> events = controller
+                .streamCompletion(request("Provide a short-term trend forecast for BTC cryptocurrency."))
+                .getBody();
+
+        // Then
+        StepVerifier.create(events.map(ServerSentEvent::data).collectList())
+                .assertNext(data -> {
+                    assertThat(data).hasSizeGreaterThan(2);
+                    assertThat(data.get(0)).contains("\"delta\"");
+                    assertThat(data.get(data.size() - 2)).contains("\"finish_reason\":\"stop\"");
+                    assertThat(data.get(data.size() - 1)).isEqualTo("[DONE]");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void testLogNormalLatencyRespectsMinimum() {
+        // Given
+        properties.getLatency().setDistribution(PerplexityStubProperties.Distribution.LOG_NORMAL);
+        properties.getLatency().setMin(Duration.ofMillis(100));
+        properties.getLatency().setMedian(Duration.ofMillis(150));
+
+        // When / Then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(controller.sampleLatency()).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        }
+    }
+
+    private PerplexityRequest request(String prompt) {
+        return new PerplexityRequest("stub-model", List.of(new PerplexityRequest.Message("user", prompt)));
+    }
+}